@@ -0,0 +1,462 @@
+package pro.finstream.broadcasting.common.scheduling;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Queue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.Trigger;
+import org.springframework.scheduling.support.SimpleTriggerContext;
+
+/**
+ * TaskScheduler on a hashed timing wheel, for very many timeouts that are mostly cancelled
+ * before they fire, like the per-session heartbeats of SockJS: every frame written to a session
+ * cancels its heartbeat and schedules the next one.
+ *
+ * Scheduling appends the task to a lock-free queue and cancelling flags it, both O(1) and without
+ * a shared lock; a single ticker thread moves new tasks into the bucket of their deadline,
+ * unlinks cancelled ones and, once per tick, hands the due tasks of the current bucket to the
+ * executor. A ScheduledThreadPoolExecutor instead keeps every task in one lock-guarded heap, at
+ * O(log n) per schedule, and retains cancelled tasks until they would have been due.
+ *
+ * Tasks run up to one tick late, never early. Deadlines further out than one revolution of the
+ * wheel are kept in their bucket for as many rounds. Fixed-rate, fixed-delay and trigger tasks
+ * are rescheduled after each run, like on a ScheduledThreadPoolExecutor; a task that throws is
+ * logged and, if periodic, keeps running.
+ */
+@Slf4j
+public class HashedWheelTaskScheduler implements TaskScheduler {
+
+    /** Pending tasks moved into buckets per tick, so producers outpacing the ticker cannot stall the wheel */
+    private static final int MAX_TRANSFERS_PER_TICK = 1_000_000;
+
+    private final Clock clock = Clock.systemDefaultZone();
+    private final long tickNanos;
+    private final Bucket[] wheel;
+    private final int mask;
+    private final ExecutorService executor;
+    private final Queue<Timeout> pending = new ConcurrentLinkedQueue<>();
+    private final Queue<Timeout> cancelled = new ConcurrentLinkedQueue<>();
+    private final AtomicLong scheduled = new AtomicLong();
+    private final long startNanos = System.nanoTime();
+    private final Thread ticker;
+    private volatile boolean running = true;
+
+    /** Ticks completed, only accessed by the ticker thread */
+    private long tick;
+
+    /**
+     * @param tick        resolution of the wheel
+     * @param wheelSize   buckets, rounded up to a power of two; tick * wheelSize should cover the
+     *                    common timeouts so they take no extra rounds
+     * @param executor    runs the due tasks, the ticker thread itself never does
+     * @param threadName  name of the ticker thread
+     */
+    public HashedWheelTaskScheduler(Duration tick, int wheelSize, ExecutorService executor, String threadName) {
+        if (tick.toNanos() <= 0 || wheelSize <= 0) {
+            throw new IllegalArgumentException("tick and wheelSize must be positive");
+        }
+        this.tickNanos = tick.toNanos();
+        int size = 1;
+        while (size < wheelSize) {
+            size <<= 1;
+        }
+        this.wheel = new Bucket[size];
+        this.mask = size - 1;
+        for (int i = 0; i < wheel.length; i++) {
+            wheel[i] = new Bucket();
+        }
+        this.executor = executor;
+        this.ticker = new Thread(this::run, threadName);
+        this.ticker.setDaemon(true);
+        this.ticker.start();
+    }
+
+    /**
+     * Tasks scheduled and neither run nor cancelled yet.
+     */
+    public long getScheduledCount() {
+        return scheduled.get();
+    }
+
+    @Override
+    public Clock getClock() {
+        return clock;
+    }
+
+    @Override
+    public ScheduledFuture<?> schedule(Runnable task, Instant startTime) {
+        return submit(new Timeout(task, 0, null, null), delayUntil(startTime));
+    }
+
+    @Override
+    public ScheduledFuture<?> schedule(Runnable task, Trigger trigger) {
+        SimpleTriggerContext context = new SimpleTriggerContext(clock);
+        Instant next = trigger.nextExecution(context);
+        if (next == null) {
+            return null;
+        }
+        Timeout timeout = new Timeout(task, 0, trigger, context);
+        timeout.scheduledAt = next;
+        return submit(timeout, delayUntil(next));
+    }
+
+    @Override
+    public ScheduledFuture<?> scheduleAtFixedRate(Runnable task, Instant startTime, Duration period) {
+        return submit(new Timeout(task, positive(period), null, null), delayUntil(startTime));
+    }
+
+    @Override
+    public ScheduledFuture<?> scheduleAtFixedRate(Runnable task, Duration period) {
+        return submit(new Timeout(task, positive(period), null, null), 0);
+    }
+
+    @Override
+    public ScheduledFuture<?> scheduleWithFixedDelay(Runnable task, Instant startTime, Duration delay) {
+        return submit(new Timeout(task, -positive(delay), null, null), delayUntil(startTime));
+    }
+
+    @Override
+    public ScheduledFuture<?> scheduleWithFixedDelay(Runnable task, Duration delay) {
+        return submit(new Timeout(task, -positive(delay), null, null), 0);
+    }
+
+    /**
+     * Stops the ticker and the executor; tasks not yet due are dropped.
+     */
+    public void shutdown() {
+        running = false;
+        ticker.interrupt();
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        }
+        catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private Timeout submit(Timeout timeout, long delayNanos) {
+        if (!running) {
+            throw new RejectedExecutionException("Scheduler is shut down");
+        }
+        timeout.deadline = now() + Math.max(0, delayNanos);
+        scheduled.incrementAndGet();
+        pending.add(timeout);
+        return timeout;
+    }
+
+    private long delayUntil(Instant instant) {
+        return Duration.between(clock.instant(), instant).toNanos();
+    }
+
+    private static long positive(Duration duration) {
+        long nanos = duration.toNanos();
+        if (nanos <= 0) {
+            throw new IllegalArgumentException("Period must be positive: " + duration);
+        }
+        return nanos;
+    }
+
+    /** Nanoseconds since the wheel started, the time base of all deadlines */
+    private long now() {
+        return System.nanoTime() - startNanos;
+    }
+
+    private void run() {
+        while (running) {
+            long tickEnd = tickNanos * (tick + 1);
+            long sleep;
+            while ((sleep = tickEnd - now()) > 0 && running) {
+                LockSupport.parkNanos(this, sleep);
+            }
+            if (!running) {
+                break;
+            }
+            try {
+                unlinkCancelled();
+                transferPending();
+                wheel[(int) (tick & mask)].expire(tickEnd);
+            }
+            catch (Throwable e) {
+                log.error("Timer wheel tick failed: tick={}", tick, e);
+            }
+            tick++;
+        }
+    }
+
+    private void unlinkCancelled() {
+        Timeout timeout;
+        while ((timeout = cancelled.poll()) != null) {
+            if (timeout.bucket != null) {
+                timeout.bucket.remove(timeout);
+            }
+        }
+    }
+
+    private void transferPending() {
+        for (int i = 0; i < MAX_TRANSFERS_PER_TICK; i++) {
+            Timeout timeout = pending.poll();
+            if (timeout == null) {
+                return;
+            }
+            if (timeout.state.get() == Timeout.CANCELLED) {
+                continue;
+            }
+            long due = timeout.deadline / tickNanos;
+            timeout.remainingRounds = (due - tick) / wheel.length;
+            // Deadlines already past go into the current bucket
+            wheel[(int) (Math.max(due, tick) & mask)].add(timeout);
+        }
+    }
+
+    /**
+     * Run the task on the executor, then reschedule it if periodic.
+     */
+    private void execute(Timeout timeout) {
+        try {
+            executor.execute(timeout);
+        }
+        catch (RejectedExecutionException e) {
+            if (running) {
+                log.warn("Scheduled task rejected by the executor: {}", e.getMessage());
+            }
+            timeout.complete(e);
+        }
+    }
+
+    /**
+     * Tasks whose deadline falls into this bucket, as a doubly linked list; only the ticker
+     * thread touches it.
+     */
+    private final class Bucket {
+        private Timeout head;
+        private Timeout tail;
+
+        void add(Timeout timeout) {
+            timeout.bucket = this;
+            if (head == null) {
+                head = tail = timeout;
+            }
+            else {
+                tail.next = timeout;
+                timeout.prev = tail;
+                tail = timeout;
+            }
+        }
+
+        void remove(Timeout timeout) {
+            Timeout next = timeout.next;
+            if (timeout.prev != null) {
+                timeout.prev.next = next;
+            }
+            if (next != null) {
+                next.prev = timeout.prev;
+            }
+            if (timeout == head) {
+                head = next;
+            }
+            if (timeout == tail) {
+                tail = timeout.prev;
+            }
+            timeout.prev = null;
+            timeout.next = null;
+            timeout.bucket = null;
+        }
+
+        void expire(long tickEnd) {
+            Timeout timeout = head;
+            while (timeout != null) {
+                Timeout next = timeout.next;
+                if (timeout.state.get() == Timeout.CANCELLED) {
+                    remove(timeout);
+                }
+                else if (timeout.remainingRounds <= 0 && timeout.deadline <= tickEnd) {
+                    remove(timeout);
+                    if (timeout.state.compareAndSet(Timeout.SCHEDULED, Timeout.RUNNING)) {
+                        execute(timeout);
+                    }
+                }
+                else {
+                    timeout.remainingRounds--;
+                }
+                timeout = next;
+            }
+        }
+    }
+
+    /**
+     * A scheduled task and its future.
+     *
+     * {@code period} is positive for fixed rate, negative for fixed delay and 0 for one-shot or
+     * trigger tasks. Bucket links are owned by the ticker thread.
+     */
+    private final class Timeout implements ScheduledFuture<Object>, Runnable {
+        static final int SCHEDULED = 0;
+        static final int RUNNING = 1;
+        static final int CANCELLED = 2;
+        static final int DONE = 3;
+
+        final Runnable task;
+        final long period;
+        final Trigger trigger;
+        final SimpleTriggerContext triggerContext;
+        final AtomicInteger state = new AtomicInteger(SCHEDULED);
+
+        volatile long deadline;
+        Instant scheduledAt;
+        long remainingRounds;
+        Bucket bucket;
+        Timeout prev;
+        Timeout next;
+        private Throwable failure;
+
+        Timeout(Runnable task, long period, Trigger trigger, SimpleTriggerContext triggerContext) {
+            this.task = task;
+            this.period = period;
+            this.trigger = trigger;
+            this.triggerContext = triggerContext;
+        }
+
+        @Override
+        public void run() {
+            Instant start = trigger != null ? clock.instant() : null;
+            Throwable error = null;
+            try {
+                task.run();
+            }
+            catch (Throwable e) {
+                error = e;
+                log.error("Scheduled task failed: {}", task, e);
+            }
+
+            long nextDeadline = -1;
+            if (period > 0) {
+                nextDeadline = deadline + period;
+            }
+            else if (period < 0) {
+                nextDeadline = now() - period;
+            }
+            else if (trigger != null) {
+                triggerContext.update(scheduledAt, start, clock.instant());
+                Instant next = trigger.nextExecution(triggerContext);
+                if (next != null) {
+                    scheduledAt = next;
+                    nextDeadline = now() + Math.max(0, delayUntil(next));
+                }
+            }
+
+            if (nextDeadline >= 0 && running && state.compareAndSet(RUNNING, SCHEDULED)) {
+                // Still counted as scheduled
+                deadline = nextDeadline;
+                pending.add(this);
+            }
+            else {
+                complete(error);
+            }
+        }
+
+        void complete(Throwable error) {
+            scheduled.decrementAndGet();
+            synchronized (this) {
+                failure = error;
+                state.compareAndSet(RUNNING, DONE);
+                notifyAll();
+            }
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            int current = state.get();
+            while (current == SCHEDULED || current == RUNNING) {
+                if (state.compareAndSet(current, CANCELLED)) {
+                    if (current == SCHEDULED) {
+                        scheduled.decrementAndGet();
+                        cancelled.add(this);
+                    }
+                    // A running periodic task sees the cancellation when it tries to reschedule
+                    synchronized (this) {
+                        notifyAll();
+                    }
+                    return true;
+                }
+                current = state.get();
+            }
+            return false;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return state.get() == CANCELLED;
+        }
+
+        @Override
+        public boolean isDone() {
+            int current = state.get();
+            return current == CANCELLED || current == DONE;
+        }
+
+        @Override
+        public Object get() throws InterruptedException, ExecutionException {
+            synchronized (this) {
+                while (!isDone()) {
+                    wait();
+                }
+            }
+            return result();
+        }
+
+        @Override
+        public Object get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+            long until = System.nanoTime() + unit.toNanos(timeout);
+            synchronized (this) {
+                long left;
+                while (!isDone()) {
+                    if ((left = until - System.nanoTime()) <= 0) {
+                        throw new TimeoutException();
+                    }
+                    TimeUnit.NANOSECONDS.timedWait(this, left);
+                }
+            }
+            return result();
+        }
+
+        private Object result() throws ExecutionException {
+            if (isCancelled()) {
+                throw new CancellationException();
+            }
+            synchronized (this) {
+                if (failure != null) {
+                    throw new ExecutionException(failure);
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(deadline - now(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(getDelay(TimeUnit.NANOSECONDS), other.getDelay(TimeUnit.NANOSECONDS));
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package pro.finstream.broadcasting.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.config.annotation.EnableWebSocket;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+import pro.finstream.broadcasting.domain.binary.BinaryPriceWebSocketHandler;
+import pro.finstream.broadcasting.domain.binary.JwtHandshakeInterceptor;
+import pro.finstream.broadcasting.domain.cluster.ClusterNode;
+import pro.finstream.broadcasting.domain.cluster.NodeHandshakeInterceptor;
+import pro.finstream.broadcasting.domain.stomp.ConnectionAdmission;
+
+/**
+ * Raw WebSocket endpoint for the binary price sub-protocol, next to the STOMP endpoint.
+ * 
+ * Endpoints:
+ * - /stock-updates-bin - Binary price frames, sub-protocol finstream.prices.v1
+ * 
+ * Handshakes go through the same admission control as STOMP CONNECTs (ConnectionAdmission);
+ * the user's connection slot is released when the session closes.
+ * 
+ * @author FinStream Platform
+ */
+@Configuration
+@EnableWebSocket
+public class BinaryWebSocketConfig implements WebSocketConfigurer {
+
+    private static final Logger log = LoggerFactory.getLogger(BinaryWebSocketConfig.class);
+
+    @Value("${finstream.websocket.binary.endpoint}")
+    private String endpoint;
+
+    @Value("${finstream.websocket.allowed-origins}")
+    private String[] allowedOrigins;
+
+    private final BinaryPriceWebSocketHandler binaryPriceHandler;
+    private final JwtDecoder jwtDecoder;
+    private final ClusterNode clusterNode;
+    private final ConnectionAdmission connectionAdmission;
+
+    public BinaryWebSocketConfig(
+        BinaryPriceWebSocketHandler binaryPriceHandler,
+        JwtDecoder jwtDecoder,
+        ClusterNode clusterNode,
+        ConnectionAdmission connectionAdmission
+    ) {
+        this.binaryPriceHandler = binaryPriceHandler;
+        this.jwtDecoder = jwtDecoder;
+        this.clusterNode = clusterNode;
+        this.connectionAdmission = connectionAdmission;
+    }
+
+    @Override
+    public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
+        JwtHandshakeInterceptor jwtInterceptor = new JwtHandshakeInterceptor(jwtDecoder, connectionAdmission);
+
+        // The decorator is unwrapped for sub-protocol negotiation
+        WebSocketHandlerDecorator handler = new WebSocketHandlerDecorator(binaryPriceHandler) {
+            @Override
+            public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+                try {
+                    super.afterConnectionClosed(session, closeStatus);
+                }
+                finally {
+                    jwtInterceptor.release(session.getAttributes());
+                }
+            }
+        };
+
+        registry.addHandler(handler, endpoint)
+                .addInterceptors(jwtInterceptor, new NodeHandshakeInterceptor(clusterNode))
+                .setAllowedOriginPatterns(allowedOrigins);
+
+        log.info("Binary WebSocket endpoint registered: {}", endpoint);
+    }
+}
@@ -0,0 +1,139 @@
+package pro.finstream.broadcasting.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+
+/**
+ * JwtDecoder that remembers successfully verified tokens, so a reconnect storm after a restart
+ * costs one signature check per distinct token instead of one per CONNECT.
+ *
+ * Entries are keyed by the SHA-256 digest of the token, so raw tokens are not held in memory,
+ * and live until the token's {@code exp} or the configured TTL, whichever comes first; an
+ * expired token is never served from the cache. Failed verifications are not cached. When the
+ * cache is full, expired entries are purged and, if that is not enough, arbitrary entries are
+ * dropped; a dropped token is simply verified again.
+ *
+ * Meters: {@code finstream.jwt.cache.requests} tagged {@code result=hit|miss}, and
+ * {@code finstream.jwt.cache.size}.
+ */
+public class CachingJwtDecoder implements JwtDecoder {
+
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        }
+        catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    });
+
+    private final JwtDecoder delegate;
+    private final int maxSize;
+    private final Duration ttl;
+    private final Clock clock;
+    private final Map<String, Entry> cache = new ConcurrentHashMap<>();
+    private final Counter hits;
+    private final Counter misses;
+
+    public CachingJwtDecoder(JwtDecoder delegate, MeterRegistry registry, int maxSize, Duration ttl) {
+        this(delegate, registry, maxSize, ttl, Clock.systemUTC());
+    }
+
+    CachingJwtDecoder(JwtDecoder delegate, MeterRegistry registry, int maxSize, Duration ttl, Clock clock) {
+        this.delegate = delegate;
+        this.maxSize = maxSize;
+        this.ttl = ttl;
+        this.clock = clock;
+
+        this.hits = Counter.builder("finstream.jwt.cache.requests")
+            .description("JWT verifications answered from the cache")
+            .tag("result", "hit")
+            .register(registry);
+        this.misses = Counter.builder("finstream.jwt.cache.requests")
+            .description("JWT verifications that required a full signature check")
+            .tag("result", "miss")
+            .register(registry);
+        Gauge.builder("finstream.jwt.cache.size", cache, Map::size)
+            .description("Verified JWTs held in the cache")
+            .register(registry);
+    }
+
+    @Override
+    public Jwt decode(String token) throws JwtException {
+        if (token == null) {
+            return delegate.decode(null);
+        }
+
+        String key = digest(token);
+        Instant now = clock.instant();
+
+        Entry entry = cache.get(key);
+        if (entry != null) {
+            if (now.isBefore(entry.expiresAt)) {
+                hits.increment();
+                return entry.jwt;
+            }
+            cache.remove(key, entry);
+        }
+
+        misses.increment();
+        Jwt jwt = delegate.decode(token);
+        put(key, jwt, now);
+        return jwt;
+    }
+
+    public int size() {
+        return cache.size();
+    }
+
+    private void put(String key, Jwt jwt, Instant now) {
+        Instant expiresAt = now.plus(ttl);
+        if (jwt.getExpiresAt() != null && jwt.getExpiresAt().isBefore(expiresAt)) {
+            expiresAt = jwt.getExpiresAt();
+        }
+        if (!now.isBefore(expiresAt)) {
+            return;
+        }
+
+        if (cache.size() >= maxSize) {
+            evict(now);
+        }
+        cache.put(key, new Entry(jwt, expiresAt));
+    }
+
+    /**
+     * Purge expired entries; if the cache is still full, drop a tenth of it.
+     */
+    private void evict(Instant now) {
+        cache.values().removeIf(entry -> !now.isBefore(entry.expiresAt));
+
+        int excess = cache.size() - maxSize + Math.max(1, maxSize / 10);
+        Iterator<String> keys = cache.keySet().iterator();
+        while (excess-- > 0 && keys.hasNext()) {
+            keys.next();
+            keys.remove();
+        }
+    }
+
+    private static String digest(String token) {
+        MessageDigest digest = SHA_256.get();
+        digest.reset();
+        return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    private record Entry(Jwt jwt, Instant expiresAt) {}
+}
@@ -0,0 +1,164 @@
+package pro.finstream.broadcasting.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.ToDoubleFunction;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Executors for the STOMP message channels (client inbound, client outbound, broker).
+ *
+ * Each channel is configured under {@code finstream.websocket.channel.<channel>.*}:
+ * {@code core-pool-size}, {@code max-pool-size}, {@code queue-capacity} and
+ * {@code keep-alive-seconds}. A core pool size of 0 makes the channel synchronous, i.e. messages
+ * are handled on the sending thread; a {@link SyncTaskExecutor} is registered for it, since
+ * Spring falls back to its own thread pool for a client channel without an executor.
+ *
+ * With {@code finstream.websocket.channel.virtual-threads} the inbound channel, if it has a pool,
+ * runs each message on its own virtual thread instead; pool sizes and queue capacity are then
+ * ignored. The outbound and broker channels never do: a thread per message hands messages over
+ * in no particular order, which would give up the per-session publish order and the per-symbol
+ * order from the Kafka consumer.
+ *
+ * All executors expose the same meters, tagged by channel:
+ * {@code finstream.stomp.channel.active} (tasks running), {@code .queued} (tasks waiting for a
+ * pool thread), {@code .pool.size} (pool threads) and {@code .rejected} (tasks rejected because
+ * pool and queue were full).
+ */
+@Component
+@Slf4j
+public class ChannelExecutors implements DisposableBean {
+
+    private static final String PREFIX = "finstream.websocket.channel.";
+    private static final Set<String> ORDERED_CHANNELS = Set.of("outbound", "broker");
+
+    private final Environment environment;
+    private final MeterRegistry registry;
+    private final boolean virtualThreads;
+    private final List<ThreadPoolTaskExecutor> pools = new CopyOnWriteArrayList<>();
+
+    public ChannelExecutors(Environment environment, MeterRegistry registry) {
+        this.environment = environment;
+        this.registry = registry;
+        this.virtualThreads = environment.getProperty(PREFIX + "virtual-threads", Boolean.class, false);
+    }
+
+    /**
+     * Executor for the given channel, a {@link SyncTaskExecutor} if the channel is configured to be synchronous.
+     */
+    public Executor create(String channel) {
+        int corePoolSize = property(channel, "core-pool-size", 0);
+        if (corePoolSize <= 0) {
+            log.info("STOMP {} channel is synchronous", channel);
+            return new SyncTaskExecutor();
+        }
+
+        Counter rejected = Counter.builder("finstream.stomp.channel.rejected")
+            .description("Messages rejected because the channel executor was saturated")
+            .tag("channel", channel)
+            .register(registry);
+
+        if (virtualThreads && ORDERED_CHANNELS.contains(channel)) {
+            log.warn("STOMP {} channel must keep message order, ignoring virtual-threads", channel);
+        }
+        else if (virtualThreads) {
+            VirtualThreadExecutor executor = new VirtualThreadExecutor(
+                Thread.ofVirtual().name("finstream-" + channel + "-", 0).factory());
+            registerGauges(channel, executor, e -> e.active.get(), e -> 0, e -> 0);
+            log.info("STOMP {} channel executor: virtual threads", channel);
+            return executor;
+        }
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(corePoolSize);
+        executor.setMaxPoolSize(Math.max(corePoolSize, property(channel, "max-pool-size", corePoolSize)));
+        executor.setQueueCapacity(property(channel, "queue-capacity", Integer.MAX_VALUE));
+        executor.setKeepAliveSeconds(property(channel, "keep-alive-seconds", 60));
+        executor.setAllowCoreThreadTimeOut(true);
+        executor.setThreadNamePrefix("finstream-" + channel + "-");
+        executor.setRejectedExecutionHandler((task, pool) -> {
+            rejected.increment();
+            throw new RejectedExecutionException("STOMP " + channel + " channel executor saturated: active="
+                + pool.getActiveCount() + ", queued=" + pool.getQueue().size());
+        });
+        executor.initialize();
+        pools.add(executor);
+
+        ThreadPoolExecutor pool = executor.getThreadPoolExecutor();
+        registerGauges(channel, pool, ThreadPoolExecutor::getActiveCount, p -> p.getQueue().size(), ThreadPoolExecutor::getPoolSize);
+
+        log.info("STOMP {} channel executor: corePoolSize={}, maxPoolSize={}, queueCapacity={}",
+            channel, executor.getCorePoolSize(), executor.getMaxPoolSize(), executor.getQueueCapacity());
+        return executor;
+    }
+
+    @Override
+    public void destroy() {
+        pools.forEach(ThreadPoolTaskExecutor::shutdown);
+    }
+
+    private <T> void registerGauges(
+        String channel,
+        T executor,
+        ToDoubleFunction<T> active,
+        ToDoubleFunction<T> queued,
+        ToDoubleFunction<T> poolSize
+    ) {
+        Gauge.builder("finstream.stomp.channel.active", executor, active)
+            .description("Messages currently being handled by the channel executor")
+            .tag("channel", channel)
+            .register(registry);
+        Gauge.builder("finstream.stomp.channel.queued", executor, queued)
+            .description("Messages waiting for a channel executor thread")
+            .tag("channel", channel)
+            .register(registry);
+        Gauge.builder("finstream.stomp.channel.pool.size", executor, poolSize)
+            .description("Threads in the channel executor pool")
+            .tag("channel", channel)
+            .register(registry);
+    }
+
+    private int property(String channel, String name, int defaultValue) {
+        return environment.getProperty(PREFIX + channel + "." + name, Integer.class, defaultValue);
+    }
+
+    /**
+     * One virtual thread per message; tracks the number of messages in flight.
+     */
+    private static final class VirtualThreadExecutor implements Executor {
+
+        private final ThreadFactory threadFactory;
+        private final AtomicInteger active = new AtomicInteger();
+
+        VirtualThreadExecutor(ThreadFactory threadFactory) {
+            this.threadFactory = threadFactory;
+        }
+
+        @Override
+        public void execute(Runnable task) {
+            active.incrementAndGet();
+            threadFactory.newThread(() -> {
+                try {
+                    task.run();
+                }
+                finally {
+                    active.decrementAndGet();
+                }
+            }).start();
+        }
+    }
+}
@@ -1,10 +1,203 @@
 package pro.finstream.broadcasting.config;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.Serializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.kafka.ConcurrentKafkaListenerContainerFactoryConfigurer;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.annotation.EnableKafka;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.config.TopicBuilder;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.kafka.support.serializer.DelegatingByTypeSerializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+import org.springframework.util.backoff.FixedBackOff;
+import pro.finstream.broadcasting.domain.stockprice.PartitionMetrics;
+import pro.finstream.broadcasting.domain.stockprice.StockPriceRecoverer;
 
+/**
+ * Kafka consumer configuration for the broadcaster.
+ *
+ * The stock price topic is keyed by symbol, so all ticks of one symbol land on the same
+ * partition. Running one container thread per partition therefore parallelizes ingest
+ * without reordering any symbol: every partition is owned by exactly one thread, which
+ * hands its records to the broker in offset order.
+ *
+ * Stock prices that fail are set aside to a retry topic, consumed by its own record-mode
+ * container, and finally to a dead-letter topic, see StockPriceRecoverer.
+ */
 @Configuration
 @EnableKafka
+@Slf4j
 public class KafkaConfig {
-    
+
+    @Value("${finstream.kafka.topic.stock-prices}")
+    private String stockPricesTopic;
+
+    @Value("${finstream.kafka.topic.stock-prices-retry}")
+    private String stockPricesRetryTopic;
+
+    @Value("${finstream.kafka.topic.stock-prices-dlt}")
+    private String stockPricesDeadLetterTopic;
+
+    @Value("${finstream.kafka.retry.attempts:3}")
+    private long retryAttempts;
+
+    @Value("${finstream.kafka.retry.interval:2s}")
+    private Duration retryInterval;
+
+    @Value("${finstream.kafka.topic.watchlist-events}")
+    private String watchlistEventsTopic;
+
+    @Value("${finstream.kafka.topic.market-status}")
+    private String marketStatusTopic;
+
+    @Value("${finstream.kafka.topic.partitions}")
+    private int partitions;
+
+    @Value("${finstream.kafka.listener.concurrency:0}")
+    private int concurrency;
+
+    @Value("${finstream.kafka.lag.refresh-interval:10s}")
+    private Duration lagRefreshInterval;
+
+    /**
+     * Declares the stock price topic so a fresh broker gets enough partitions for parallel
+     * consumption. KafkaAdmin only creates missing topics or adds partitions, never removes them.
+     */
+    @Bean
+    public NewTopic stockPricesTopic() {
+        return TopicBuilder.name(stockPricesTopic)
+            .partitions(partitions)
+            .build();
+    }
+
+    /**
+     * Retry and dead-letter topics of the stock prices, partitioned like the main topic and also
+     * keyed by symbol.
+     */
+    @Bean
+    public NewTopic stockPricesRetryTopic() {
+        return TopicBuilder.name(stockPricesRetryTopic)
+            .partitions(partitions)
+            .build();
+    }
+
+    @Bean
+    public NewTopic stockPricesDeadLetterTopic() {
+        return TopicBuilder.name(stockPricesDeadLetterTopic)
+            .partitions(partitions)
+            .build();
+    }
+
+    /**
+     * Declares the watchlist change topic. Producers key it by {@code <userId>:<symbol>}, so
+     * compaction keeps the latest change per watchlist entry and a node rebuilding its
+     * WatchlistIndex from the beginning reads roughly one record per entry.
+     */
+    @Bean
+    public NewTopic watchlistEventsTopic() {
+        return TopicBuilder.name(watchlistEventsTopic)
+            .partitions(partitions)
+            .compact()
+            .build();
+    }
+
+    /**
+     * Declares the market status topic, keyed by exchange and compacted to the current status of
+     * each. A handful of records at most, so one partition.
+     */
+    @Bean
+    public NewTopic marketStatusTopic() {
+        return TopicBuilder.name(marketStatusTopic)
+            .partitions(1)
+            .compact()
+            .build();
+    }
+
+    /**
+     * Listener container factory with concurrency matched to the topic partitions.
+     *
+     * Boot's configurer still applies all spring.kafka.listener.* properties (batch type,
+     * ack-mode, ...). A concurrency of 0 means "auto": one thread per partition, capped at the
+     * available cores, since additional threads would only sit idle without a partition.
+     *
+     * Idle consumers publish an event every lag refresh interval and rebalances are reported to
+     * PartitionMetrics, which keeps the lag gauges current and drops those of revoked partitions.
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<Object, Object> kafkaListenerContainerFactory(
+        ConcurrentKafkaListenerContainerFactoryConfigurer configurer,
+        ConsumerFactory<Object, Object> consumerFactory,
+        PartitionMetrics partitionMetrics
+    ) {
+        ConcurrentKafkaListenerContainerFactory<Object, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        configurer.configure(factory, consumerFactory);
+
+        int threads = concurrency > 0
+            ? concurrency
+            : Math.max(1, Math.min(partitions, Runtime.getRuntime().availableProcessors()));
+        factory.setConcurrency(threads);
+        factory.getContainerProperties().setMicrometerEnabled(true);
+        factory.getContainerProperties().setIdleEventInterval(lagRefreshInterval.toMillis());
+        factory.getContainerProperties().setConsumerRebalanceListener(partitionMetrics);
+
+        log.info("Kafka listener container factory configured: partitions={}, concurrency={}", partitions, threads);
+        return factory;
+    }
+
+    /**
+     * Template the failed stock prices are set aside with.
+     *
+     * Producer settings come from spring.kafka.producer.*. Records that could not be deserialized
+     * are republished as their original bytes, all others as JSON without type headers, like the
+     * stock service writes them.
+     */
+    @Bean
+    public KafkaTemplate<String, Object> recoveryKafkaTemplate(ProducerFactory<?, ?> producerFactory, ObjectMapper objectMapper) {
+        Map<Class<?>, Serializer<?>> serializers = new LinkedHashMap<>();
+        serializers.put(byte[].class, new ByteArraySerializer());
+        serializers.put(Object.class, new JsonSerializer<>(objectMapper).noTypeInfo());
+
+        return new KafkaTemplate<>(new DefaultKafkaProducerFactory<>(
+            producerFactory.getConfigurationProperties(),
+            new StringSerializer(),
+            new DelegatingByTypeSerializer(serializers, true)));
+    }
+
+    /**
+     * Record-mode container factory for the stock price retry topic.
+     *
+     * A failing record is retried in place with a fixed back-off and then dead-lettered. That
+     * blocks the retry partition only, never the stock price partitions.
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<Object, Object> retryListenerContainerFactory(
+        ConcurrentKafkaListenerContainerFactoryConfigurer configurer,
+        ConsumerFactory<Object, Object> consumerFactory,
+        StockPriceRecoverer recoverer
+    ) {
+        ConcurrentKafkaListenerContainerFactory<Object, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        configurer.configure(factory, consumerFactory);
+
+        factory.setBatchListener(false);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.RECORD);
+        factory.getContainerProperties().setMicrometerEnabled(true);
+        factory.setCommonErrorHandler(new DefaultErrorHandler(recoverer,
+            new FixedBackOff(retryInterval.toMillis(), retryAttempts)));
+        return factory;
+    }
 }
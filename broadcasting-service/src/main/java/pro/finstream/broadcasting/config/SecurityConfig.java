@@ -1,5 +1,7 @@
 package pro.finstream.broadcasting.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
@@ -18,6 +20,8 @@ import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.security.oauth2.jwt.JwtDecoder;
 import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
 import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationConverter;
+import org.springframework.security.oauth2.server.resource.web.BearerTokenResolver;
+import org.springframework.security.oauth2.server.resource.web.DefaultBearerTokenResolver;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
@@ -33,23 +37,53 @@ public class SecurityConfig {
     @Value("${finstream.cors.allowed-origins}")
     private String allowedOrigins;
 
+    @Value("${finstream.security.jwt-cache.max-size}")
+    private int jwtCacheMaxSize;
+
+    @Value("${finstream.security.jwt-cache.ttl}")
+    private Duration jwtCacheTtl;
+
     @Bean
-    public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain filterChain(HttpSecurity http, JwtDecoder jwtDecoder) throws Exception {
         return http
             .csrf(c -> c.disable())
             .cors(c -> c.configurationSource(corsConfigurationSource()))
             .sessionManagement(c -> c.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
             .authorizeHttpRequests(c -> c
                 .requestMatchers("/api/**").authenticated()
+                .requestMatchers("/stream/**").authenticated()
                 .anyRequest().permitAll()
             )
-            .oauth2ResourceServer(c -> c.jwt(jwt -> jwt.decoder(jwtDecoder())))
+            .oauth2ResourceServer(c -> c
+                .jwt(jwt -> jwt.decoder(jwtDecoder))
+                .bearerTokenResolver(bearerTokenResolver()))
             .build();
     }
 
+    /**
+     * Bearer token from the Authorization header; for /stream/** also from the access_token query
+     * parameter, since browsers' EventSource cannot set headers.
+     */
+    private static BearerTokenResolver bearerTokenResolver() {
+        DefaultBearerTokenResolver headerOnly = new DefaultBearerTokenResolver();
+        DefaultBearerTokenResolver withQueryParameter = new DefaultBearerTokenResolver();
+        withQueryParameter.setAllowUriQueryParameter(true);
+        return request -> request.getRequestURI().startsWith(request.getContextPath() + "/stream/")
+            ? withQueryParameter.resolve(request)
+            : headerOnly.resolve(request);
+    }
+
+    /**
+     * Verified tokens are cached until their expiry (at most jwt-cache.ttl), so reconnecting
+     * WebSocket clients and repeated API calls skip the RSA signature check.
+     */
     @Bean
-    public JwtDecoder jwtDecoder() {
-        return NimbusJwtDecoder.withJwkSetUri(jwkSetUri).build();
+    public JwtDecoder jwtDecoder(MeterRegistry meterRegistry) {
+        JwtDecoder decoder = NimbusJwtDecoder.withJwkSetUri(jwkSetUri).build();
+        if (jwtCacheMaxSize <= 0) {
+            return decoder;
+        }
+        return new CachingJwtDecoder(decoder, meterRegistry, jwtCacheMaxSize, jwtCacheTtl);
     }
 
     @Bean
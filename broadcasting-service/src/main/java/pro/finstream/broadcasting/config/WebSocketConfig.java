@@ -1,7 +1,13 @@
 package pro.finstream.broadcasting.config;
 
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.Ordered;
@@ -14,7 +20,7 @@ import org.springframework.messaging.simp.stomp.StompCommand;
 import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
 import org.springframework.messaging.support.ChannelInterceptor;
 import org.springframework.messaging.support.MessageHeaderAccessor;
-import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.oauth2.jwt.Jwt;
@@ -23,6 +29,12 @@ import org.springframework.security.oauth2.server.resource.authentication.JwtAut
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
+import pro.finstream.broadcasting.common.scheduling.HashedWheelTaskScheduler;
+import pro.finstream.broadcasting.domain.cluster.ClusterNode;
+import pro.finstream.broadcasting.domain.cluster.NodeHandshakeInterceptor;
+import pro.finstream.broadcasting.domain.stomp.ConnectionAdmission;
+import pro.finstream.broadcasting.domain.stomp.SlowConsumerPolicy;
 
 /**
  * WebSocket STOMP Configuration for FinStream Broadcasting Service
@@ -35,7 +47,8 @@ import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerCo
  * - Production-ready connection limits and heartbeat
  * 
  * Endpoints:
- * - /ws/stock-updates - WebSocket connection endpoint
+ * - /stock-updates-ws - Raw WebSocket STOMP endpoint, preferred by clients
+ * - /stock-updates - Same STOMP endpoint behind SockJS, fallback where WebSocket is blocked
  * - /topic/stocks/prices - Real-time stock price broadcasts
  * - /user/topic/watchlist - User-specific watchlist updates (future)
  * 
@@ -48,12 +61,60 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
     private static final Logger log = LoggerFactory.getLogger(WebSocketConfig.class);
     
+    @Value("${finstream.websocket.endpoint}")
+    private String sockJsEndpoint;
+    
+    @Value("${finstream.websocket.native-endpoint}")
+    private String nativeEndpoint;
+    
+    @Value("${finstream.websocket.send-buffer-size}")
+    private int sendBufferSize;
+    
+    @Value("${finstream.websocket.receive-buffer-size}")
+    private int receiveBufferSize;
+    
+    @Value("${finstream.websocket.send-time-limit}")
+    private int sendTimeLimit;
+    
+    @Value("${finstream.websocket.heartbeat.send-interval}")
+    private long heartbeatSendInterval;
+    
+    @Value("${finstream.websocket.heartbeat.receive-timeout}")
+    private long heartbeatReceiveTimeout;
+    
+    @Value("${finstream.websocket.scheduler.tick:100ms}")
+    private Duration schedulerTick;
+    
+    @Value("${finstream.websocket.scheduler.wheel-size:512}")
+    private int schedulerWheelSize;
+    
+    @Value("${finstream.websocket.scheduler.threads:2}")
+    private int schedulerThreads;
+    
     private final JwtDecoder jwtDecoder;
     private final JwtAuthenticationConverter jwtAuthenticationConverter;
+    private final SlowConsumerPolicy slowConsumerPolicy;
+    private final ClusterNode clusterNode;
+    private final ChannelExecutors channelExecutors;
+    private final ConnectionAdmission connectionAdmission;
+    private final MeterRegistry meterRegistry;
     
-    public WebSocketConfig(JwtDecoder jwtDecoder, JwtAuthenticationConverter jwtAuthenticationConverter) {
+    public WebSocketConfig(
+        JwtDecoder jwtDecoder,
+        JwtAuthenticationConverter jwtAuthenticationConverter,
+        SlowConsumerPolicy slowConsumerPolicy,
+        ClusterNode clusterNode,
+        ChannelExecutors channelExecutors,
+        ConnectionAdmission connectionAdmission,
+        MeterRegistry meterRegistry
+    ) {
         this.jwtDecoder = jwtDecoder;
         this.jwtAuthenticationConverter = jwtAuthenticationConverter;
+        this.slowConsumerPolicy = slowConsumerPolicy;
+        this.clusterNode = clusterNode;
+        this.channelExecutors = channelExecutors;
+        this.connectionAdmission = connectionAdmission;
+        this.meterRegistry = meterRegistry;
         log.info("WebSocket STOMP Configuration initialized with JWT security");
     }
 
@@ -63,18 +124,30 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
      * Banking Security Features:
      * - JWT token validation at handshake
      * - CORS configured for Angular frontend
+     * - Raw WebSocket endpoint without SockJS framing for capable clients
      * - SockJS fallback for corporate firewalls
+     * - SockJS heartbeats on the timer wheel, see taskScheduler()
+     * 
+     * Both endpoints share the broker, channels and session limits. The raw endpoint writes
+     * STOMP frames as they are; SockJS JSON-escapes every frame into an array frame and keeps a
+     * heartbeat timer per session, see TransportFramingBenchmark for the difference per message.
      */
     @Override
     public void registerStompEndpoints(StompEndpointRegistry registry) {
-        registry.addEndpoint("/stock-updates")
+        registry.addEndpoint(nativeEndpoint)
                 .setAllowedOriginPatterns("http://localhost:4200", "https://finstream.pro")
+                .addInterceptors(new NodeHandshakeInterceptor(clusterNode)); // Node id for sticky routing
+        
+        registry.addEndpoint(sockJsEndpoint)
+                .setAllowedOriginPatterns("http://localhost:4200", "https://finstream.pro")
+                .addInterceptors(new NodeHandshakeInterceptor(clusterNode)) // Node id for sticky routing
                 .withSockJS()
                 .setHeartbeatTime(25_000) // 25 seconds heartbeat for connection health
                 .setDisconnectDelay(5_000) // 5 seconds disconnect delay
-                .setSessionCookieNeeded(false); // JWT-based auth, no session cookies
+                .setSessionCookieNeeded(false) // JWT-based auth, no session cookies
+                .setTaskScheduler(taskScheduler()); // Per-session heartbeats, rescheduled on every frame
         
-        log.info("WebSocket STOMP endpoints registered: /stock-updates with SockJS support");
+        log.info("WebSocket STOMP endpoints registered: {} (WebSocket), {} (SockJS fallback)", nativeEndpoint, sockJsEndpoint);
     }
 
     /**
@@ -89,7 +162,7 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
     public void configureMessageBroker(MessageBrokerRegistry config) {
         // Enable simple broker for topic-based messaging
         config.enableSimpleBroker("/topic", "/user")
-              .setHeartbeatValue(new long[]{25_000, 25_000}) // Server heartbeat: 25s
+              .setHeartbeatValue(new long[]{heartbeatSendInterval, heartbeatReceiveTimeout})
               .setTaskScheduler(taskScheduler()); // Custom task scheduler for heartbeat
         
         // Application destination prefix for client messages
@@ -98,9 +171,36 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
         // User destination prefix for targeted messages
         config.setUserDestinationPrefix("/user");
         
+        // Keep per-session delivery in publish order although the outbound channel is a thread pool;
+        // together with one Kafka consumer thread per partition this keeps every symbol in order
+        config.setPreservePublishOrder(true);
+        
+        // Synchronous by default: the Kafka consumer thread hands each update to the broker
+        // itself, which is what keeps a symbol's updates in order up to the outbound channel
+        config.configureBrokerChannel().executor(channelExecutors.create("broker"));
+        
         log.info("Message broker configured: /topic (public), /user (private), /app (client)");
     }
 
+    /**
+     * Configure per-session transport limits
+     * 
+     * - Inbound STOMP messages are limited to the receive buffer size
+     * - Outbound frames are queued per session up to the send buffer size and
+     *   send-time limit, see SlowConsumerPolicy: price updates for the same symbol
+     *   are conflated first, sessions with a sustained backlog are disconnected
+     */
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        registration.setMessageSizeLimit(receiveBufferSize)
+                    .setSendBufferSizeLimit(sendBufferSize)
+                    .setSendTimeLimit(sendTimeLimit)
+                    .addDecoratorFactory(slowConsumerPolicy.decoratorFactory());
+        
+        log.info("WebSocket transport configured: sendBuffer={}, receiveBuffer={}, sendTimeLimit={}ms",
+                sendBufferSize, receiveBufferSize, sendTimeLimit);
+    }
+
     /**
      * Task Scheduler for WebSocket heartbeat and maintenance tasks
      * 
@@ -109,18 +209,28 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
      * - Automatic cleanup of stale connections
      * - Performance optimized for high-frequency operations
      * 
-     * @return Configured ThreadPoolTaskScheduler
+     * Every SockJS session cancels and reschedules its heartbeat on each frame it writes, so at
+     * tens of thousands of sessions this scheduler sees a schedule and a cancel per message sent.
+     * A hashed timing wheel does both in O(1) without a shared lock, where a
+     * ScheduledThreadPoolExecutor pays O(log n) under one lock and keeps every cancelled
+     * heartbeat queued until it would have been due. The STOMP broker runs a single heartbeat
+     * task over all sessions on it. Heartbeats fire up to one tick late.
+     * 
+     * @return Configured HashedWheelTaskScheduler
      */
-    @Bean
-    public ThreadPoolTaskScheduler taskScheduler() {
-        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
-        scheduler.setPoolSize(10); // Sufficient for heartbeat + cleanup tasks
-        scheduler.setThreadNamePrefix("finstream-websocket-");
-        scheduler.setAwaitTerminationSeconds(60);
-        scheduler.setWaitForTasksToCompleteOnShutdown(true);
-        scheduler.initialize();
+    @Bean(destroyMethod = "shutdown")
+    public HashedWheelTaskScheduler taskScheduler() {
+        ExecutorService executor = Executors.newFixedThreadPool(schedulerThreads,
+            new CustomizableThreadFactory("finstream-websocket-"));
+        HashedWheelTaskScheduler scheduler = new HashedWheelTaskScheduler(
+            schedulerTick, schedulerWheelSize, executor, "finstream-websocket-wheel");
         
-        log.info("WebSocket TaskScheduler initialized: poolSize=10, heartbeat support enabled");
+        Gauge.builder("finstream.websocket.scheduler.tasks", scheduler, HashedWheelTaskScheduler::getScheduledCount)
+            .description("Heartbeat and maintenance tasks scheduled on the timer wheel")
+            .register(meterRegistry);
+        
+        log.info("WebSocket TaskScheduler initialized: tick={}, wheelSize={}, threads={}",
+            schedulerTick, schedulerWheelSize, schedulerThreads);
         return scheduler;
     }
 
@@ -135,10 +245,22 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
      */
     @Override
     public void configureClientInboundChannel(ChannelRegistration registration) {
-        registration.interceptors(new JwtWebSocketAuthenticationInterceptor());
+        registration.interceptors(new JwtWebSocketAuthenticationInterceptor())
+                    .executor(channelExecutors.create("inbound"));
         log.info("Client inbound channel configured with JWT authentication interceptor");
     }
 
+    /**
+     * Configure client outbound channel executor
+     * 
+     * Fan-out of every broadcast to all subscribed sessions runs here; size it
+     * for the number of concurrent sessions (see ChannelExecutors)
+     */
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        registration.executor(channelExecutors.create("outbound"));
+    }
+
     /**
      * JWT WebSocket Authentication Interceptor
      * 
@@ -146,6 +268,7 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
      * - Validate JWT at CONNECT command
      * - Extract user information for session tracking  
      * - Reject unauthorized connections immediately
+     * - Enforce CONNECT rate and max-connections-per-user (ConnectionAdmission)
      * - Log security events for audit trail
      */
     private class JwtWebSocketAuthenticationInterceptor implements ChannelInterceptor {
@@ -155,7 +278,11 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
             StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
             
             if (accessor != null && StompCommand.CONNECT.equals(accessor.getCommand())) {
-                return authenticateWebSocketConnection(message, accessor);
+                // Shed surges before the comparatively expensive JWT verification
+                connectionAdmission.acquireConnectPermit(accessor.getSessionId());
+                Message<?> authenticated = authenticateWebSocketConnection(message, accessor);
+                connectionAdmission.admitUser(accessor.getSessionId(), accessor.getUser().getName());
+                return authenticated;
             }
             
             return message;
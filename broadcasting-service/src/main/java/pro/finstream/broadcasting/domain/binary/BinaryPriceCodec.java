@@ -0,0 +1,133 @@
+package pro.finstream.broadcasting.domain.binary;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import pro.finstream.broadcasting.domain.stockprice.CachedPrice;
+import pro.finstream.broadcasting.domain.stockprice.StockPrice;
+
+/**
+ * Fixed-layout binary encoding of price frames for the {@value #SUB_PROTOCOL} sub-protocol.
+ *
+ * All numbers are big-endian. A frame carries one or more prices:
+ * <pre>
+ * frame  := magic:u8 (0xF5) version:u8 (1) type:u8 (1 = PRICES) count:u16 entry{count}
+ * entry  := sequence:i64 timestamp:i64 processedAt:i64
+ *           price:i64 change:i64 changePercent:i64 high:i64 low:i64
+ *           symbolLength:u8 symbol:ascii{symbolLength}
+ * </pre>
+ * {@code timestamp} is the provider timestamp, {@code processedAt} epoch milliseconds in UTC.
+ * Decimals are fixed-point with {@value #SCALE} fractional digits, i.e. {@code 213.88} is sent as
+ * {@code 213_880_000}. Missing values are sent as {@link #NULL} ({@code Long.MIN_VALUE}).
+ * The provider {@code source} is not part of the frame.
+ */
+public final class BinaryPriceCodec {
+
+    public static final String SUB_PROTOCOL = "finstream.prices.v1";
+
+    public static final byte MAGIC = (byte) 0xF5;
+    public static final byte VERSION = 1;
+    public static final byte TYPE_PRICES = 1;
+
+    public static final int SCALE = 6;
+    public static final long NULL = Long.MIN_VALUE;
+
+    static final int HEADER_SIZE = 5;
+    static final int ENTRY_FIXED_SIZE = 8 * 8 + 1;
+    static final int MAX_PRICES_PER_FRAME = 0xFFFF;
+
+    private BinaryPriceCodec() {}
+
+    /**
+     * Encode the given prices into a single frame.
+     */
+    public static byte[] encode(List<CachedPrice> prices) {
+        if (prices.size() > MAX_PRICES_PER_FRAME) {
+            throw new IllegalArgumentException("Too many prices for one frame: " + prices.size());
+        }
+
+        int size = HEADER_SIZE;
+        byte[][] symbols = new byte[prices.size()][];
+        for (int i = 0; i < symbols.length; i++) {
+            symbols[i] = prices.get(i).symbol().getBytes(StandardCharsets.US_ASCII);
+            if (symbols[i].length > 0xFF) {
+                throw new IllegalArgumentException("Symbol too long: " + prices.get(i).symbol());
+            }
+            size += ENTRY_FIXED_SIZE + symbols[i].length;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.put(MAGIC).put(VERSION).put(TYPE_PRICES).putShort((short) prices.size());
+
+        for (int i = 0; i < symbols.length; i++) {
+            CachedPrice cached = prices.get(i);
+            StockPrice price = cached.price();
+
+            buffer.putLong(cached.sequence());
+            buffer.putLong(price.timestamp() != null ? price.timestamp() : NULL);
+            buffer.putLong(price.processedAt() != null ? price.processedAt().toInstant(ZoneOffset.UTC).toEpochMilli() : NULL);
+            buffer.putLong(toFixed(price.price()));
+            buffer.putLong(toFixed(price.change()));
+            buffer.putLong(toFixed(price.changePercent()));
+            buffer.putLong(toFixed(price.high()));
+            buffer.putLong(toFixed(price.low()));
+            buffer.put((byte) symbols[i].length).put(symbols[i]);
+        }
+
+        return buffer.array();
+    }
+
+    /**
+     * Decode a frame back into prices. Used by Java clients and tests; the server only encodes.
+     */
+    public static List<DecodedPrice> decode(ByteBuffer frame) {
+        if (frame.get() != MAGIC || frame.get() != VERSION || frame.get() != TYPE_PRICES) {
+            throw new IllegalArgumentException("Not a " + SUB_PROTOCOL + " price frame");
+        }
+
+        int count = Short.toUnsignedInt(frame.getShort());
+        List<DecodedPrice> prices = new ArrayList<>(count);
+
+        for (int i = 0; i < count; i++) {
+            long sequence = frame.getLong();
+            long timestamp = frame.getLong();
+            long processedAt = frame.getLong();
+            BigDecimal price = fromFixed(frame.getLong());
+            BigDecimal change = fromFixed(frame.getLong());
+            BigDecimal changePercent = fromFixed(frame.getLong());
+            BigDecimal high = fromFixed(frame.getLong());
+            BigDecimal low = fromFixed(frame.getLong());
+            byte[] symbol = new byte[Byte.toUnsignedInt(frame.get())];
+            frame.get(symbol);
+
+            prices.add(new DecodedPrice(sequence, new StockPrice(
+                new String(symbol, StandardCharsets.US_ASCII),
+                price, change, changePercent, high, low,
+                timestamp != NULL ? timestamp : null,
+                null,
+                processedAt != NULL ? LocalDateTime.ofEpochSecond(Math.floorDiv(processedAt, 1000),
+                    (int) Math.floorMod(processedAt, 1000) * 1_000_000, ZoneOffset.UTC) : null
+            )));
+        }
+
+        return prices;
+    }
+
+    static long toFixed(BigDecimal value) {
+        return value != null ? value.setScale(SCALE, RoundingMode.HALF_EVEN).unscaledValue().longValueExact() : NULL;
+    }
+
+    static BigDecimal fromFixed(long value) {
+        return value != NULL ? BigDecimal.valueOf(value, SCALE) : null;
+    }
+
+    /**
+     * A price as read from a frame, together with its update sequence.
+     */
+    public record DecodedPrice(long sequence, StockPrice price) {}
+}
@@ -0,0 +1,165 @@
+package pro.finstream.broadcasting.domain.binary;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.SubProtocolCapable;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.BinaryWebSocketHandler;
+import pro.finstream.broadcasting.domain.stockprice.CachedPrice;
+import pro.finstream.broadcasting.domain.stockprice.LastValueCache;
+
+/**
+ * Raw WebSocket handler for the opt-in binary price sub-protocol.
+ *
+ * Clients must offer {@value BinaryPriceCodec#SUB_PROTOCOL} in {@code Sec-WebSocket-Protocol};
+ * sessions that did not negotiate it are closed right away. On connect a client receives the
+ * current prices from the {@link LastValueCache}, then one frame per consumed Kafka batch.
+ *
+ * Every frame is encoded once and queued to each session; a virtual thread per session drains
+ * its queue, so a slow socket never blocks the Kafka consumer or other sessions. A session whose
+ * queue is full is closed.
+ */
+@Component
+@Slf4j
+public class BinaryPriceWebSocketHandler extends BinaryWebSocketHandler implements SubProtocolCapable {
+
+    private final LastValueCache lastValueCache;
+    private final int maxPricesPerFrame;
+    private final int queueCapacity;
+    private final Map<String, BinarySession> sessions = new ConcurrentHashMap<>();
+
+    public BinaryPriceWebSocketHandler(
+        LastValueCache lastValueCache,
+        @Value("${finstream.websocket.binary.max-prices-per-frame:64}") int maxPricesPerFrame,
+        @Value("${finstream.websocket.binary.queue-capacity:256}") int queueCapacity
+    ) {
+        this.lastValueCache = lastValueCache;
+        this.maxPricesPerFrame = Math.min(maxPricesPerFrame, BinaryPriceCodec.MAX_PRICES_PER_FRAME);
+        this.queueCapacity = queueCapacity;
+    }
+
+    @Override
+    public List<String> getSubProtocols() {
+        return List.of(BinaryPriceCodec.SUB_PROTOCOL);
+    }
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+        if (!BinaryPriceCodec.SUB_PROTOCOL.equals(session.getAcceptedProtocol())) {
+            log.warn("Binary WebSocket session rejected, sub-protocol not negotiated: sessionId={}", session.getId());
+            session.close(CloseStatus.PROTOCOL_ERROR.withReason("Sub-protocol " + BinaryPriceCodec.SUB_PROTOCOL + " required"));
+            return;
+        }
+
+        BinarySession binarySession = new BinarySession(session, new ArrayBlockingQueue<>(queueCapacity));
+        sessions.put(session.getId(), binarySession);
+        Thread.ofVirtual().name("finstream-binary-" + session.getId()).start(binarySession::drain);
+
+        for (byte[] frame : encode(new ArrayList<>(lastValueCache.getAll()))) {
+            binarySession.offer(frame);
+        }
+
+        log.info("Binary WebSocket session opened: sessionId={}, userId={}, sessions={}",
+            session.getId(), session.getAttributes().get(JwtHandshakeInterceptor.ATTR_USER_ID), sessions.size());
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+        BinarySession binarySession = sessions.remove(session.getId());
+        if (binarySession != null) {
+            binarySession.stop();
+            log.info("Binary WebSocket session closed: sessionId={}, status={}", session.getId(), status);
+        }
+    }
+
+    /**
+     * Send the given prices to all binary sessions, batched into as few frames as allowed.
+     */
+    public void broadcast(List<CachedPrice> prices) {
+        if (sessions.isEmpty() || prices.isEmpty()) {
+            return;
+        }
+
+        for (byte[] frame : encode(prices)) {
+            for (BinarySession session : sessions.values()) {
+                session.offer(frame);
+            }
+        }
+    }
+
+    public int getSessionCount() {
+        return sessions.size();
+    }
+
+    private List<byte[]> encode(List<CachedPrice> prices) {
+        List<byte[]> frames = new ArrayList<>(prices.size() / maxPricesPerFrame + 1);
+        for (int from = 0; from < prices.size(); from += maxPricesPerFrame) {
+            frames.add(BinaryPriceCodec.encode(prices.subList(from, Math.min(from + maxPricesPerFrame, prices.size()))));
+        }
+        return frames;
+    }
+
+    /**
+     * Outbound queue of one session plus the loop draining it to the socket.
+     */
+    private final class BinarySession {
+
+        private static final byte[] STOP = new byte[0];
+
+        private final WebSocketSession session;
+        private final BlockingQueue<byte[]> queue;
+
+        BinarySession(WebSocketSession session, BlockingQueue<byte[]> queue) {
+            this.session = session;
+            this.queue = queue;
+        }
+
+        void offer(byte[] frame) {
+            if (!queue.offer(frame)) {
+                log.warn("Binary WebSocket session too slow, closing: sessionId={}, queued={}", session.getId(), queue.size());
+                close(CloseStatus.SESSION_NOT_RELIABLE);
+            }
+        }
+
+        void stop() {
+            queue.clear();
+            queue.offer(STOP);
+        }
+
+        void drain() {
+            try {
+                for (byte[] frame = queue.take(); frame != STOP; frame = queue.take()) {
+                    session.sendMessage(new BinaryMessage(frame));
+                }
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            catch (IOException | RuntimeException e) {
+                log.warn("Binary WebSocket send failed, closing: sessionId={}, error={}", session.getId(), e.getMessage());
+                close(CloseStatus.SERVER_ERROR);
+            }
+        }
+
+        private void close(CloseStatus status) {
+            sessions.remove(session.getId());
+            stop();
+            try {
+                session.close(status);
+            }
+            catch (IOException e) {
+                log.debug("Closing binary WebSocket session failed: sessionId={}", session.getId(), e);
+            }
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package pro.finstream.broadcasting.domain.binary;
+
+import java.util.Map;
+import java.util.UUID;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.http.server.ServletServerHttpResponse;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.server.HandshakeInterceptor;
+import org.springframework.web.util.UriComponentsBuilder;
+import pro.finstream.broadcasting.common.error.BaseException;
+import pro.finstream.broadcasting.domain.stomp.ConnectionAdmission;
+
+/**
+ * Authenticates raw WebSocket handshakes with the JWT issued by the SSO service.
+ *
+ * There is no STOMP CONNECT frame on raw WebSocket endpoints, so the token is checked before
+ * the upgrade: from the {@code Authorization: Bearer} header or, for browsers which cannot set
+ * handshake headers, from the {@code access_token} query parameter.
+ *
+ * The same {@link ConnectionAdmission} as for STOMP CONNECT frames applies: the CONNECT rate is
+ * checked before the token, max-connections-per-user after it, both answered 429. The slot is
+ * reserved under a fresh id kept in the {@value #ATTR_ADMISSION_ID} session attribute; it is
+ * released here if the upgrade does not go through, otherwise by {@link #release} once the
+ * session is closed.
+ */
+@Slf4j
+public class JwtHandshakeInterceptor implements HandshakeInterceptor {
+
+    public static final String ATTR_USER_ID = "finstream.userId";
+    public static final String ATTR_ADMISSION_ID = "finstream.admissionId";
+
+    private static final String BEARER_PREFIX = "Bearer ";
+    private static final String TOKEN_PARAM = "access_token";
+
+    private final JwtDecoder jwtDecoder;
+    private final ConnectionAdmission connectionAdmission;
+
+    public JwtHandshakeInterceptor(JwtDecoder jwtDecoder, ConnectionAdmission connectionAdmission) {
+        this.jwtDecoder = jwtDecoder;
+        this.connectionAdmission = connectionAdmission;
+    }
+
+    @Override
+    public boolean beforeHandshake(
+        ServerHttpRequest request,
+        ServerHttpResponse response,
+        WebSocketHandler wsHandler,
+        Map<String, Object> attributes
+    ) {
+        String token = extractToken(request);
+        if (token == null || token.isBlank()) {
+            log.warn("WebSocket handshake rejected: No JWT token provided, uri={}", request.getURI().getPath());
+            response.setStatusCode(HttpStatus.UNAUTHORIZED);
+            return false;
+        }
+
+        String admissionId = UUID.randomUUID().toString();
+        try {
+            // Shed surges before the comparatively expensive JWT verification
+            connectionAdmission.acquireConnectPermit(admissionId);
+            Jwt jwt = jwtDecoder.decode(token);
+            connectionAdmission.admitUser(admissionId, jwt.getSubject());
+
+            attributes.put(ATTR_USER_ID, jwt.getSubject());
+            attributes.put(ATTR_ADMISSION_ID, admissionId);
+            if (request instanceof ServletServerHttpRequest servletRequest) {
+                servletRequest.getServletRequest().setAttribute(ATTR_ADMISSION_ID, admissionId);
+            }
+            return true;
+        }
+        catch (JwtException e) {
+            log.warn("WebSocket handshake rejected: {}", e.getMessage());
+            response.setStatusCode(HttpStatus.UNAUTHORIZED);
+            return false;
+        }
+        catch (BaseException e) {
+            log.warn("WebSocket handshake rejected: code={}, uri={}", e.getCode(), request.getURI().getPath());
+            response.setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
+            return false;
+        }
+    }
+
+    @Override
+    public void afterHandshake(
+        ServerHttpRequest request,
+        ServerHttpResponse response,
+        WebSocketHandler wsHandler,
+        Exception exception
+    ) {
+        if (!(request instanceof ServletServerHttpRequest servletRequest)) {
+            return;
+        }
+        Object admissionId = servletRequest.getServletRequest().getAttribute(ATTR_ADMISSION_ID);
+        if (admissionId != null && (exception != null || !upgraded(response))) {
+            // Rejected by a later interceptor or the handshake handler, no session will be closed
+            connectionAdmission.release((String) admissionId);
+        }
+    }
+
+    /**
+     * Release the admission slot of a closed session that was admitted by this interceptor.
+     */
+    public void release(Map<String, Object> sessionAttributes) {
+        Object admissionId = sessionAttributes.get(ATTR_ADMISSION_ID);
+        if (admissionId != null) {
+            connectionAdmission.release((String) admissionId);
+        }
+    }
+
+    private static boolean upgraded(ServerHttpResponse response) {
+        return response instanceof ServletServerHttpResponse servletResponse
+            && servletResponse.getServletResponse().getStatus() == HttpStatus.SWITCHING_PROTOCOLS.value();
+    }
+
+    private String extractToken(ServerHttpRequest request) {
+        String authHeader = request.getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+        if (authHeader != null && authHeader.startsWith(BEARER_PREFIX)) {
+            return authHeader.substring(BEARER_PREFIX.length());
+        }
+        return UriComponentsBuilder.fromUri(request.getURI()).build().getQueryParams().getFirst(TOKEN_PARAM);
+    }
+}
@@ -0,0 +1,99 @@
+package pro.finstream.broadcasting.domain.cluster;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.Map;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.info.Info;
+import org.springframework.boot.actuate.info.InfoContributor;
+import org.springframework.stereotype.Component;
+import pro.finstream.broadcasting.domain.binary.BinaryPriceWebSocketHandler;
+import pro.finstream.broadcasting.domain.stomp.SlowConsumerPolicy;
+
+/**
+ * Identity of this broadcaster node and the Kafka consumption mode that follows from it.
+ *
+ * Standalone (default): all nodes share the consumer group {@value #GROUP_ID} and split the
+ * partitions between them, so every node sees only part of the symbols.
+ *
+ * Clustered ({@code finstream.cluster.enabled=true}): every node consumes the full feed with its
+ * own consumer group {@code finstream-broadcaster-<node-id>}, starting at the latest offset when
+ * the group is new. Nodes are then interchangeable for WebSocket clients, and WebSocket capacity
+ * grows with the number of nodes. A stable node id (e.g. a StatefulSet pod name) lets a restarted
+ * node resume from its committed offsets instead of leaving an orphaned group behind.
+ *
+ * Node-level WebSocket session gauges are registered here; all meters carry the node id as
+ * common tag (management.metrics.tags.node).
+ */
+@Component
+@Slf4j
+public class ClusterNode implements InfoContributor {
+
+    public static final String GROUP_ID = "finstream-broadcaster";
+
+    @Getter private final String nodeId;
+    @Getter private final boolean clustered;
+
+    private final SlowConsumerPolicy slowConsumerPolicy;
+    private final BinaryPriceWebSocketHandler binaryHandler;
+
+    public ClusterNode(
+        MeterRegistry registry,
+        SlowConsumerPolicy slowConsumerPolicy,
+        BinaryPriceWebSocketHandler binaryHandler,
+        @Value("${finstream.cluster.node-id}") String nodeId,
+        @Value("${finstream.cluster.enabled:false}") boolean clustered
+    ) {
+        this.slowConsumerPolicy = slowConsumerPolicy;
+        this.binaryHandler = binaryHandler;
+        this.nodeId = nodeId;
+        this.clustered = clustered;
+
+        Gauge.builder("finstream.websocket.sessions", slowConsumerPolicy, SlowConsumerPolicy::getSessionCount)
+            .description("Open WebSocket sessions on this node")
+            .tag("transport", "stomp")
+            .register(registry);
+        Gauge.builder("finstream.websocket.sessions", binaryHandler, BinaryPriceWebSocketHandler::getSessionCount)
+            .description("Open WebSocket sessions on this node")
+            .tag("transport", "binary")
+            .register(registry);
+
+        log.info("Broadcaster node started: nodeId={}, clustered={}, consumerGroup={}",
+            nodeId, clustered, getConsumerGroupId());
+    }
+
+    /**
+     * Consumer group of the stock price listener, referenced from its annotation.
+     */
+    public String getConsumerGroupId() {
+        return clustered ? GROUP_ID + "-" + nodeId : GROUP_ID;
+    }
+
+    /**
+     * Consumer group for feeds every node must consume in full whatever the mode (e.g. watchlists).
+     */
+    public String getNodeGroupId(String feed) {
+        return GROUP_ID + "-" + feed + "-" + nodeId;
+    }
+
+    /**
+     * A new per-node group starts at the live end of the feed; replaying the retained history
+     * would only delay the first up-to-date price. The shared group keeps the configured reset.
+     */
+    public String getAutoOffsetReset() {
+        return clustered ? "latest" : "earliest";
+    }
+
+    @Override
+    public void contribute(Info.Builder builder) {
+        builder.withDetail("node", Map.of(
+            "id", nodeId,
+            "clustered", clustered,
+            "consumerGroup", getConsumerGroupId(),
+            "stompSessions", slowConsumerPolicy.getSessionCount(),
+            "binarySessions", binaryHandler.getSessionCount()
+        ));
+    }
+}
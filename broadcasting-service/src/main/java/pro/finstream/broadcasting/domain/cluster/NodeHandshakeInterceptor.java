@@ -0,0 +1,55 @@
+package pro.finstream.broadcasting.domain.cluster;
+
+import java.util.Map;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseCookie;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.server.HandshakeInterceptor;
+
+/**
+ * Tags WebSocket handshakes with the id of the node serving them.
+ *
+ * The {@value #NODE_HEADER} response header tells clients and logs which node they landed on.
+ * The {@value #NODE_COOKIE} cookie is meant for cookie-based affinity on the load balancer, so
+ * the follow-up HTTP requests of SockJS fallback transports reach the node holding the session.
+ */
+public class NodeHandshakeInterceptor implements HandshakeInterceptor {
+
+    public static final String NODE_HEADER = "X-FinStream-Node";
+    public static final String NODE_COOKIE = "FINSTREAM_NODE";
+    public static final String ATTR_NODE_ID = "finstream.nodeId";
+
+    private final String nodeId;
+
+    public NodeHandshakeInterceptor(ClusterNode clusterNode) {
+        this.nodeId = clusterNode.getNodeId();
+    }
+
+    @Override
+    public boolean beforeHandshake(
+        ServerHttpRequest request,
+        ServerHttpResponse response,
+        WebSocketHandler wsHandler,
+        Map<String, Object> attributes
+    ) {
+        attributes.put(ATTR_NODE_ID, nodeId);
+        response.getHeaders().set(NODE_HEADER, nodeId);
+        response.getHeaders().add(HttpHeaders.SET_COOKIE, ResponseCookie.from(NODE_COOKIE, nodeId)
+            .path("/")
+            .httpOnly(true)
+            .build()
+            .toString());
+        return true;
+    }
+
+    @Override
+    public void afterHandshake(
+        ServerHttpRequest request,
+        ServerHttpResponse response,
+        WebSocketHandler wsHandler,
+        Exception exception
+    ) {
+    }
+}
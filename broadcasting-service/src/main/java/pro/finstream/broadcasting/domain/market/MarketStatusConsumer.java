@@ -0,0 +1,108 @@
+package pro.finstream.broadcasting.domain.market;
+
+import java.time.DateTimeException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.ConsumerSeekAware;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.stereotype.Service;
+import pro.finstream.broadcasting.domain.market.MarketStatusEvent.MarketState;
+import pro.finstream.broadcasting.domain.stomp.StockBroadcastingService;
+import pro.finstream.broadcasting.domain.stomp.StockBroadcastingService.SystemNotification;
+
+/**
+ * Turns market open/close transitions into system notifications on
+ * {@code /topic/system/notifications}.
+ *
+ * Every node notifies its own clients, so each node consumes with its own group and rereads the
+ * (compacted, tiny) topic from the beginning on assignment to learn the current status. Only a
+ * change of state against the status known before, and only while fresh, is broadcast, so
+ * neither a node restart nor a stock service restart replays old transitions to clients.
+ */
+@Service
+@Slf4j
+public class MarketStatusConsumer implements ConsumerSeekAware {
+
+    public static final String NOTIFICATION_TYPE = "MARKET_STATUS";
+
+    private static final Duration MAX_FORWARD_AGE = Duration.ofMinutes(2);
+    private static final DateTimeFormatter TIME = DateTimeFormatter.ofPattern("EEE HH:mm z", Locale.ENGLISH);
+
+    private final StockBroadcastingService broadcastingService;
+    private final Map<String, MarketStatusEvent> current = new ConcurrentHashMap<>();
+
+    public MarketStatusConsumer(StockBroadcastingService broadcastingService) {
+        this.broadcastingService = broadcastingService;
+    }
+
+    @Override
+    public void onPartitionsAssigned(Map<TopicPartition, Long> assignments, ConsumerSeekCallback callback) {
+        callback.seekToBeginning(assignments.keySet());
+    }
+
+    @KafkaListener(
+        topics = "${finstream.kafka.topic.market-status}",
+        groupId = "#{@clusterNode.getNodeGroupId('market-status')}",
+        properties = {
+            "auto.offset.reset=earliest",
+            "spring.json.value.default.type=pro.finstream.broadcasting.domain.market.MarketStatusEvent"
+        },
+        concurrency = "1",
+        batch = "true"
+    )
+    public void consumeMarketStatus(List<ConsumerRecord<String, MarketStatusEvent>> records, Acknowledgment acknowledgment) {
+        for (ConsumerRecord<String, MarketStatusEvent> record : records) {
+            MarketStatusEvent event = record.value();
+            if (event == null || event.exchange() == null || event.state() == null) {
+                log.warn("Skipping invalid market status: partition={}, offset={}, key={}",
+                    record.partition(), record.offset(), record.key());
+                continue;
+            }
+
+            MarketStatusEvent previous = current.put(event.exchange(), event);
+            if (previous != null && previous.state() != event.state() && isRecent(event)) {
+                broadcastingService.broadcastSystemNotification(notification(event));
+            }
+            log.debug("Market status: exchange={}, state={}, reason={}", event.exchange(), event.state(), event.reason());
+        }
+        acknowledgment.acknowledge();
+    }
+
+    static SystemNotification notification(MarketStatusEvent event) {
+        boolean open = event.state() == MarketState.OPEN;
+        boolean earlyClose = "EARLY_CLOSE".equals(event.reason());
+
+        StringBuilder message = new StringBuilder("Market ").append(event.exchange())
+            .append(open ? " opened" : " closed");
+        if (event.nextTransition() != null) {
+            message.append(open ? (earlyClose ? ", closes early " : ", closes ") : ", reopens ")
+                .append(format(event.nextTransition(), event.timeZone()));
+        }
+        return new SystemNotification(NOTIFICATION_TYPE, message.toString(), earlyClose ? "warning" : "info");
+    }
+
+    private static String format(Instant instant, String timeZone) {
+        ZoneId zone;
+        try {
+            zone = timeZone != null ? ZoneId.of(timeZone) : ZoneId.of("UTC");
+        }
+        catch (DateTimeException e) {
+            zone = ZoneId.of("UTC");
+        }
+        return TIME.format(instant.atZone(zone));
+    }
+
+    private static boolean isRecent(MarketStatusEvent event) {
+        return event.timestamp() != null && event.timestamp().isAfter(Instant.now().minus(MAX_FORWARD_AGE));
+    }
+}
@@ -0,0 +1,26 @@
+package pro.finstream.broadcasting.domain.market;
+
+import java.time.Instant;
+
+/**
+ * Market open/close transition published by the stock service on {@code finstream.market.status},
+ * keyed by exchange, so the compacted topic retains the current status of every exchange.
+ *
+ * @param reason         REGULAR, EARLY_CLOSE, OUTSIDE_HOURS, WEEKEND or HOLIDAY
+ * @param timeZone       time zone of the exchange, for displaying the times
+ * @param nextTransition next close if open, next open if closed; null if unknown
+ */
+public record MarketStatusEvent(
+    String exchange,
+    MarketState state,
+    String reason,
+    String timeZone,
+    Instant timestamp,
+    Instant nextTransition
+) {
+
+    public enum MarketState {
+        OPEN,
+        CLOSED
+    }
+}
@@ -0,0 +1,20 @@
+package pro.finstream.broadcasting.domain.movers;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Top gainers and losers by change percent, as published on /topic/stocks/movers.
+ *
+ * @param version increases with every published change of this node; clients drop older versions
+ * @param gainers symbols with a positive change percent, highest first
+ * @param losers  symbols with a negative change percent, lowest first
+ */
+public record TopMovers(long version, List<Mover> gainers, List<Mover> losers) {
+
+    /**
+     * Price of a symbol at the time the list was published; later ticks that keep the order
+     * arrive on the price topics only.
+     */
+    public record Mover(String symbol, BigDecimal price, BigDecimal change, BigDecimal changePercent) {}
+}
@@ -0,0 +1,155 @@
+package pro.finstream.broadcasting.domain.movers;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import pro.finstream.broadcasting.common.error.BaseException;
+import pro.finstream.broadcasting.common.error.ErrorCode;
+import pro.finstream.broadcasting.domain.movers.TopMovers.Mover;
+import pro.finstream.broadcasting.domain.stockprice.StockPrice;
+
+/**
+ * Symbols ordered by change percent, maintained tick by tick, and the top-N movers derived from them.
+ *
+ * Gainers (change percent above zero) and losers (below zero) are kept in two sorted sets, ties
+ * broken by symbol; a tick moves its symbol in O(log n). The top-N lists are only re-read, in
+ * O(N), when the symbol was on one of them or now sorts before its last entry, and a new version
+ * is published only if that changed which symbols are listed or their order. Changed prices of
+ * listed symbols alone do not publish; clients have them from the price topics.
+ *
+ * Every version is encoded to JSON once and kept for new subscribers. Updates come from all
+ * consumer threads and are serialized on the index; the work under the lock is the set update
+ * and, for the few ticks touching the top, the O(N) comparison.
+ */
+@Component
+public class TopMoversIndex {
+
+    private static final Comparator<Mover> ASCENDING =
+        Comparator.comparing(Mover::changePercent).thenComparing(Mover::symbol);
+    private static final Comparator<Mover> DESCENDING =
+        Comparator.comparing(Mover::changePercent).reversed().thenComparing(Mover::symbol);
+
+    private final ObjectMapper objectMapper;
+    private final int size;
+
+    // Guarded by this
+    private final Map<String, Mover> movers = new HashMap<>();
+    private final NavigableSet<Mover> gainers = new TreeSet<>(DESCENDING);
+    private final NavigableSet<Mover> losers = new TreeSet<>(ASCENDING);
+    private List<Mover> topGainers = List.of();
+    private List<Mover> topLosers = List.of();
+    private Snapshot current;
+
+    public TopMoversIndex(ObjectMapper objectMapper, @Value("${finstream.websocket.movers.size:10}") int size) {
+        this.objectMapper = objectMapper;
+        this.size = Math.max(1, size);
+        this.current = encode(new TopMovers(0, topGainers, topLosers), null);
+    }
+
+    /**
+     * Apply a tick and return the new version if the top-N lists changed, null otherwise.
+     */
+    public synchronized Snapshot update(StockPrice price) {
+        Mover next = price.changePercent() != null
+            ? new Mover(price.symbol(), price.price(), price.change(), price.changePercent())
+            : null;
+        Mover previous = next != null ? movers.put(price.symbol(), next) : movers.remove(price.symbol());
+
+        boolean gainersTouched = false;
+        boolean losersTouched = false;
+        if (previous != null) {
+            gainersTouched = gainers.remove(previous) && topGainers.contains(previous);
+            losersTouched = losers.remove(previous) && topLosers.contains(previous);
+        }
+        if (next != null) {
+            int sign = next.changePercent().signum();
+            if (sign > 0) {
+                gainers.add(next);
+                gainersTouched |= reachesTop(topGainers, next, DESCENDING);
+            }
+            else if (sign < 0) {
+                losers.add(next);
+                losersTouched |= reachesTop(topLosers, next, ASCENDING);
+            }
+        }
+
+        boolean changed = false;
+        if (gainersTouched) {
+            List<Mover> top = top(gainers);
+            changed = !sameSymbols(top, topGainers);
+            topGainers = top;
+        }
+        if (losersTouched) {
+            List<Mover> top = top(losers);
+            changed |= !sameSymbols(top, topLosers);
+            topLosers = top;
+        }
+        if (!changed) {
+            return null;
+        }
+
+        current = encode(new TopMovers(current.version() + 1, topGainers, topLosers), price.symbol());
+        return current;
+    }
+
+    /**
+     * Latest published version, for new subscribers.
+     */
+    public synchronized Snapshot current() {
+        return current;
+    }
+
+    private boolean reachesTop(List<Mover> top, Mover mover, Comparator<Mover> order) {
+        return top.size() < size || order.compare(mover, top.get(top.size() - 1)) < 0;
+    }
+
+    private List<Mover> top(NavigableSet<Mover> set) {
+        List<Mover> top = new ArrayList<>(Math.min(size, set.size()));
+        Iterator<Mover> iterator = set.iterator();
+        while (top.size() < size && iterator.hasNext()) {
+            top.add(iterator.next());
+        }
+        return top;
+    }
+
+    private static boolean sameSymbols(List<Mover> a, List<Mover> b) {
+        if (a.size() != b.size()) {
+            return false;
+        }
+        for (int i = 0; i < a.size(); i++) {
+            if (!a.get(i).symbol().equals(b.get(i).symbol())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Snapshot encode(TopMovers topMovers, String symbol) {
+        try {
+            return new Snapshot(topMovers.version(), objectMapper.writeValueAsBytes(topMovers));
+        }
+        catch (JsonProcessingException e) {
+            throw BaseException.stockDataError(
+                ErrorCode.E_STOCK_DATA_SERIALIZATION_ERROR,
+                symbol,
+                "error", e.getMessage()
+            );
+        }
+    }
+
+    /**
+     * A published version and its JSON.
+     *
+     * @param payload UTF-8 JSON of the {@link TopMovers}; must not be modified
+     */
+    public record Snapshot(long version, byte[] payload) {}
+}
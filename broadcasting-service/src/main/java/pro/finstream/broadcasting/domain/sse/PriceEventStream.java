@@ -0,0 +1,338 @@
+package pro.finstream.broadcasting.domain.sse;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import pro.finstream.broadcasting.domain.stockprice.CachedPrice;
+import pro.finstream.broadcasting.domain.stockprice.LastValueCache;
+
+/**
+ * Server-Sent Events price stream for read-only consumers, see {@link PriceStreamController}.
+ *
+ * Every event is the cached JSON of the price as {@code data}, the same payload the STOMP path
+ * sends. The frame of an update is built once and shared by all connections receiving it. A
+ * connection receives either every symbol or the symbols it asked for; both are indexed, so an
+ * update only reaches its recipients.
+ *
+ * The event id is not the position of the update itself: symbols are broadcast by different
+ * consumer threads in no global order, so a client holding sequence 101 of one symbol may not yet
+ * have 100 of another. Instead it is the broadcast position of the node at the time the update was
+ * queued, {@code <epoch>:<sequence>} with every update up to that sequence already queued before
+ * it (see {@link LastValueCache#getBroadcastSequence()}). Browsers keep the id of the last event
+ * and send it back as {@code Last-Event-ID}, which therefore is a sound resume point.
+ *
+ * On connect a client gets the current prices of its symbols from the {@link LastValueCache},
+ * followed by an event with only an id, which sets the resume point without dispatching anything.
+ * A client reconnecting with {@code Last-Event-ID} from this node's epoch gets the latest price
+ * of every symbol that changed since; missed updates are conflated, a price never goes back.
+ * Updates queued while the initial prices were read are skipped if the client already got the
+ * same or a newer price of their symbol.
+ *
+ * As with the binary sub-protocol, events are queued per connection and a virtual thread per
+ * connection writes them, so a slow client never blocks the Kafka consumer or other clients. A
+ * connection whose queue is full is closed; browsers reconnect on their own with the last event
+ * id and resume from there. A connection idle for the heartbeat interval gets a comment line, so
+ * proxies keep it open and dead clients are detected on the write.
+ */
+@Component
+@Slf4j
+public class PriceEventStream {
+
+    private static final byte[] HEARTBEAT = ":\n\n".getBytes(StandardCharsets.UTF_8);
+
+    private final LastValueCache lastValueCache;
+    private final int maxConnections;
+    private final int queueCapacity;
+    private final long heartbeatMillis;
+    private final byte[] retry;
+
+    private final Set<Connection> allSymbols = ConcurrentHashMap.newKeySet();
+    private final Map<String, Set<Connection>> bySymbol = new ConcurrentHashMap<>();
+    private final AtomicInteger connections = new AtomicInteger();
+    private final Counter rejected;
+    private final Counter evicted;
+
+    public PriceEventStream(
+        LastValueCache lastValueCache,
+        MeterRegistry registry,
+        @Value("${finstream.sse.max-connections:20000}") int maxConnections,
+        @Value("${finstream.sse.queue-capacity:256}") int queueCapacity,
+        @Value("${finstream.sse.heartbeat-interval:15s}") Duration heartbeatInterval,
+        @Value("${finstream.sse.retry:3s}") Duration retry
+    ) {
+        this.lastValueCache = lastValueCache;
+        this.maxConnections = maxConnections;
+        this.queueCapacity = queueCapacity;
+        this.heartbeatMillis = heartbeatInterval.toMillis();
+        this.retry = ("retry:" + retry.toMillis() + "\n\n").getBytes(StandardCharsets.UTF_8);
+
+        Gauge.builder("finstream.sse.connections", connections, AtomicInteger::get)
+            .description("Open Server-Sent Events price streams")
+            .register(registry);
+        this.rejected = Counter.builder("finstream.sse.closed")
+            .description("Price streams refused or closed by the node, by reason")
+            .tag("reason", "limit")
+            .register(registry);
+        this.evicted = Counter.builder("finstream.sse.closed")
+            .description("Price streams refused or closed by the node, by reason")
+            .tag("reason", "slow")
+            .register(registry);
+    }
+
+    /**
+     * Open a stream of the given symbols (all symbols if empty), resuming after the given event id.
+     *
+     * @param onClose run once when the stream is closed, for whatever reason
+     * @return the emitter of the stream, or null if the node already serves max-connections streams
+     */
+    public SseEmitter open(Collection<String> symbols, String lastEventId, Runnable onClose) {
+        if (connections.incrementAndGet() > maxConnections) {
+            connections.decrementAndGet();
+            rejected.increment();
+            log.warn("Price stream refused, connection limit reached: limit={}", maxConnections);
+            return null;
+        }
+
+        // No async timeout, the heartbeat detects clients that went away
+        SseEmitter emitter = new SseEmitter(0L);
+        Connection connection = new Connection(emitter, Set.copyOf(symbols), new ArrayBlockingQueue<>(queueCapacity), onClose);
+        emitter.onCompletion(connection::close);
+        emitter.onError(e -> connection.close());
+
+        // Registered before the initial events are read, so no update falls in between. The
+        // broadcast position is read before the prices: all it covers is in the cache by then.
+        register(connection);
+        String position = lastValueCache.broadcastPosition();
+        List<Event> initial = initialEvents(connection.symbols, lastEventId);
+        connection.initial = initial;
+        connection.checkpoint = checkpoint(position);
+        // Every update queued so far that the initial prices may already contain has a sequence up to this
+        connection.handoffUntil = lastValueCache.getSequence();
+        Thread.ofVirtual().name("finstream-sse-" + connection.hashCode()).start(connection::drain);
+
+        log.debug("Price stream opened: symbols={}, lastEventId={}, initialEvents={}, connections={}",
+            symbols.isEmpty() ? "*" : symbols, lastEventId, initial.size(), connections.get());
+        return emitter;
+    }
+
+    /**
+     * Queue the update to every stream receiving its symbol. Must be called on the thread that
+     * put the update into the {@link LastValueCache}, before it marks the update as broadcast.
+     */
+    public void broadcast(CachedPrice cachedPrice) {
+        Set<Connection> symbolConnections = bySymbol.get(cachedPrice.symbol());
+        if (allSymbols.isEmpty() && symbolConnections == null) {
+            return;
+        }
+
+        // Below this update's own sequence, which is not marked as broadcast yet
+        String position = lastValueCache.broadcastPosition();
+        Event event = new Event(cachedPrice.symbol(), cachedPrice.sequence(), frame(position, cachedPrice.payload()));
+        for (Connection connection : allSymbols) {
+            connection.offer(event);
+        }
+        if (symbolConnections != null) {
+            for (Connection connection : symbolConnections) {
+                connection.offer(event);
+            }
+        }
+    }
+
+    /**
+     * Whether a stream on this node receives updates of the symbol.
+     */
+    public boolean hasSubscribers(String symbol) {
+        return !allSymbols.isEmpty() || bySymbol.containsKey(symbol);
+    }
+
+    public int getConnectionCount() {
+        return connections.get();
+    }
+
+    /**
+     * Events a new stream starts with, without ids: the current prices, only those that changed
+     * since the last event id if it is a position of this node's epoch.
+     */
+    List<Event> initialEvents(Collection<String> symbols, String lastEventId) {
+        Collection<CachedPrice> current = symbols.isEmpty() ? lastValueCache.getAll() : lastValueCache.get(symbols);
+        long resumeFrom = lastValueCache.sequenceOf(lastEventId);
+
+        List<Event> events = new ArrayList<>(current.size());
+        for (CachedPrice cached : current) {
+            // Every update up to resumeFrom had been sent to the client when it got that id
+            if (cached.sequence() > resumeFrom) {
+                events.add(new Event(cached.symbol(), cached.sequence(), frame(null, cached.payload())));
+            }
+        }
+        return events;
+    }
+
+    /**
+     * One SSE event: the JSON payload as data, with the given id unless null. The payload has no
+     * line breaks.
+     */
+    static byte[] frame(String id, byte[] payload) {
+        byte[] prefix = ((id != null ? "id:" + id + "\n" : "") + "data:").getBytes(StandardCharsets.UTF_8);
+        byte[] frame = new byte[prefix.length + payload.length + 2];
+        System.arraycopy(prefix, 0, frame, 0, prefix.length);
+        System.arraycopy(payload, 0, frame, prefix.length, payload.length);
+        frame[frame.length - 2] = '\n';
+        frame[frame.length - 1] = '\n';
+        return frame;
+    }
+
+    /**
+     * An event with an id and no data: clients take the id as the last event id, but dispatch nothing.
+     */
+    static byte[] checkpoint(String id) {
+        return ("id:" + id + "\n\n").getBytes(StandardCharsets.UTF_8);
+    }
+
+    private void register(Connection connection) {
+        if (connection.symbols.isEmpty()) {
+            allSymbols.add(connection);
+            return;
+        }
+        for (String symbol : connection.symbols) {
+            bySymbol.computeIfAbsent(symbol, s -> ConcurrentHashMap.newKeySet()).add(connection);
+        }
+    }
+
+    private void unregister(Connection connection) {
+        if (connection.symbols.isEmpty()) {
+            allSymbols.remove(connection);
+            return;
+        }
+        for (String symbol : connection.symbols) {
+            bySymbol.computeIfPresent(symbol, (s, set) -> set.remove(connection) && set.isEmpty() ? null : set);
+        }
+    }
+
+    /**
+     * A price update as queued to the streams.
+     */
+    record Event(String symbol, long sequence, byte[] frame) {}
+
+    /**
+     * Outbound queue of one stream plus the loop draining it to the response.
+     */
+    private final class Connection {
+
+        private static final Event STOP = new Event(null, -1, new byte[0]);
+
+        private final SseEmitter emitter;
+        private final Set<String> symbols;
+        private final BlockingQueue<Event> queue;
+        private final Runnable onClose;
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        // Set before the drain thread starts
+        private List<Event> initial;
+        private byte[] checkpoint;
+        private long handoffUntil;
+
+        Connection(SseEmitter emitter, Set<String> symbols, BlockingQueue<Event> queue, Runnable onClose) {
+            this.emitter = emitter;
+            this.symbols = symbols;
+            this.queue = queue;
+            this.onClose = onClose;
+        }
+
+        void offer(Event event) {
+            if (!queue.offer(event)) {
+                log.warn("Price stream too slow, closing: symbols={}, queued={}", symbols.size(), queue.size());
+                evicted.increment();
+                close();
+                emitter.complete();
+            }
+        }
+
+        void close() {
+            if (closed.compareAndSet(false, true)) {
+                unregister(this);
+                connections.decrementAndGet();
+                queue.clear();
+                queue.offer(STOP);
+                onClose.run();
+            }
+        }
+
+        void drain() {
+            try {
+                send(retry);
+                Map<String, Long> sent = initial.isEmpty() ? null : new HashMap<>();
+                for (Event event : initial) {
+                    send(event.frame());
+                    sent.put(event.symbol(), event.sequence());
+                }
+                send(checkpoint);
+                initial = null;
+
+                // Updates up to handoffUntil may be queued behind the initial prices they are
+                // older than, by any consumer thread. Once all of them are broadcast, the ones
+                // queued by then are the last to check.
+                int unchecked = -1;
+                while (true) {
+                    if (sent != null && unchecked < 0 && lastValueCache.getBroadcastSequence() >= handoffUntil) {
+                        unchecked = queue.size();
+                        if (unchecked == 0) {
+                            sent = null;
+                        }
+                    }
+
+                    Event event = queue.poll(heartbeatMillis, TimeUnit.MILLISECONDS);
+                    if (event == STOP) {
+                        return;
+                    }
+                    if (event == null) {
+                        send(HEARTBEAT);
+                        continue;
+                    }
+                    if (sent != null) {
+                        Long last = event.sequence() <= handoffUntil ? sent.get(event.symbol()) : null;
+                        if (unchecked > 0 && --unchecked == 0) {
+                            sent = null;
+                        }
+                        if (last != null && event.sequence() <= last) {
+                            continue;
+                        }
+                    }
+                    send(event.frame());
+                }
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            catch (IOException | RuntimeException e) {
+                // The container reports the failure to the emitter, which closes the connection
+                log.debug("Price stream send failed: error={}", e.getMessage());
+                close();
+            }
+        }
+
+        private void send(byte[] frame) throws IOException {
+            emitter.send(Set.of(new DataWithMediaType(frame, MediaType.TEXT_PLAIN)));
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package pro.finstream.broadcasting.domain.sse;
+
+import java.security.Principal;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import pro.finstream.broadcasting.common.error.BaseException;
+import pro.finstream.broadcasting.domain.stomp.ConnectionAdmission;
+
+/**
+ * Server-Sent Events endpoint streaming the price updates of this node to read-only clients
+ * (internal screens, partner widgets) without STOMP or SockJS.
+ *
+ * {@code GET /stream/prices?symbols=AAPL,MSFT} streams the given symbols, without the parameter
+ * every symbol. Browsers' EventSource reconnects on its own and sends the id of the last event as
+ * {@code Last-Event-ID}, see {@link PriceEventStream}.
+ *
+ * Streams need the JWT of the SSO service like the REST API; EventSource cannot set headers, so
+ * browsers pass it as the {@code access_token} query parameter (see SecurityConfig). Every stream
+ * goes through the same {@link ConnectionAdmission} as WebSocket connections and holds one of the
+ * user's max-connections-per-user slots until it is closed; a rejected stream is answered 429.
+ * A node at its stream limit answers 503 with Retry-After.
+ */
+@RestController
+@RequiredArgsConstructor
+@Slf4j
+public class PriceStreamController {
+
+    private static final String LAST_EVENT_ID = "Last-Event-ID";
+
+    private final PriceEventStream priceEventStream;
+    private final ConnectionAdmission connectionAdmission;
+
+    @GetMapping("/stream/prices")
+    public ResponseEntity<SseEmitter> prices(
+        @RequestParam(name = "symbols", required = false) String symbols,
+        @RequestHeader(name = LAST_EVENT_ID, required = false) String lastEventId,
+        Principal principal
+    ) {
+        String admissionId = UUID.randomUUID().toString();
+        try {
+            connectionAdmission.acquireConnectPermit(admissionId);
+            connectionAdmission.admitUser(admissionId, principal.getName());
+        }
+        catch (BaseException e) {
+            log.warn("Price stream refused: code={}, user={}", e.getCode(), principal.getName());
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, "10")
+                .build();
+        }
+
+        SseEmitter emitter = priceEventStream.open(parseSymbols(symbols), lastEventId,
+            () -> connectionAdmission.release(admissionId));
+        if (emitter == null) {
+            connectionAdmission.release(admissionId);
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "10")
+                .build();
+        }
+        return ResponseEntity.ok()
+            .header(HttpHeaders.CACHE_CONTROL, "no-cache")
+            // Tells nginx not to buffer the stream
+            .header("X-Accel-Buffering", "no")
+            .body(emitter);
+    }
+
+    private static List<String> parseSymbols(String symbols) {
+        if (symbols == null || symbols.isBlank()) {
+            return List.of();
+        }
+        return Arrays.stream(symbols.split(","))
+            .map(String::trim)
+            .filter(s -> !s.isEmpty())
+            .distinct()
+            .toList();
+    }
+}
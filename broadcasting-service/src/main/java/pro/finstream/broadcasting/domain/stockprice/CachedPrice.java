@@ -0,0 +1,18 @@
+package pro.finstream.broadcasting.domain.stockprice;
+
+/**
+ * Latest known price of a symbol together with its pre-serialized JSON form.
+ *
+ * The payload is encoded once when the price enters the cache and then shared by every
+ * broadcast and snapshot, so fan-out never serializes the same price twice.
+ *
+ * @param price    the stock price as consumed from Kafka
+ * @param sequence node-wide, strictly increasing update sequence
+ * @param payload  UTF-8 JSON of {@code price}; must not be modified
+ */
+public record CachedPrice(StockPrice price, long sequence, byte[] payload) {
+
+    public String symbol() {
+        return price.symbol();
+    }
+}
@@ -0,0 +1,236 @@
+package pro.finstream.broadcasting.domain.stockprice;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.stereotype.Component;
+import pro.finstream.broadcasting.common.error.BaseException;
+import pro.finstream.broadcasting.common.error.ErrorCode;
+
+/**
+ * Concurrent last-value cache of stock prices, fed by the Kafka consumer.
+ *
+ * Each symbol is owned by a single partition and therefore updated by a single consumer
+ * thread; readers (snapshot on subscribe, REST, ...) only ever see complete entries since
+ * entries are immutable and replaced atomically.
+ *
+ * Sequence numbers are global to the node and only meaningful together with the epoch, a random
+ * id of this cache instance: a restarted or different node starts a new epoch. Clients see both
+ * as the position {@code <epoch>:<sequence>}.
+ *
+ * Sequences increase per symbol, but updates of different symbols come from different consumer
+ * threads and reach clients in no global order: a client may get sequence 101 of one symbol
+ * before 100 of another. The highest sequence a client has seen therefore says nothing about the
+ * other symbols; resuming takes the last sequence per symbol, see {@link #resumeVectorOf}.
+ *
+ * Where a single resume point is needed (the SSE Last-Event-ID), the broadcast sequence serves:
+ * the highest sequence up to which every update has been broadcast. Each writing thread keeps the
+ * lowest sequence it took since its last {@link #markBroadcast()} in a slot of its own, so
+ * reading it costs a scan over the few consumer threads, see {@link #getBroadcastSequence()}.
+ */
+@Component
+public class LastValueCache {
+
+    private final ObjectMapper objectMapper;
+    private final Map<String, CachedPrice> prices = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicLong version = new AtomicLong();
+    private final String epoch = Long.toString(ThreadLocalRandom.current().nextLong() >>> 16, 36);
+    private final List<Writer> writers = new CopyOnWriteArrayList<>();
+    private final ThreadLocal<Writer> writer = ThreadLocal.withInitial(this::registerWriter);
+
+    public LastValueCache(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Encode the price once, store it as the latest value of its symbol and return the entry.
+     * The caller calls {@link #markBroadcast()} once the entry is broadcast.
+     */
+    public CachedPrice update(StockPrice price) {
+        Writer current = writer.get();
+        if (current.pending == Long.MAX_VALUE) {
+            // Published before the sequence is taken, so a reader that sees the sequence sees this too
+            current.pending = sequence.get() + 1;
+        }
+        CachedPrice cached = new CachedPrice(price, sequence.incrementAndGet(), encode(price));
+        prices.put(price.symbol(), cached);
+        // After the put: a reader seeing the new version also sees the entry
+        version.incrementAndGet();
+        return cached;
+    }
+
+    public CachedPrice get(String symbol) {
+        return prices.get(symbol);
+    }
+
+    /**
+     * Latest prices of the requested symbols; unknown symbols are silently left out.
+     */
+    public List<CachedPrice> get(Collection<String> symbols) {
+        List<CachedPrice> result = new ArrayList<>(symbols.size());
+        for (String symbol : symbols) {
+            CachedPrice cached = prices.get(symbol);
+            if (cached != null) {
+                result.add(cached);
+            }
+        }
+        return result;
+    }
+
+    public Collection<CachedPrice> getAll() {
+        return prices.values();
+    }
+
+    public int size() {
+        return prices.size();
+    }
+
+    /**
+     * Sequence number of the most recent update on this node.
+     */
+    public long getSequence() {
+        return sequence.get();
+    }
+
+    /**
+     * Number of updates stored so far, counted once each is in the cache. Prices read after this
+     * contain at least every update counted in it; unlike {@link #getSequence()}, which is taken
+     * before the update is stored.
+     */
+    public long getVersion() {
+        return version.get();
+    }
+
+    /**
+     * Mark every update the calling thread made since its last call as broadcast.
+     */
+    public void markBroadcast() {
+        writer.get().pending = Long.MAX_VALUE;
+    }
+
+    /**
+     * Highest sequence up to which every update on this node has been broadcast: no update at or
+     * below it is still on its way to the clients. Unlike {@link #getSequence()} this is a valid
+     * resume point for a client that received everything broadcast before it was read.
+     */
+    public long getBroadcastSequence() {
+        // The sequence first: an update taking a sequence up to it has published its slot by then
+        long result = sequence.get();
+        for (Writer slot : writers) {
+            result = Math.min(result, slot.pending - 1);
+        }
+        return result;
+    }
+
+    /**
+     * Position of the broadcast sequence, see {@link #getBroadcastSequence()}.
+     */
+    public String broadcastPosition() {
+        return epoch + ':' + getBroadcastSequence();
+    }
+
+    public String getEpoch() {
+        return epoch;
+    }
+
+    /**
+     * Position of the given entry as sent to clients: {@code <epoch>:<sequence>}.
+     */
+    public String position(CachedPrice cached) {
+        return epoch + ':' + cached.sequence();
+    }
+
+    /**
+     * Sequence of a position previously sent by this node, or -1 if the position is malformed or
+     * belongs to another epoch.
+     */
+    public long sequenceOf(String position) {
+        if (position == null) {
+            return -1;
+        }
+        int separator = position.indexOf(':');
+        if (separator != epoch.length() || !position.startsWith(epoch)) {
+            return -1;
+        }
+        try {
+            long result = Long.parseLong(position.substring(separator + 1));
+            return result >= 0 && result <= sequence.get() ? result : -1;
+        }
+        catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Per-symbol sequences of a resume vector {@code <epoch>:<symbol>=<sequence>,...}, built by a
+     * client from the positions it last received of each symbol, or null if the vector is
+     * malformed or belongs to another epoch. Symbols the client has not received are left out.
+     */
+    public Map<String, Long> resumeVectorOf(String resumeFrom) {
+        if (resumeFrom == null) {
+            return null;
+        }
+        int separator = resumeFrom.indexOf(':');
+        if (separator != epoch.length() || !resumeFrom.startsWith(epoch)) {
+            return null;
+        }
+
+        Map<String, Long> vector = new HashMap<>();
+        if (separator == resumeFrom.length() - 1) {
+            return vector;
+        }
+        long latest = sequence.get();
+        for (String entry : resumeFrom.substring(separator + 1).split(",")) {
+            int equals = entry.indexOf('=');
+            if (equals <= 0) {
+                return null;
+            }
+            try {
+                long result = Long.parseLong(entry.substring(equals + 1).trim());
+                if (result < 0 || result > latest) {
+                    return null;
+                }
+                vector.put(entry.substring(0, equals).trim(), result);
+            }
+            catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        return vector;
+    }
+
+    private Writer registerWriter() {
+        Writer slot = new Writer();
+        writers.add(slot);
+        return slot;
+    }
+
+    private byte[] encode(StockPrice price) {
+        try {
+            return objectMapper.writeValueAsBytes(price);
+        }
+        catch (JsonProcessingException e) {
+            throw BaseException.stockDataError(
+                ErrorCode.E_STOCK_DATA_SERIALIZATION_ERROR,
+                price.symbol(),
+                "error", e.getMessage()
+            );
+        }
+    }
+
+    /**
+     * Lowest sequence taken by one writing thread that is not yet broadcast, MAX_VALUE if none.
+     */
+    private static final class Writer {
+        volatile long pending = Long.MAX_VALUE;
+    }
+}
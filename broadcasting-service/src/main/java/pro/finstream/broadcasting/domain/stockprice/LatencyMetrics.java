@@ -0,0 +1,105 @@
+package pro.finstream.broadcasting.domain.stockprice;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.Header;
+import org.springframework.stereotype.Component;
+
+/**
+ * Latency of the broadcaster hops and of the whole path, from provider to WebSocket send.
+ *
+ * Hops (timer {@code finstream.latency.hop}, tag {@code hop}; the stock service records
+ * {@code provider}, {@code fetch} and {@code publish} under the same name):
+ * <ul>
+ * <li>{@code kafka} - published by the stock service until consumed here</li>
+ * <li>{@code broadcast} - consumed until handed to the STOMP broker and the binary sessions</li>
+ * </ul>
+ * End to end (timer {@code finstream.latency.end-to-end}, tag {@code from}):
+ * <ul>
+ * <li>{@code fetched} - quote fetched by the stock service until broadcast</li>
+ * <li>{@code provider} - provider timestamp until broadcast, i.e. the age of the price a
+ *     client sees; includes market-closed periods</li>
+ * </ul>
+ * Records from producers without trace headers fall back to the Kafka record timestamp for the
+ * published hop and are skipped for the fetched one. Clock skew between the hosts shows up in
+ * the cross-service values; negative differences are recorded as 0.
+ */
+@Component
+public class LatencyMetrics {
+
+    private final Timer kafka;
+    private final Timer broadcast;
+    private final Timer fromFetched;
+    private final Timer fromProvider;
+
+    public LatencyMetrics(MeterRegistry registry) {
+        this.kafka = timer(registry, "finstream.latency.hop", "hop", "kafka", Duration.ofSeconds(10));
+        this.broadcast = timer(registry, "finstream.latency.hop", "hop", "broadcast", Duration.ofSeconds(10));
+        this.fromFetched = timer(registry, "finstream.latency.end-to-end", "from", "fetched", Duration.ofSeconds(30));
+        this.fromProvider = timer(registry, "finstream.latency.end-to-end", "from", "provider", Duration.ofMinutes(10));
+    }
+
+    /**
+     * Record the hops of the given records and their prices (same order), consumed at
+     * {@code consumedAt} and broadcast at {@code broadcastAt} (epoch millis).
+     */
+    public void recordBroadcast(List<? extends ConsumerRecord<?, ?>> records, List<CachedPrice> prices,
+                                long consumedAt, long broadcastAt) {
+        for (int i = 0, n = records.size(); i < n; i++) {
+            ConsumerRecord<?, ?> record = records.get(i);
+            record(broadcast, broadcastAt - consumedAt);
+
+            long publishedAt = header(record, TraceHeaders.PUBLISHED_AT, record.timestamp());
+            record(kafka, consumedAt - publishedAt);
+
+            long fetchedAt = header(record, TraceHeaders.FETCHED_AT, -1);
+            if (fetchedAt > 0) {
+                record(fromFetched, broadcastAt - fetchedAt);
+            }
+
+            Long providerTimestamp = prices.get(i).price().timestamp();
+            if (providerTimestamp != null && providerTimestamp > 0) {
+                record(fromProvider, broadcastAt - providerMillis(providerTimestamp));
+            }
+        }
+    }
+
+    /**
+     * Finnhub sends epoch seconds; accept epoch millis from other providers.
+     */
+    static long providerMillis(long timestamp) {
+        return timestamp < 100_000_000_000L ? timestamp * 1000 : timestamp;
+    }
+
+    private static void record(Timer timer, long millis) {
+        timer.record(Math.max(0, millis), TimeUnit.MILLISECONDS);
+    }
+
+    private static long header(ConsumerRecord<?, ?> record, String name, long defaultValue) {
+        Header header = record.headers().lastHeader(name);
+        if (header == null || header.value() == null) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(new String(header.value(), StandardCharsets.US_ASCII));
+        }
+        catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    private static Timer timer(MeterRegistry registry, String name, String tag, String value, Duration max) {
+        return Timer.builder(name)
+            .description("Latency of a stock price from provider to WebSocket send")
+            .tag(tag, value)
+            .publishPercentiles(0.5, 0.95, 0.99)
+            .publishPercentileHistogram()
+            .maximumExpectedValue(max)
+            .register(registry);
+    }
+}
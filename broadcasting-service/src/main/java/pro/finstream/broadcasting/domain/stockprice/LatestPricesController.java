@@ -0,0 +1,140 @@
+package pro.finstream.broadcasting.domain.stockprice;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import pro.finstream.broadcasting.common.error.BaseException;
+import pro.finstream.broadcasting.common.error.ErrorCode;
+import pro.finstream.broadcasting.domain.stockprice.LatestPricesView.Snapshot;
+
+/**
+ * Latest prices of this node as plain JSON, for page loads and polling clients.
+ *
+ * - GET /api/prices - all prices, ordered by symbol
+ * - GET /api/prices?symbols=AAPL,MSFT - the given symbols (unknown ones are left out)
+ * - GET /api/prices/{symbol} - a single price, 404 if unknown
+ *
+ * Every response carries an ETag of the version of the prices it holds; a request whose
+ * If-None-Match still matches is answered 304 before any body is assembled. The array of all
+ * prices is sent pre-gzipped to clients accepting gzip, see {@link LatestPricesView}.
+ *
+ * The endpoints answer 404 E_FEATURE_DISABLED while {@code finstream.kafka.filter-unsubscribed}
+ * is on: the cache then only follows symbols with subscribers and would serve stale prices.
+ */
+@RestController
+@RequestMapping("/api/prices")
+public class LatestPricesController {
+
+    private static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
+    private static final Pattern ZERO_QUALITY = Pattern.compile("q=0(\\.0*)?");
+
+    private final LatestPricesView latestPricesView;
+    private final LastValueCache lastValueCache;
+    private final boolean filterUnsubscribed;
+
+    public LatestPricesController(
+        LatestPricesView latestPricesView,
+        LastValueCache lastValueCache,
+        @Value("${finstream.kafka.filter-unsubscribed:false}") boolean filterUnsubscribed
+    ) {
+        this.latestPricesView = latestPricesView;
+        this.lastValueCache = lastValueCache;
+        this.filterUnsubscribed = filterUnsubscribed;
+    }
+
+    @GetMapping
+    public ResponseEntity<byte[]> prices(
+        @RequestParam(name = "symbols", required = false) String symbols,
+        @RequestHeader(name = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+        WebRequest request
+    ) {
+        requireCompleteCache();
+        List<String> requested = parseSymbols(symbols);
+        if (requested.isEmpty()) {
+            Snapshot snapshot = latestPricesView.all();
+            String etag = latestPricesView.etag(snapshot.version());
+            if (request.checkNotModified(etag)) {
+                return null;
+            }
+            if (snapshot.gzip() != null && acceptsGzip(acceptEncoding)) {
+                return json(etag).header(HttpHeaders.CONTENT_ENCODING, "gzip").body(snapshot.gzip());
+            }
+            return json(etag).body(snapshot.json());
+        }
+
+        // Checked and built from the same entries, so the ETag always matches the body
+        List<CachedPrice> prices = latestPricesView.pricesOf(requested);
+        String etag = latestPricesView.etag(latestPricesView.versionOf(prices));
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return json(etag).body(latestPricesView.of(prices).json());
+    }
+
+    @GetMapping("/{symbol}")
+    public ResponseEntity<byte[]> price(@PathVariable String symbol, WebRequest request) {
+        requireCompleteCache();
+        CachedPrice cached = lastValueCache.get(symbol);
+        if (cached == null) {
+            throw new BaseException(ErrorCode.E_STOCK_SYMBOL_NOT_SUPPORTED, HttpStatus.NOT_FOUND, "symbol", symbol);
+        }
+
+        String etag = latestPricesView.etag(cached.sequence());
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return json(etag).body(cached.payload());
+    }
+
+    private void requireCompleteCache() {
+        if (filterUnsubscribed) {
+            throw new BaseException(ErrorCode.E_FEATURE_DISABLED, HttpStatus.NOT_FOUND,
+                "reason", "finstream.kafka.filter-unsubscribed is on");
+        }
+    }
+
+    private static ResponseEntity.BodyBuilder json(String etag) {
+        return ResponseEntity.ok()
+            .contentType(MediaType.APPLICATION_JSON)
+            .eTag(etag)
+            .cacheControl(REVALIDATE)
+            .varyBy(HttpHeaders.ACCEPT_ENCODING);
+    }
+
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if (parts[0].trim().equalsIgnoreCase("gzip")) {
+                return parts.length == 1 || !ZERO_QUALITY.matcher(parts[1].replace(" ", "")).matches();
+            }
+        }
+        return false;
+    }
+
+    private static List<String> parseSymbols(String symbols) {
+        if (symbols == null || symbols.isBlank()) {
+            return List.of();
+        }
+        return Arrays.stream(symbols.split(","))
+            .map(String::trim)
+            .filter(s -> !s.isEmpty())
+            .distinct()
+            .toList();
+    }
+}
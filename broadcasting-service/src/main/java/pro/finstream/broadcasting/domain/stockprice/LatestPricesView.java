@@ -0,0 +1,134 @@
+package pro.finstream.broadcasting.domain.stockprice;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+import org.springframework.stereotype.Component;
+
+/**
+ * Pre-serialized JSON arrays of the latest prices, served by {@link LatestPricesController}.
+ *
+ * Bodies are assembled from the JSON payloads held by the {@link LastValueCache}, so no price is
+ * serialized again. Each body carries a version, which together with the cache epoch makes its
+ * ETag. The highest sequence a body contains is no version: updates of different symbols are
+ * stored by different consumer threads, so sequence 101 may be in the cache before 100.
+ *
+ * The array of all prices is versioned by {@link LastValueCache#getVersion()}, read before the
+ * prices, and is built, and gzipped, once per version and shared by every request until the next
+ * update is stored. An array of some symbols is versioned by the sum of their sequences, computed
+ * from the very entries it is built from: a symbol's sequence only grows, so the sum changes with
+ * every change of the content, and can be checked without building the body.
+ */
+@Component
+public class LatestPricesView {
+
+    private static final Comparator<CachedPrice> BY_SYMBOL = Comparator.comparing(CachedPrice::symbol);
+
+    private final LastValueCache lastValueCache;
+    private volatile Snapshot all;
+
+    public LatestPricesView(LastValueCache lastValueCache) {
+        this.lastValueCache = lastValueCache;
+    }
+
+    /**
+     * All latest prices, ordered by symbol, with their gzipped form.
+     */
+    public Snapshot all() {
+        Snapshot snapshot = all;
+        if (snapshot != null && snapshot.version() == lastValueCache.getVersion()) {
+            return snapshot;
+        }
+        synchronized (this) {
+            long version = lastValueCache.getVersion();
+            snapshot = all;
+            if (snapshot == null || snapshot.version() != version) {
+                // Read after the version, so it holds at least every update counted in it
+                snapshot = build(new ArrayList<>(lastValueCache.getAll()), version, true);
+                all = snapshot;
+            }
+            return snapshot;
+        }
+    }
+
+    /**
+     * Latest prices of the given symbols as read from the cache, to version and build them from.
+     */
+    public List<CachedPrice> pricesOf(Collection<String> symbols) {
+        return lastValueCache.get(symbols);
+    }
+
+    /**
+     * Version of {@link #of(List)} for the same prices, without building the body.
+     */
+    public long versionOf(List<CachedPrice> prices) {
+        long version = 0;
+        for (CachedPrice cached : prices) {
+            version += cached.sequence();
+        }
+        return version;
+    }
+
+    /**
+     * The given prices, see {@link #pricesOf}, ordered by symbol.
+     */
+    public Snapshot of(List<CachedPrice> prices) {
+        return build(new ArrayList<>(prices), versionOf(prices), false);
+    }
+
+    /**
+     * Weak ETag of a version: the same prices are served plain or gzipped.
+     */
+    public String etag(long version) {
+        return "W/\"" + lastValueCache.getEpoch() + '-' + version + '"';
+    }
+
+    private static Snapshot build(List<CachedPrice> prices, long version, boolean gzip) {
+        prices.sort(BY_SYMBOL);
+
+        int length = 2 + Math.max(0, prices.size() - 1);
+        for (CachedPrice cached : prices) {
+            length += cached.payload().length;
+        }
+
+        byte[] json = new byte[length];
+        int position = 0;
+        json[position++] = '[';
+        for (CachedPrice cached : prices) {
+            if (position > 1) {
+                json[position++] = ',';
+            }
+            System.arraycopy(cached.payload(), 0, json, position, cached.payload().length);
+            position += cached.payload().length;
+        }
+        json[position] = ']';
+
+        return new Snapshot(version, prices.size(), json, gzip ? gzip(json) : null);
+    }
+
+    private static byte[] gzip(byte[] json) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(json.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(json);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * One version of a price array.
+     *
+     * @param version version of the prices contained, see above
+     * @param count   number of prices
+     * @param json    UTF-8 JSON array; must not be modified
+     * @param gzip    gzipped {@code json}, null if not pre-compressed; must not be modified
+     */
+    public record Snapshot(long version, int count, byte[] json, byte[] gzip) {}
+}
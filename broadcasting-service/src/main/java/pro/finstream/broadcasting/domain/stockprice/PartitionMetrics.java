@@ -0,0 +1,162 @@
+package pro.finstream.broadcasting.domain.stockprice;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.concurrent.ConcurrentHashMap;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.kafka.event.ListenerContainerIdleEvent;
+import org.springframework.stereotype.Component;
+
+/**
+ * Per-partition throughput and lag of the stock price consumer.
+ *
+ * Meters are created once per partition and cached, so the per-batch cost is a map lookup
+ * and a counter increment. Lag is read from the consumer's cached fetch position, which does
+ * not cost a broker round trip.
+ *
+ * Lag is read on the consumer thread after every batch and, while a consumer receives nothing,
+ * on the container's idle events every {@code finstream.kafka.lag.refresh-interval}. A reading
+ * older than three intervals reports NaN: the consumer has stopped polling, and its last lag
+ * would understate the real one. Meters of a partition are removed when it is revoked or lost
+ * in a rebalance, so every partition is reported by the node consuming it only.
+ */
+@Component
+public class PartitionMetrics implements ConsumerRebalanceListener {
+
+    private final MeterRegistry registry;
+    private final String stockPricesTopic;
+    private final long staleAfterNanos;
+    private final Map<TopicPartition, PartitionMeters> meters = new ConcurrentHashMap<>();
+    private final Counter filtered;
+
+    public PartitionMetrics(
+        MeterRegistry registry,
+        @Value("${finstream.kafka.topic.stock-prices}") String stockPricesTopic,
+        @Value("${finstream.kafka.lag.refresh-interval:10s}") Duration refreshInterval
+    ) {
+        this.registry = registry;
+        this.stockPricesTopic = stockPricesTopic;
+        this.staleAfterNanos = refreshInterval.multipliedBy(3).toNanos();
+        this.filtered = Counter.builder("finstream.kafka.records.filtered")
+            .description("Stock price records dropped by key, without subscribers on this node")
+            .register(registry);
+    }
+
+    /**
+     * Record a batch of {@code count} records consumed from the given partition.
+     */
+    public void recordConsumed(TopicPartition partition, int count) {
+        meters(partition).consumed.increment(count);
+    }
+
+    /**
+     * Record {@code count} records dropped by key before parsing.
+     */
+    public void recordFiltered(int count) {
+        if (count > 0) {
+            filtered.increment(count);
+        }
+    }
+
+    /**
+     * Refresh the lag gauges of all stock price partitions currently assigned to the given
+     * consumer. Must be called on the consumer thread.
+     */
+    public void updateLag(Consumer<?, ?> consumer) {
+        for (TopicPartition partition : consumer.assignment()) {
+            if (!partition.topic().equals(stockPricesTopic)) {
+                continue;
+            }
+            OptionalLong lag = consumer.currentLag(partition);
+            if (lag.isPresent()) {
+                meters(partition).lag.set(lag.getAsLong());
+            }
+        }
+    }
+
+    /**
+     * Idle events are published on the consumer thread, the listener is not called meanwhile.
+     */
+    @EventListener
+    public void onIdle(ListenerContainerIdleEvent event) {
+        updateLag(event.getConsumer());
+    }
+
+    @Override
+    public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+        remove(partitions);
+    }
+
+    @Override
+    public void onPartitionsLost(Collection<TopicPartition> partitions) {
+        remove(partitions);
+    }
+
+    @Override
+    public void onPartitionsAssigned(Collection<TopicPartition> partitions) {
+        // Meters are created with the first batch or lag reading of a partition
+    }
+
+    private void remove(Collection<TopicPartition> partitions) {
+        for (TopicPartition partition : partitions) {
+            PartitionMeters removed = meters.remove(partition);
+            if (removed != null) {
+                registry.remove(removed.consumed);
+                registry.remove(removed.lagGauge);
+            }
+        }
+    }
+
+    private PartitionMeters meters(TopicPartition partition) {
+        return meters.computeIfAbsent(partition, this::register);
+    }
+
+    private PartitionMeters register(TopicPartition partition) {
+        String topic = partition.topic();
+        String index = String.valueOf(partition.partition());
+
+        Counter consumed = Counter.builder("finstream.kafka.records.consumed")
+            .description("Stock price records consumed per partition")
+            .tag("topic", topic)
+            .tag("partition", index)
+            .register(registry);
+
+        Lag lag = new Lag();
+        Gauge lagGauge = Gauge.builder("finstream.kafka.partition.lag", lag, l -> l.get(staleAfterNanos))
+            .description("Records between the consumer position and the partition end, NaN while not refreshed")
+            .tag("topic", topic)
+            .tag("partition", index)
+            .register(registry);
+
+        return new PartitionMeters(consumed, lagGauge, lag);
+    }
+
+    private record PartitionMeters(Counter consumed, Gauge lagGauge, Lag lag) {}
+
+    /**
+     * Last lag read and when it was read.
+     */
+    private static final class Lag {
+
+        private volatile long value;
+        private volatile long readAt = System.nanoTime();
+
+        void set(long value) {
+            this.value = value;
+            this.readAt = System.nanoTime();
+        }
+
+        double get(long staleAfterNanos) {
+            return System.nanoTime() - readAt > staleAfterNanos ? Double.NaN : value;
+        }
+    }
+}
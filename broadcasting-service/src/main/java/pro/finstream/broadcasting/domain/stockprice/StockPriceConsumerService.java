@@ -1,15 +1,20 @@
 package pro.finstream.broadcasting.domain.stockprice;
 
+import java.util.ArrayList;
+import java.util.List;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.BatchListenerFailedException;
 import org.springframework.kafka.support.Acknowledgment;
-import org.springframework.kafka.support.KafkaHeaders;
-import org.springframework.messaging.handler.annotation.Header;
-import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.kafka.support.serializer.DeserializationException;
 import org.springframework.stereotype.Service;
 import pro.finstream.broadcasting.common.error.BaseException;
 import pro.finstream.broadcasting.common.error.ErrorCode;
+import pro.finstream.broadcasting.domain.cluster.ClusterNode;
 import pro.finstream.broadcasting.domain.stomp.StockBroadcastingService;
 
 @Service
@@ -17,51 +22,197 @@ import pro.finstream.broadcasting.domain.stomp.StockBroadcastingService;
 public class StockPriceConsumerService {
 
     private final StockBroadcastingService broadcastingService;
+    private final LastValueCache lastValueCache;
+    private final PartitionMetrics partitionMetrics;
+    private final ClusterNode clusterNode;
+    private final LatencyMetrics latencyMetrics;
+    private final StockPriceRecoverer recoverer;
+    private final boolean filterUnsubscribed;
 
-    public StockPriceConsumerService(StockBroadcastingService broadcastingService) {
+    public StockPriceConsumerService(
+        StockBroadcastingService broadcastingService,
+        LastValueCache lastValueCache,
+        PartitionMetrics partitionMetrics,
+        ClusterNode clusterNode,
+        LatencyMetrics latencyMetrics,
+        StockPriceRecoverer recoverer,
+        @Value("${finstream.kafka.filter-unsubscribed:false}") boolean filterUnsubscribed
+    ) {
         this.broadcastingService = broadcastingService;
+        this.lastValueCache = lastValueCache;
+        this.partitionMetrics = partitionMetrics;
+        this.clusterNode = clusterNode;
+        this.latencyMetrics = latencyMetrics;
+        this.recoverer = recoverer;
+        this.filterUnsubscribed = filterUnsubscribed;
     }
-    
-    @KafkaListener(topics = "finstream.stock.prices", groupId = "finstream-broadcaster")
-    public void consumeStockPrice(
-        @Payload StockPrice stockPrice,
-        ConsumerRecord<String, StockPrice> record,
+
+    /**
+     * Consumes one poll worth of stock prices: caches the accepted ones and broadcasts them
+     * together once the batch is processed, then acknowledges the batch. Records of a partition
+     * arrive in offset order on the one thread owning it, which keeps every symbol in order.
+     * Failed records are set aside, see {@link StockPriceRecoverer}.
+     */
+    @KafkaListener(
+        topics = "${finstream.kafka.topic.stock-prices}",
+        // Shared in standalone mode, per node in clustered mode so every node receives all partitions
+        groupId = "#{@clusterNode.consumerGroupId}",
+        properties = {
+            "auto.offset.reset=#{@clusterNode.autoOffsetReset}",
+            // Parsed here, so a record can be dropped by its key before its payload is touched
+            "value.deserializer=org.apache.kafka.common.serialization.ByteArrayDeserializer"
+        },
+        batch = "true"
+    )
+    public void consumeStockPrices(
+        List<ConsumerRecord<String, byte[]>> records,
         Acknowledgment acknowledgment,
-        @Header(KafkaHeaders.RECEIVED_PARTITION) int partition,
-        @Header(KafkaHeaders.OFFSET) long offset,
-        @Header(KafkaHeaders.RECEIVED_TIMESTAMP) long timestamp
-    ) {    
+        Consumer<?, ?> consumer
+    ) {
+        long consumedAt = System.currentTimeMillis();
+        log.debug("Received stock price batch: size={}", records.size());
+        recordPartitionMetrics(records, consumer);
+
+        List<CachedPrice> accepted = new ArrayList<>(records.size());
+        List<ConsumerRecord<String, byte[]>> acceptedRecords = new ArrayList<>(records.size());
+        int skipped = 0;
+        int filtered = 0;
+        for (int i = 0, n = records.size(); i < n; i++) {
+            ConsumerRecord<String, byte[]> record = records.get(i);
+            // Symbols nobody on this node receives; features needing every tick are off meanwhile
+            if (filterUnsubscribed && record.key() != null && !broadcastingService.hasSubscribers(record.key())) {
+                filtered++;
+                continue;
+            }
+
+            Exception failure = process(record, accepted, acceptedRecords);
+            if (failure == null) {
+                continue;
+            }
+
+            // Failed records never hold up the batch: unreadable or invalid ones are dead-lettered,
+            // all others retried
+            skipped++;
+            try {
+                recoverer.recover(record, failure);
+            }
+            catch (Exception e) {
+                log.error("Failed to set aside stock price message: partition={}, offset={}",
+                    record.partition(), record.offset(), e);
+
+                // The records before the failed one get committed, so they must go out now
+                broadcastingService.broadcastStockPrices(accepted);
+                latencyMetrics.recordBroadcast(acceptedRecords, accepted, consumedAt, System.currentTimeMillis());
+
+                // The container commits up to the failed record and redelivers from it: at-least-once
+                throw new BatchListenerFailedException("Stock price batch processing failed", BaseException.kafkaError(
+                    ErrorCode.E_STOCK_PRICE_PROCESSING_ERROR,
+                    record.topic(),
+                    clusterNode.getConsumerGroupId(),
+                    "partition", record.partition(),
+                    "offset", record.offset(),
+                    "error", failure.getMessage()
+                ), i);
+            }
+        }
+
+        // One broadcast per batch, so binary clients receive it in as few frames as possible
+        broadcastingService.broadcastStockPrices(accepted);
+        latencyMetrics.recordBroadcast(acceptedRecords, accepted, consumedAt, System.currentTimeMillis());
+        partitionMetrics.recordFiltered(filtered);
+        // Ack-mode MANUAL: one commit after the whole poll instead of one per record
+        acknowledgment.acknowledge();
+        log.debug("Processed and acknowledged stock price batch: size={}, skipped={}, filtered={}",
+            records.size(), skipped, filtered);
+    }
+
+    /**
+     * Parse, validate and cache one record; returns the failure, or null if the record was accepted
+     * or dropped as a superseded retry.
+     */
+    private Exception process(
+        ConsumerRecord<String, byte[]> record,
+        List<CachedPrice> accepted,
+        List<ConsumerRecord<String, byte[]>> acceptedRecords
+    ) {
+        StockPrice stockPrice;
+        try {
+            stockPrice = record.value() != null ? StockPriceDeserializer.read(record.value()) : null;
+        }
+        catch (Exception e) {
+            log.warn("Skipping undeserializable stock price message: partition={}, offset={}, key={}, error={}",
+                record.partition(), record.offset(), record.key(), e.getMessage());
+            return new DeserializationException("Cannot read stock price", record.value(), false, e);
+        }
+
         try {
-            log.debug("Received stock price message: partition={}, offset={}, timestamp={}, key={}", 
-                     partition, offset, timestamp, record.key());
-            
-            log.info("Processing stock price update: symbol={}, price={}, change={}", 
-                    stockPrice.symbol(), stockPrice.price(), stockPrice.change());
             validateStockPrice(stockPrice);
-            broadcastingService.broadcastStockPrice(stockPrice);
-            acknowledgment.acknowledge();
-            log.debug("Successfully processed and acknowledged stock price for symbol: {}", stockPrice.symbol());            
+            if (record.headers().lastHeader(StockPriceRetryConsumer.RETRIED_BY) != null && !acceptRetried(record, stockPrice)) {
+                return null;
+            }
+            accepted.add(lastValueCache.update(stockPrice));
+            acceptedRecords.add(record);
+            return null;
+        }
+        catch (BaseException e) {
+            log.warn("Skipping invalid stock price message: partition={}, offset={}, key={}, code={}, data={}",
+                record.partition(), record.offset(), record.key(), e.getCode(), e.getData());
+            return e;
         }
         catch (Exception e) {
-            log.error("Failed to process stock price message: partition={}, offset={}, stockPrice={}", 
-                     partition, offset, stockPrice, e);
-            
-            // For now, acknowledge even failed messages to prevent infinite retry
-            // In production, you might want to send to a dead letter topic
-            acknowledgment.acknowledge();
-            
-            throw BaseException.kafkaError(
-                ErrorCode.E_KAFKA_MESSAGE_DESERIALIZATION_ERROR,
-                "topic", "finstream.stock.prices",
-                "group-id", "finstream-broadcaster",
-                "partition", partition,
-                "offset", offset,
-                "error", e.getMessage()
-            );
+            log.error("Failed to process stock price message: partition={}, offset={}, stockPrice={}",
+                record.partition(), record.offset(), stockPrice, e);
+            return e;
         }
     }
 
+    /**
+     * Whether to apply a price republished by {@link StockPriceRetryConsumer}: only on the node
+     * that set it aside, and only if no later tick of its symbol was applied in the meantime.
+     * Checked on the thread owning the symbol's partition, so no tick can be applied in between.
+     */
+    private boolean acceptRetried(ConsumerRecord<String, byte[]> record, StockPrice stockPrice) {
+        if (clusterNode.isClustered()
+            && !clusterNode.getNodeId().equals(StockPriceRetryConsumer.header(record, StockPriceRetryConsumer.RETRIED_BY))) {
+            return false;
+        }
+
+        CachedPrice latest = lastValueCache.get(stockPrice.symbol());
+        if (latest != null && !isNewer(stockPrice, latest.price())) {
+            log.debug("Retried stock price superseded: symbol={}, offset={}", stockPrice.symbol(), record.offset());
+            return false;
+        }
+        return true;
+    }
+
+    private static boolean isNewer(StockPrice price, StockPrice latest) {
+        return price.timestamp() != null && latest.timestamp() != null && price.timestamp() > latest.timestamp();
+    }
+
+    /**
+     * Records of one partition are contiguous within a poll, so counting runs is enough.
+     */
+    private void recordPartitionMetrics(List<ConsumerRecord<String, byte[]>> records, Consumer<?, ?> consumer) {
+        int runStart = 0;
+        for (int i = 1, n = records.size(); i <= n; i++) {
+            if (i == n || records.get(i).partition() != records.get(runStart).partition()) {
+                ConsumerRecord<String, byte[]> first = records.get(runStart);
+                partitionMetrics.recordConsumed(new TopicPartition(first.topic(), first.partition()), i - runStart);
+                runStart = i;
+            }
+        }
+        partitionMetrics.updateLag(consumer);
+    }
+
     private void validateStockPrice(StockPrice stockPrice) {
+        if (stockPrice == null) {
+            throw BaseException.stockDataError(
+                ErrorCode.E_STOCK_PRICE_INVALID_FORMAT,
+                null,
+                "reason", "Payload is null"
+            );
+        }
+
         if (stockPrice.symbol() == null || stockPrice.symbol().trim().isEmpty()) {
             throw BaseException.stockDataError(
                 ErrorCode.E_STOCK_PRICE_MISSING_SYMBOL,
@@ -69,7 +220,7 @@ public class StockPriceConsumerService {
                 "reason", "Symbol is null or empty"
             );
         }
-        
+
         if (stockPrice.price() == null) {
             throw BaseException.stockDataError(
                 ErrorCode.E_STOCK_PRICE_INVALID_FORMAT,
@@ -77,7 +228,5 @@ public class StockPriceConsumerService {
                 "reason", "Price is null"
             );
         }
-        
-        log.debug("Stock price validation passed for symbol: {}", stockPrice.symbol());
     }
 }
@@ -0,0 +1,187 @@
+package pro.finstream.broadcasting.domain.stockprice;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.TemporalAccessor;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Deserializer;
+
+/**
+ * Reads the stock price JSON of the stock service with Jackson's streaming parser.
+ *
+ * No data binding: the fields are matched by name in a single pass and the record is built
+ * directly, without reflection, type resolution or per-field deserializers. Numbers are read as
+ * BigDecimal from their text, exactly as Jackson's binding does. {@code processedAt} is parsed
+ * by hand in its usual ISO form ({@code 2025-07-25T14:30:00.123456789}, optionally with
+ * {@code Z}, which the stock service writes for its Instant); other ISO forms with an offset,
+ * epoch seconds and Jackson's array form are accepted as well and converted to UTC.
+ *
+ * Unknown fields are skipped, so the stock service can add fields without breaking the
+ * broadcaster. Malformed input fails with a {@link SerializationException}.
+ */
+public class StockPriceDeserializer implements Deserializer<StockPrice> {
+
+    private static final JsonFactory JSON_FACTORY = JsonFactory.builder().build();
+
+    @Override
+    public StockPrice deserialize(String topic, byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        try {
+            return read(data);
+        }
+        catch (IOException | RuntimeException e) {
+            throw new SerializationException("Cannot read stock price: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Parse one stock price; fails with IOException or DateTimeException on malformed input.
+     */
+    public static StockPrice read(byte[] data) throws IOException {
+        try (JsonParser json = JSON_FACTORY.createParser(data)) {
+            if (json.nextToken() != JsonToken.START_OBJECT) {
+                throw new JsonParseException(json, "Expected a stock price object");
+            }
+
+            String symbol = null;
+            BigDecimal price = null;
+            BigDecimal change = null;
+            BigDecimal changePercent = null;
+            BigDecimal high = null;
+            BigDecimal low = null;
+            Long timestamp = null;
+            String source = null;
+            LocalDateTime processedAt = null;
+
+            String field;
+            while ((field = json.nextFieldName()) != null) {
+                JsonToken token = json.nextToken();
+                switch (field) {
+                    case "symbol" -> symbol = text(json, token);
+                    case "price" -> price = decimal(json, token);
+                    case "change" -> change = decimal(json, token);
+                    case "changePercent" -> changePercent = decimal(json, token);
+                    case "high" -> high = decimal(json, token);
+                    case "low" -> low = decimal(json, token);
+                    case "timestamp" -> timestamp = token == JsonToken.VALUE_NULL ? null : json.getValueAsLong();
+                    case "source" -> source = text(json, token);
+                    case "processedAt" -> processedAt = dateTime(json, token);
+                    default -> json.skipChildren();
+                }
+            }
+            if (json.currentToken() != JsonToken.END_OBJECT) {
+                throw new JsonParseException(json, "Unexpected token in stock price: " + json.currentToken());
+            }
+
+            return new StockPrice(symbol, price, change, changePercent, high, low, timestamp, source, processedAt);
+        }
+    }
+
+    private static String text(JsonParser json, JsonToken token) throws IOException {
+        return token == JsonToken.VALUE_NULL ? null : json.getValueAsString();
+    }
+
+    private static BigDecimal decimal(JsonParser json, JsonToken token) throws IOException {
+        return switch (token) {
+            case VALUE_NULL -> null;
+            case VALUE_NUMBER_INT, VALUE_NUMBER_FLOAT -> json.getDecimalValue();
+            case VALUE_STRING -> new BigDecimal(json.getText());
+            default -> throw new JsonParseException(json, "Expected a number, got " + token);
+        };
+    }
+
+    private static LocalDateTime dateTime(JsonParser json, JsonToken token) throws IOException {
+        return switch (token) {
+            case VALUE_NULL -> null;
+            case VALUE_STRING -> parseDateTime(json.getText());
+            case VALUE_NUMBER_INT, VALUE_NUMBER_FLOAT -> {
+                // Epoch seconds with nanosecond fraction, as Jackson writes Instants as timestamps
+                BigDecimal seconds = json.getDecimalValue();
+                long whole = seconds.longValue();
+                int nanos = seconds.subtract(BigDecimal.valueOf(whole)).movePointRight(9).intValue();
+                yield LocalDateTime.ofEpochSecond(whole, nanos, ZoneOffset.UTC);
+            }
+            case START_ARRAY -> {
+                int[] parts = new int[7];
+                int count = 0;
+                while (json.nextToken() != JsonToken.END_ARRAY) {
+                    if (count == parts.length) {
+                        throw new JsonParseException(json, "Too many date-time array elements");
+                    }
+                    parts[count++] = json.getIntValue();
+                }
+                if (count < 5) {
+                    throw new JsonParseException(json, "Too few date-time array elements");
+                }
+                yield LocalDateTime.of(parts[0], parts[1], parts[2], parts[3], parts[4], parts[5], parts[6]);
+            }
+            default -> throw new JsonParseException(json, "Expected a date-time, got " + token);
+        };
+    }
+
+    /**
+     * Fast path for {@code yyyy-MM-ddTHH:mm:ss[.fraction][Z]}, falling back to the ISO formatter.
+     */
+    static LocalDateTime parseDateTime(String text) {
+        int length = text.length();
+        int end = length > 0 && text.charAt(length - 1) == 'Z' ? length - 1 : length;
+
+        if (end >= 19 && text.charAt(4) == '-' && text.charAt(7) == '-' && text.charAt(10) == 'T'
+            && text.charAt(13) == ':' && text.charAt(16) == ':') {
+
+            int year = digits(text, 0, 4);
+            int month = digits(text, 5, 7);
+            int day = digits(text, 8, 10);
+            int hour = digits(text, 11, 13);
+            int minute = digits(text, 14, 16);
+            int second = digits(text, 17, 19);
+            int nanos = 0;
+            boolean valid = year >= 0 && month >= 0 && day >= 0 && hour >= 0 && minute >= 0 && second >= 0;
+
+            if (valid && end > 19) {
+                int fractionDigits = end - 20;
+                valid = text.charAt(19) == '.' && fractionDigits >= 1 && fractionDigits <= 9;
+                if (valid) {
+                    nanos = digits(text, 20, end);
+                    for (int i = fractionDigits; i < 9 && nanos >= 0; i++) {
+                        nanos *= 10;
+                    }
+                    valid = nanos >= 0;
+                }
+            }
+            if (valid) {
+                return LocalDateTime.of(year, month, day, hour, minute, second, nanos);
+            }
+        }
+
+        TemporalAccessor parsed = DateTimeFormatter.ISO_DATE_TIME.parseBest(text, OffsetDateTime::from, LocalDateTime::from);
+        return parsed instanceof OffsetDateTime offset
+            ? offset.withOffsetSameInstant(ZoneOffset.UTC).toLocalDateTime()
+            : (LocalDateTime) parsed;
+    }
+
+    /**
+     * Decimal value of text[from, to), or -1 if it contains anything but ASCII digits.
+     */
+    private static int digits(String text, int from, int to) {
+        int value = 0;
+        for (int i = from; i < to; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+}
@@ -0,0 +1,141 @@
+package pro.finstream.broadcasting.domain.stockprice;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.nio.charset.StandardCharsets;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaOperations;
+import org.springframework.kafka.listener.ConsumerRecordRecoverer;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.support.serializer.DeserializationException;
+import org.springframework.stereotype.Component;
+import pro.finstream.broadcasting.common.error.BaseException;
+import pro.finstream.broadcasting.domain.cluster.ClusterNode;
+
+/**
+ * Sets failed stock price records aside, so the partition they came from keeps flowing.
+ *
+ * <ul>
+ * <li>Records that can never succeed (not parseable, failing validation) go straight to
+ *     the dead-letter topic.</li>
+ * <li>Records failing for any other reason go to the retry topic, from where
+ *     {@link StockPriceRetryConsumer} republishes them to the stock price topic; records that
+ *     cannot be republished, and republished records failing again, go to the dead-letter topic
+ *     (see {@link #accept}).</li>
+ * </ul>
+ * Records keep their key, so all failures of a symbol land on one partition of the target topic.
+ * Besides the standard {@code kafka_dlt-*} headers (original topic, partition, offset, exception
+ * class and message) the records carry the {@link pro.finstream.broadcasting.common.error.ErrorCode}
+ * and data of a {@link BaseException} and the node that set them aside.
+ */
+@Component
+@Slf4j
+public class StockPriceRecoverer implements ConsumerRecordRecoverer {
+
+    /** Node that set the record aside */
+    public static final String NODE = "finstream.node";
+
+    /** ErrorCode of the failure, if it was a BaseException */
+    public static final String ERROR_CODE = "finstream.error-code";
+
+    /** Data of the BaseException, as logged */
+    public static final String ERROR_DATA = "finstream.error-data";
+
+    private final String nodeId;
+    private final DeadLetterPublishingRecoverer toRetry;
+    private final DeadLetterPublishingRecoverer toDeadLetter;
+    private final Counter retried;
+    private final Counter deserialization;
+    private final Counter invalid;
+    private final Counter exhausted;
+
+    public StockPriceRecoverer(
+        @Qualifier("recoveryKafkaTemplate") KafkaOperations<String, Object> template,
+        ClusterNode clusterNode,
+        MeterRegistry registry,
+        @Value("${finstream.kafka.topic.stock-prices-retry}") String retryTopic,
+        @Value("${finstream.kafka.topic.stock-prices-dlt}") String deadLetterTopic
+    ) {
+        this.nodeId = clusterNode.getNodeId();
+        this.toRetry = recoverer(template, retryTopic);
+        this.toDeadLetter = recoverer(template, deadLetterTopic);
+
+        this.retried = counter(registry, "retry", "processing");
+        this.deserialization = counter(registry, "dlt", "deserialization");
+        this.invalid = counter(registry, "dlt", "invalid");
+        this.exhausted = counter(registry, "dlt", "retries-exhausted");
+    }
+
+    /**
+     * Set aside a record of the stock price topic that failed with the given exception.
+     * Blocks until the record is written; throws if it could not be.
+     */
+    public void recover(ConsumerRecord<?, ?> record, Exception failure) {
+        if (failure instanceof DeserializationException) {
+            toDeadLetter.accept(record, failure);
+            deserialization.increment();
+        }
+        else if (failure instanceof BaseException) {
+            toDeadLetter.accept(record, failure);
+            invalid.increment();
+        }
+        else if (record.headers().lastHeader(StockPriceRetryConsumer.RETRIED_BY) != null) {
+            // Failed again after its retry, do not loop through the retry topic
+            toDeadLetter.accept(record, failure);
+            exhausted.increment();
+        }
+        else {
+            toRetry.accept(record, failure);
+            retried.increment();
+        }
+        log.debug("Stock price record set aside: topic={}, partition={}, offset={}, failure={}",
+            record.topic(), record.partition(), record.offset(), failure.getClass().getSimpleName());
+    }
+
+    /**
+     * Retries exhausted: dead-letter the record of the retry topic.
+     */
+    @Override
+    public void accept(ConsumerRecord<?, ?> record, Exception failure) {
+        toDeadLetter.accept(record, failure);
+        exhausted.increment();
+        log.warn("Stock price record dead-lettered after retries: partition={}, offset={}, key={}, error={}",
+            record.partition(), record.offset(), record.key(), failure.getMessage());
+    }
+
+    private DeadLetterPublishingRecoverer recoverer(KafkaOperations<String, Object> template, String topic) {
+        // Partition -1: let the producer partition by key instead of mirroring the source partition
+        DeadLetterPublishingRecoverer recoverer = new DeadLetterPublishingRecoverer(
+            template, (record, failure) -> new TopicPartition(topic, -1));
+        recoverer.setHeadersFunction(this::failureHeaders);
+        return recoverer;
+    }
+
+    private Headers failureHeaders(ConsumerRecord<?, ?> record, Exception failure) {
+        Headers headers = new RecordHeaders();
+        headers.add(NODE, nodeId.getBytes(StandardCharsets.UTF_8));
+        Throwable cause = failure;
+        while (cause != null && !(cause instanceof BaseException)) {
+            cause = cause.getCause();
+        }
+        if (cause instanceof BaseException e && e.getCode() != null) {
+            headers.add(ERROR_CODE, e.getCode().name().getBytes(StandardCharsets.UTF_8));
+            headers.add(ERROR_DATA, e.getData().toString().getBytes(StandardCharsets.UTF_8));
+        }
+        return headers;
+    }
+
+    private static Counter counter(MeterRegistry registry, String destination, String reason) {
+        return Counter.builder("finstream.kafka.records.recovered")
+            .description("Stock price records set aside, by destination topic and reason")
+            .tag("destination", destination)
+            .tag("reason", reason)
+            .register(registry);
+    }
+}
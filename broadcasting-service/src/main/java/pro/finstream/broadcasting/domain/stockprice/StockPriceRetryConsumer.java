@@ -0,0 +1,83 @@
+package pro.finstream.broadcasting.domain.stockprice;
+
+import java.nio.charset.StandardCharsets;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.Header;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.core.KafkaOperations;
+import org.springframework.stereotype.Service;
+import pro.finstream.broadcasting.domain.cluster.ClusterNode;
+
+/**
+ * Hands stock prices that failed on the main topic back to the main consumer, off the main
+ * consumer threads.
+ *
+ * Runs one record at a time in its own container (see {@code retryListenerContainerFactory}):
+ * the price is republished to the stock price topic, keyed by its symbol, so it lands on the
+ * partition of its symbol and is applied by the consumer thread owning that symbol. The
+ * LastValueCache, the update history and the delta baselines each have a single writer per
+ * symbol, which this consumer must not become. A record that cannot be republished is retried
+ * with a back-off and then dead-lettered by {@link StockPriceRecoverer}, while the stock price
+ * partitions keep flowing at full rate.
+ *
+ * Republished records carry the {@value #RETRIED_BY} header. The main consumer applies them only
+ * if they are still newer than the cached price of their symbol (by the time a price is retried a
+ * later tick has usually superseded it) and dead-letters them if they fail again. In clustered
+ * mode every node sets aside its own copy of a failed record, so each node only retries, and
+ * applies, the records it set aside itself.
+ */
+@Service
+@Slf4j
+public class StockPriceRetryConsumer {
+
+    /** Node that republished the record from the retry topic */
+    public static final String RETRIED_BY = "finstream.retried-by";
+
+    private final KafkaOperations<String, Object> template;
+    private final ClusterNode clusterNode;
+    private final String stockPricesTopic;
+
+    public StockPriceRetryConsumer(
+        @Qualifier("recoveryKafkaTemplate") KafkaOperations<String, Object> template,
+        ClusterNode clusterNode,
+        @Value("${finstream.kafka.topic.stock-prices}") String stockPricesTopic
+    ) {
+        this.template = template;
+        this.clusterNode = clusterNode;
+        this.stockPricesTopic = stockPricesTopic;
+    }
+
+    @KafkaListener(
+        topics = "${finstream.kafka.topic.stock-prices-retry}",
+        groupId = "#{@clusterNode.consumerGroupId + '-retry'}",
+        properties = {
+            "auto.offset.reset=#{@clusterNode.autoOffsetReset}",
+            "spring.deserializer.value.delegate.class=pro.finstream.broadcasting.domain.stockprice.StockPriceDeserializer"
+        },
+        containerFactory = "retryListenerContainerFactory",
+        concurrency = "1"
+    )
+    public void retryStockPrice(ConsumerRecord<String, StockPrice> record) {
+        if (clusterNode.isClustered() && !clusterNode.getNodeId().equals(header(record, StockPriceRecoverer.NODE))) {
+            return;
+        }
+
+        StockPrice stockPrice = record.value();
+        ProducerRecord<String, Object> republished = new ProducerRecord<>(stockPricesTopic, stockPrice.symbol(), stockPrice);
+        republished.headers().add(RETRIED_BY, clusterNode.getNodeId().getBytes(StandardCharsets.UTF_8));
+
+        // Blocks until written, a failure is retried by the container
+        template.send(republished).join();
+        log.info("Retried stock price republished: symbol={}, partition={}, offset={}",
+            stockPrice.symbol(), record.partition(), record.offset());
+    }
+
+    static String header(ConsumerRecord<?, ?> record, String name) {
+        Header header = record.headers().lastHeader(name);
+        return header != null ? new String(header.value(), StandardCharsets.UTF_8) : null;
+    }
+}
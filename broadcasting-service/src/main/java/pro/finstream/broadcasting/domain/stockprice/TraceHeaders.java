@@ -0,0 +1,15 @@
+package pro.finstream.broadcasting.domain.stockprice;
+
+/**
+ * Kafka record headers with the hop timestamps set by the stock service.
+ *
+ * Values are epoch milliseconds as ASCII decimal strings.
+ */
+public interface TraceHeaders {
+
+    /** Finnhub quote received by the stock service */
+    String FETCHED_AT = "finstream.fetched-at";
+
+    /** Event handed to the Kafka producer of the stock service */
+    String PUBLISHED_AT = "finstream.published-at";
+}
@@ -0,0 +1,149 @@
+package pro.finstream.broadcasting.domain.stomp;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import pro.finstream.broadcasting.common.error.BaseException;
+import pro.finstream.broadcasting.common.error.ErrorCode;
+
+/**
+ * Admission control for STOMP CONNECT frames, applied by the inbound JWT interceptor.
+ *
+ * Two checks, both lock-free:
+ * <ul>
+ * <li>A node-wide token bucket on the CONNECT rate, checked before the token is verified so a
+ *     reconnect storm is shed at almost no cost. Implemented as a virtual scheduling (GCRA)
+ *     bucket: a single {@link AtomicLong} holding the time at which the bucket is full again.</li>
+ * <li>{@code max-connections-per-user}, with one {@link AtomicInteger} per user. A counter that
+ *     drops to zero is retired (set to -1) before it is removed from the map, so a concurrent
+ *     CONNECT never counts against a counter that is no longer in the map.</li>
+ * </ul>
+ * A slot is held from CONNECT until the session's disconnect event, which Spring also publishes
+ * for sessions that never completed the handshake. Raw WebSocket endpoints have no CONNECT frame;
+ * they are admitted at the handshake and release their slot themselves, see {@link #release}.
+ *
+ * Meters: {@code finstream.websocket.connect.rejected} tagged {@code reason=rate|user-limit},
+ * {@code finstream.websocket.connect.admitted}.
+ */
+@Component
+@Slf4j
+public class ConnectionAdmission {
+
+    private final int maxConnectionsPerUser;
+    private final long intervalNanos;
+    private final long burstNanos;
+    private final AtomicLong bucketFullAt = new AtomicLong(System.nanoTime());
+    private final Map<String, AtomicInteger> connectionsByUser = new ConcurrentHashMap<>();
+    private final Map<String, String> admittedSessions = new ConcurrentHashMap<>();
+    private final Counter admitted;
+    private final Counter rejectedRate;
+    private final Counter rejectedUserLimit;
+
+    public ConnectionAdmission(
+        MeterRegistry registry,
+        @Value("${finstream.websocket.max-connections-per-user}") int maxConnectionsPerUser,
+        @Value("${finstream.websocket.admission.connect-rate}") int connectRate,
+        @Value("${finstream.websocket.admission.connect-burst}") int connectBurst
+    ) {
+        this.maxConnectionsPerUser = maxConnectionsPerUser;
+        this.intervalNanos = TimeUnit.SECONDS.toNanos(1) / Math.max(1, connectRate);
+        this.burstNanos = intervalNanos * Math.max(1, connectBurst);
+
+        this.admitted = Counter.builder("finstream.websocket.connect.admitted")
+            .description("STOMP CONNECTs admitted")
+            .register(registry);
+        this.rejectedRate = Counter.builder("finstream.websocket.connect.rejected")
+            .description("STOMP CONNECTs rejected by admission control")
+            .tag("reason", "rate")
+            .register(registry);
+        this.rejectedUserLimit = Counter.builder("finstream.websocket.connect.rejected")
+            .description("STOMP CONNECTs rejected by admission control")
+            .tag("reason", "user-limit")
+            .register(registry);
+    }
+
+    /**
+     * Take one token from the CONNECT rate bucket.
+     *
+     * @throws BaseException E_RATE_LIMIT_EXCEEDED if the bucket is empty
+     */
+    public void acquireConnectPermit(String sessionId) {
+        while (true) {
+            long now = System.nanoTime();
+            long fullAt = bucketFullAt.get();
+            long next = Math.max(fullAt, now) + intervalNanos;
+            if (next - now > burstNanos) {
+                rejectedRate.increment();
+                throw BaseException.webSocketError(ErrorCode.E_RATE_LIMIT_EXCEEDED, sessionId,
+                    "reason", "CONNECT rate limit exceeded, retry later");
+            }
+            if (bucketFullAt.compareAndSet(fullAt, next)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Reserve a connection slot of the given user for the session.
+     *
+     * @throws BaseException E_CONNECTION_LIMIT_EXCEEDED if the user holds max-connections-per-user
+     */
+    public void admitUser(String sessionId, String userId) {
+        while (true) {
+            AtomicInteger connections = connectionsByUser.computeIfAbsent(userId, u -> new AtomicInteger());
+            int current = connections.get();
+            if (current < 0) {
+                // Retired by a concurrent release, the map holds (or will hold) a fresh counter
+                connectionsByUser.remove(userId, connections);
+                continue;
+            }
+            if (current >= maxConnectionsPerUser) {
+                rejectedUserLimit.increment();
+                throw BaseException.webSocketError(ErrorCode.E_CONNECTION_LIMIT_EXCEEDED, sessionId,
+                    "userId", userId, "maxConnectionsPerUser", maxConnectionsPerUser);
+            }
+            if (connections.compareAndSet(current, current + 1)) {
+                admittedSessions.put(sessionId, userId);
+                admitted.increment();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Release the slot of a disconnected session; published possibly more than once per session.
+     */
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        release(event.getSessionId());
+    }
+
+    /**
+     * Release the slot reserved for the session, if any; may be called more than once per session.
+     */
+    public void release(String sessionId) {
+        String userId = admittedSessions.remove(sessionId);
+        if (userId == null) {
+            return;
+        }
+
+        AtomicInteger connections = connectionsByUser.get(userId);
+        if (connections != null && connections.decrementAndGet() == 0 && connections.compareAndSet(0, -1)) {
+            connectionsByUser.remove(userId, connections);
+        }
+    }
+
+    public int getConnectionCount(String userId) {
+        AtomicInteger connections = connectionsByUser.get(userId);
+        return connections != null ? Math.max(0, connections.get()) : 0;
+    }
+}
@@ -0,0 +1,21 @@
+package pro.finstream.broadcasting.domain.stomp;
+
+public interface Destinations {
+    String TOPIC_PREFIX                 = "/topic";
+    String USER_PREFIX                  = "/user";
+    String APP_PREFIX                   = "/app";
+
+    String TOPIC_STOCK_PRICES           = "/topic/stocks/prices";
+    String TOPIC_STOCK_PRICES_SYMBOL    = "/topic/stocks/prices/";
+    String TOPIC_STOCK_DELTAS           = "/topic/stocks/deltas";
+    String TOPIC_STOCK_MOVERS           = "/topic/stocks/movers";
+    String TOPIC_SYSTEM_NOTIFICATIONS   = "/topic/system/notifications";
+    String TOPIC_USER_WATCHLIST         = "/topic/watchlist";
+    String TOPIC_USER_WATCHLIST_PRICES  = "/topic/watchlist/prices";
+    String USER_WATCHLIST_PRICES        = "/user/topic/watchlist/prices";
+
+    String HEADER_SYMBOL                = "symbol";
+    String HEADER_SYMBOLS               = "symbols";
+    String HEADER_SEQ                   = "seq";
+    String HEADER_RESUME_FROM           = "resume-from";
+}
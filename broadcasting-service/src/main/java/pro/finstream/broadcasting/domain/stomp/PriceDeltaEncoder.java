@@ -0,0 +1,189 @@
+package pro.finstream.broadcasting.domain.stomp;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import pro.finstream.broadcasting.domain.stockprice.CachedPrice;
+import pro.finstream.broadcasting.domain.stockprice.StockPrice;
+
+/**
+ * Encodes price updates as compact deltas against the previous update of the same symbol.
+ *
+ * Wire format (JSON, short keys):
+ * <pre>
+ * keyframe: {"s":"AAPL","q":812,"k":1,"m":255,"p":..,"c":..,"cp":..,"h":..,"l":..,"t":..,"src":..,"pa":..}
+ * delta:    {"s":"AAPL","q":845,"b":812,"m":35,"p":..,"c":..,"t":30}
+ * </pre>
+ * {@code q} is the update sequence, {@code b} the sequence the delta applies to and {@code m} the
+ * field mask (see the {@code F_*} constants); only fields whose bit is set are present. In a
+ * delta, {@code t} (provider timestamp) and {@code pa} (processedAt, epoch millis UTC) are sent
+ * as differences to the base value, in a keyframe as absolute values.
+ *
+ * A client takes its per-session baseline from the keyframes sent on subscribe and applies a
+ * delta only if it holds sequence {@code b} for that symbol; otherwise it drops the symbol until
+ * the next keyframe, which is sent every {@code keyframe-interval} updates of a symbol.
+ *
+ * Each update is encoded once and shared by all delta subscribers. State per symbol is only
+ * written by the consumer thread owning the symbol's partition.
+ */
+@Component
+public class PriceDeltaEncoder {
+
+    public static final int F_PRICE          = 1;
+    public static final int F_CHANGE         = 1 << 1;
+    public static final int F_CHANGE_PERCENT = 1 << 2;
+    public static final int F_HIGH           = 1 << 3;
+    public static final int F_LOW            = 1 << 4;
+    public static final int F_TIMESTAMP      = 1 << 5;
+    public static final int F_SOURCE         = 1 << 6;
+    public static final int F_PROCESSED_AT   = 1 << 7;
+    public static final int F_ALL            = (1 << 8) - 1;
+
+    private final JsonFactory jsonFactory;
+    private final int keyframeInterval;
+    private final Map<String, SymbolState> states = new ConcurrentHashMap<>();
+
+    public PriceDeltaEncoder(
+        ObjectMapper objectMapper,
+        @Value("${finstream.websocket.delta.keyframe-interval:20}") int keyframeInterval
+    ) {
+        this.jsonFactory = objectMapper.getFactory();
+        this.keyframeInterval = keyframeInterval;
+    }
+
+    /**
+     * Encode the given update relative to the previous update of its symbol. Returns a keyframe for
+     * the first update of a symbol and for every {@code keyframe-interval}th update after that.
+     */
+    public byte[] encode(CachedPrice current) {
+        SymbolState state = states.get(current.symbol());
+
+        if (state == null || state.sinceKeyframe + 1 >= keyframeInterval) {
+            byte[] keyframe = write(current, null, F_ALL);
+            states.put(current.symbol(), new SymbolState(current, 0, keyframe));
+            return keyframe;
+        }
+
+        CachedPrice base = state.last;
+        byte[] delta = write(current, base, changedFields(base.price(), current.price()));
+        states.put(current.symbol(), new SymbolState(current, state.sinceKeyframe + 1, null));
+        return delta;
+    }
+
+    /**
+     * Keyframe of the given price, used as per-session baseline on subscribe. Reuses the encoded
+     * keyframe if the price is the one the last keyframe was written for.
+     */
+    public byte[] keyframe(CachedPrice cached) {
+        SymbolState state = states.get(cached.symbol());
+        if (state != null && state.keyframe != null && state.last.sequence() == cached.sequence()) {
+            return state.keyframe;
+        }
+        return write(cached, null, F_ALL);
+    }
+
+    static int changedFields(StockPrice base, StockPrice current) {
+        int mask = 0;
+        if (!same(base.price(), current.price())) mask |= F_PRICE;
+        if (!same(base.change(), current.change())) mask |= F_CHANGE;
+        if (!same(base.changePercent(), current.changePercent())) mask |= F_CHANGE_PERCENT;
+        if (!same(base.high(), current.high())) mask |= F_HIGH;
+        if (!same(base.low(), current.low())) mask |= F_LOW;
+        if (!Objects.equals(base.timestamp(), current.timestamp())) mask |= F_TIMESTAMP;
+        if (!Objects.equals(base.source(), current.source())) mask |= F_SOURCE;
+        if (!Objects.equals(base.processedAt(), current.processedAt())) mask |= F_PROCESSED_AT;
+        return mask;
+    }
+
+    private static boolean same(BigDecimal a, BigDecimal b) {
+        return a == null ? b == null : b != null && a.compareTo(b) == 0;
+    }
+
+    private byte[] write(CachedPrice current, CachedPrice base, int mask) {
+        StockPrice price = current.price();
+        StockPrice basePrice = base != null ? base.price() : null;
+        ByteArrayOutputStream out = new ByteArrayOutputStream(96);
+
+        try (JsonGenerator json = jsonFactory.createGenerator(out)) {
+            json.writeStartObject();
+            json.writeStringField("s", price.symbol());
+            json.writeNumberField("q", current.sequence());
+            if (base == null) {
+                json.writeNumberField("k", 1);
+            }
+            else {
+                json.writeNumberField("b", base.sequence());
+            }
+            json.writeNumberField("m", mask);
+
+            if ((mask & F_PRICE) != 0) writeDecimal(json, "p", price.price());
+            if ((mask & F_CHANGE) != 0) writeDecimal(json, "c", price.change());
+            if ((mask & F_CHANGE_PERCENT) != 0) writeDecimal(json, "cp", price.changePercent());
+            if ((mask & F_HIGH) != 0) writeDecimal(json, "h", price.high());
+            if ((mask & F_LOW) != 0) writeDecimal(json, "l", price.low());
+            if ((mask & F_TIMESTAMP) != 0) {
+                writeLong(json, "t", difference(price.timestamp(), basePrice != null ? basePrice.timestamp() : null));
+            }
+            if ((mask & F_SOURCE) != 0) {
+                json.writeStringField("src", price.source());
+            }
+            if ((mask & F_PROCESSED_AT) != 0) {
+                writeLong(json, "pa", difference(epochMillis(price.processedAt()),
+                    basePrice != null ? epochMillis(basePrice.processedAt()) : null));
+            }
+            json.writeEndObject();
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private static void writeDecimal(JsonGenerator json, String field, BigDecimal value) throws IOException {
+        json.writeFieldName(field);
+        if (value == null) {
+            json.writeNull();
+        }
+        else {
+            json.writeNumber(value);
+        }
+    }
+
+    private static void writeLong(JsonGenerator json, String field, Long value) throws IOException {
+        json.writeFieldName(field);
+        if (value == null) {
+            json.writeNull();
+        }
+        else {
+            json.writeNumber(value);
+        }
+    }
+
+    /**
+     * Absolute value in keyframes (no base), difference to the base in deltas. If either side of a
+     * delta is missing the absolute value is sent, which clients tell apart by the base being null.
+     */
+    private static Long difference(Long value, Long base) {
+        if (value == null || base == null) {
+            return value;
+        }
+        return value - base;
+    }
+
+    private static Long epochMillis(LocalDateTime time) {
+        return time != null ? time.toInstant(ZoneOffset.UTC).toEpochMilli() : null;
+    }
+
+    private record SymbolState(CachedPrice last, int sinceKeyframe, byte[] keyframe) {}
+}
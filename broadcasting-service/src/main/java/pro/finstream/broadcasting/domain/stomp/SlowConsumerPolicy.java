@@ -0,0 +1,126 @@
+package pro.finstream.broadcasting.domain.stomp;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+import org.springframework.web.socket.handler.WebSocketHandlerDecoratorFactory;
+
+/**
+ * Slow-consumer policy for STOMP WebSocket sessions: conflate first, evict on sustained overflow.
+ *
+ * Installed as a handler decorator on the WebSocket transport, it wraps every new session in a
+ * {@link SlowConsumerSessionDecorator} before the STOMP handler sees it, and keeps track of the
+ * sessions for queue depth metrics.
+ */
+@Component
+public class SlowConsumerPolicy {
+
+    @Getter private final int sendBufferSizeLimit;
+    @Getter private final int sendTimeLimit;
+    @Getter private final int maxQueuedFrames;
+    @Getter private final int highWaterMark;
+    @Getter private final long evictAfter;
+
+    private final Map<String, SlowConsumerSessionDecorator> sessions = new ConcurrentHashMap<>();
+    private final MeterRegistry registry;
+    private final Counter conflated;
+
+    public SlowConsumerPolicy(
+        MeterRegistry registry,
+        @Value("${finstream.websocket.send-buffer-size}") int sendBufferSizeLimit,
+        @Value("${finstream.websocket.send-time-limit}") int sendTimeLimit,
+        @Value("${finstream.websocket.slow-consumer.max-queued-frames}") int maxQueuedFrames,
+        @Value("${finstream.websocket.slow-consumer.high-water-mark}") int highWaterMark,
+        @Value("${finstream.websocket.slow-consumer.evict-after}") long evictAfter
+    ) {
+        this.registry = registry;
+        this.sendBufferSizeLimit = sendBufferSizeLimit;
+        this.sendTimeLimit = sendTimeLimit;
+        this.maxQueuedFrames = maxQueuedFrames;
+        this.highWaterMark = highWaterMark;
+        this.evictAfter = evictAfter;
+
+        this.conflated = Counter.builder("finstream.websocket.conflated")
+            .description("Queued price frames replaced by a newer frame for the same symbol")
+            .register(registry);
+        Gauge.builder("finstream.websocket.queue.depth.total", this, SlowConsumerPolicy::getTotalQueueDepth)
+            .description("Outbound frames queued over all WebSocket sessions")
+            .register(registry);
+        Gauge.builder("finstream.websocket.queue.depth.max", this, SlowConsumerPolicy::getMaxQueueDepth)
+            .description("Outbound frames queued for the most backlogged WebSocket session")
+            .register(registry);
+    }
+
+    /**
+     * Handler decorator factory to add to the WebSocket transport registration.
+     */
+    public WebSocketHandlerDecoratorFactory decoratorFactory() {
+        return handler -> new WebSocketHandlerDecorator(handler) {
+
+            @Override
+            public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+                SlowConsumerSessionDecorator decorated = new SlowConsumerSessionDecorator(session, SlowConsumerPolicy.this);
+                sessions.put(session.getId(), decorated);
+                super.afterConnectionEstablished(decorated);
+            }
+
+            @Override
+            public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+                sessions.remove(session.getId());
+                super.afterConnectionClosed(session, closeStatus);
+            }
+        };
+    }
+
+    public int getSessionCount() {
+        return sessions.size();
+    }
+
+    /**
+     * Current outbound queue depth per session id, for sessions with at least one queued frame.
+     */
+    public Map<String, Integer> getQueueDepths() {
+        Map<String, Integer> depths = new HashMap<>();
+        sessions.forEach((id, session) -> {
+            int depth = session.getQueueDepth();
+            if (depth > 0) {
+                depths.put(id, depth);
+            }
+        });
+        return depths;
+    }
+
+    void recordConflated() {
+        conflated.increment();
+    }
+
+    void recordEviction(String reason) {
+        registry.counter("finstream.websocket.evictions", "reason", reason).increment();
+    }
+
+    private double getTotalQueueDepth() {
+        long total = 0;
+        for (SlowConsumerSessionDecorator session : sessions.values()) {
+            total += session.getQueueDepth();
+        }
+        return total;
+    }
+
+    private double getMaxQueueDepth() {
+        int max = 0;
+        for (SlowConsumerSessionDecorator session : sessions.values()) {
+            max = Math.max(max, session.getQueueDepth());
+        }
+        return max;
+    }
+}
@@ -0,0 +1,212 @@
+package pro.finstream.broadcasting.domain.stomp;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketSessionDecorator;
+
+/**
+ * Session decorator that never blocks the sender and conflates stale price updates.
+ *
+ * Outbound frames are queued and written by a virtual thread, one at a time. A STOMP MESSAGE
+ * carrying a {@code symbol} header replaces a still-queued frame for the same subscription and
+ * symbol in place, so a slow client gets the latest price instead of a growing backlog. Frames
+ * without that header (deltas, notifications, receipts, ...) are never dropped.
+ *
+ * The session is closed when the queued bytes or frames exceed their hard limits, when a single
+ * write takes longer than the send-time limit, or when the queue stays above the high-water
+ * mark for longer than the eviction delay.
+ */
+@Slf4j
+final class SlowConsumerSessionDecorator extends WebSocketSessionDecorator {
+
+    private static final String FRAME_PREFIX = "MESSAGE\n";
+    private static final String SYMBOL_HEADER = "\n" + Destinations.HEADER_SYMBOL + ":";
+    private static final String SUBSCRIPTION_HEADER = "\nsubscription:";
+
+    private final SlowConsumerPolicy policy;
+    private final ArrayDeque<Pending> queue = new ArrayDeque<>();
+    private final Map<String, Pending> pendingByKey = new HashMap<>();
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private final AtomicBoolean evicted = new AtomicBoolean();
+
+    // Guarded by queue
+    private long queuedBytes;
+    private long overflowSince = -1;
+
+    private volatile long sendStartedAt = -1;
+
+    SlowConsumerSessionDecorator(WebSocketSession session, SlowConsumerPolicy policy) {
+        super(session);
+        this.policy = policy;
+    }
+
+    @Override
+    public void sendMessage(WebSocketMessage<?> message) throws IOException {
+        if (evicted.get()) {
+            return;
+        }
+
+        String key = conflationKey(message);
+        String evictionReason;
+
+        synchronized (queue) {
+            Pending pending = key != null ? pendingByKey.get(key) : null;
+            if (pending != null) {
+                queuedBytes += message.getPayloadLength() - pending.message.getPayloadLength();
+                pending.message = message;
+                policy.recordConflated();
+            }
+            else {
+                pending = new Pending(key, message);
+                queue.addLast(pending);
+                queuedBytes += message.getPayloadLength();
+                if (key != null) {
+                    pendingByKey.put(key, pending);
+                }
+            }
+            evictionReason = checkLimits(System.currentTimeMillis());
+        }
+
+        if (evictionReason != null) {
+            evict(evictionReason);
+        }
+        else if (draining.compareAndSet(false, true)) {
+            Thread.ofVirtual().name("finstream-ws-send-" + getId()).start(this::drain);
+        }
+    }
+
+    int getQueueDepth() {
+        synchronized (queue) {
+            return queue.size();
+        }
+    }
+
+    private void drain() {
+        while (!evicted.get()) {
+            Pending next;
+            synchronized (queue) {
+                next = queue.pollFirst();
+                if (next == null) {
+                    // Reset inside the lock: a sender enqueuing after this starts a new drainer
+                    draining.set(false);
+                    return;
+                }
+                if (next.key != null) {
+                    pendingByKey.remove(next.key);
+                }
+                queuedBytes -= next.message.getPayloadLength();
+            }
+
+            sendStartedAt = System.currentTimeMillis();
+            try {
+                getDelegate().sendMessage(next.message);
+            }
+            catch (IOException | RuntimeException e) {
+                log.debug("WebSocket send failed: sessionId={}, error={}", getId(), e.getMessage());
+                evict("send-failed");
+            }
+            finally {
+                sendStartedAt = -1;
+            }
+        }
+        draining.set(false);
+    }
+
+    /**
+     * Must be called holding the queue lock.
+     */
+    private String checkLimits(long now) {
+        if (queuedBytes > policy.getSendBufferSizeLimit() || queue.size() > policy.getMaxQueuedFrames()) {
+            return "buffer-limit";
+        }
+
+        long started = sendStartedAt;
+        if (started > 0 && now - started > policy.getSendTimeLimit()) {
+            return "send-time-limit";
+        }
+
+        if (queue.size() <= policy.getHighWaterMark()) {
+            overflowSince = -1;
+        }
+        else if (overflowSince < 0) {
+            overflowSince = now;
+        }
+        else if (now - overflowSince > policy.getEvictAfter()) {
+            return "sustained-overflow";
+        }
+        return null;
+    }
+
+    private void evict(String reason) {
+        // Limits are checked by every sender and the drainer, only the first one closes the session
+        if (!evicted.compareAndSet(false, true)) {
+            return;
+        }
+
+        int depth;
+        synchronized (queue) {
+            depth = queue.size();
+            queue.clear();
+            pendingByKey.clear();
+            queuedBytes = 0;
+        }
+
+        policy.recordEviction(reason);
+        log.warn("Evicting slow WebSocket consumer: sessionId={}, reason={}, queued={}", getId(), reason, depth);
+
+        try {
+            getDelegate().close(CloseStatus.SESSION_NOT_RELIABLE);
+        }
+        catch (IOException e) {
+            log.debug("Closing evicted WebSocket session failed: sessionId={}", getId(), e);
+        }
+    }
+
+    /**
+     * Subscription and symbol of a STOMP price MESSAGE frame, or null if the frame must not be conflated.
+     */
+    static String conflationKey(WebSocketMessage<?> message) {
+        if (!(message instanceof TextMessage text)) {
+            return null;
+        }
+
+        String frame = text.getPayload();
+        if (!frame.startsWith(FRAME_PREFIX)) {
+            return null;
+        }
+
+        int headersEnd = frame.indexOf("\n\n");
+        String symbol = headerValue(frame, SYMBOL_HEADER, headersEnd);
+        if (symbol == null) {
+            return null;
+        }
+        return headerValue(frame, SUBSCRIPTION_HEADER, headersEnd) + '|' + symbol;
+    }
+
+    private static String headerValue(String frame, String header, int headersEnd) {
+        int start = frame.indexOf(header, FRAME_PREFIX.length() - 1);
+        if (start < 0 || start > headersEnd) {
+            return null;
+        }
+        start += header.length();
+        return frame.substring(start, frame.indexOf('\n', start));
+    }
+
+    private static final class Pending {
+        final String key;
+        WebSocketMessage<?> message;
+
+        Pending(String key, WebSocketMessage<?> message) {
+            this.key = key;
+            this.message = message;
+        }
+    }
+}
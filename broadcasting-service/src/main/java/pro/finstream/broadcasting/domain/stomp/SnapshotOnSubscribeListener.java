@@ -0,0 +1,226 @@
+package pro.finstream.broadcasting.domain.stomp;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.security.Principal;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.broker.SimpleBrokerMessageHandler;
+import org.springframework.messaging.support.AbstractSubscribableChannel;
+import org.springframework.messaging.support.ExecutorChannelInterceptor;
+import org.springframework.stereotype.Component;
+import pro.finstream.broadcasting.domain.movers.TopMoversIndex;
+import pro.finstream.broadcasting.domain.stockprice.CachedPrice;
+import pro.finstream.broadcasting.domain.stockprice.LastValueCache;
+import pro.finstream.broadcasting.domain.stomp.UpdateHistory.Update;
+import pro.finstream.broadcasting.domain.watchlist.WatchlistIndex;
+
+/**
+ * Pushes the current price snapshot to a client as soon as it subscribes to the price topic.
+ *
+ * Without this a new subscriber sees nothing until the next tick, which may take minutes for
+ * illiquid symbols. The snapshot is written straight to the subscriber's session on the client
+ * outbound channel, so other subscribers are not affected, and it reuses the JSON payloads
+ * held by the {@link LastValueCache}.
+ *
+ * The snapshot is read only after the simple broker has registered the subscription, hooked in
+ * after the broker handled the SUBSCRIBE on the client inbound channel, or on the broker channel
+ * for user destinations, which reach the broker from the {@code UserDestinationMessageHandler}.
+ * A tick is in the cache before it is broadcast, so each one either reaches the new subscription
+ * live or is in the snapshot. The {@code SessionSubscribeEvent} comes too early for this: it is
+ * published before the SUBSCRIBE is sent on to the broker.
+ *
+ * Snapshot frames do not pass the broker's per-session ordering, so a live tick sent meanwhile
+ * may overtake the snapshot entry of its symbol. Every frame carries its {@code seq}; clients
+ * apply a price only if its sequence is above the last one applied for the symbol.
+ *
+ * Subscribers of the delta topic receive keyframes instead, see {@link PriceDeltaEncoder}.
+ * Subscribers of the movers topic receive the latest published top movers, see {@link TopMoversIndex}.
+ *
+ * Clients may restrict the snapshot with a comma-separated {@code symbols} header on SUBSCRIBE;
+ * subscribers of a per-symbol destination get the price of that symbol only, subscribers of
+ * {@code /user/topic/watchlist/prices} the prices of the symbols on their watchlist.
+ *
+ * A reconnecting client sends {@code resume-from} with the sequence of the last message it
+ * received per symbol, {@code <epoch>:AAPL=123,MSFT=118}, taken from the {@code seq} headers. A
+ * single sequence is no resume point, since symbols reach clients in no global order (see
+ * {@link LastValueCache}). If the vector was issued by this node's current epoch, the client gets
+ * only the updates it missed, from the {@link UpdateHistory}: per symbol, every missed update in
+ * order (price JSON or delta), nothing for symbols without changes, and the snapshot entry for
+ * symbols missing from the vector or whose history no longer reaches back that far. Live updates
+ * may interleave with the replay in the same way.
+ */
+@Component
+@Slf4j
+public class SnapshotOnSubscribeListener implements ExecutorChannelInterceptor {
+
+    private final LastValueCache lastValueCache;
+    private final PriceDeltaEncoder deltaEncoder;
+    private final UpdateHistory updateHistory;
+    private final WatchlistIndex watchlistIndex;
+    private final TopMoversIndex topMoversIndex;
+    private final MessageChannel clientOutboundChannel;
+    private final Counter resumed;
+    private final Counter snapshots;
+
+    public SnapshotOnSubscribeListener(
+        LastValueCache lastValueCache,
+        PriceDeltaEncoder deltaEncoder,
+        UpdateHistory updateHistory,
+        WatchlistIndex watchlistIndex,
+        TopMoversIndex topMoversIndex,
+        MeterRegistry registry,
+        @Qualifier("clientInboundChannel") AbstractSubscribableChannel clientInboundChannel,
+        @Qualifier("brokerChannel") AbstractSubscribableChannel brokerChannel,
+        @Qualifier("clientOutboundChannel") MessageChannel clientOutboundChannel
+    ) {
+        this.lastValueCache = lastValueCache;
+        this.deltaEncoder = deltaEncoder;
+        this.updateHistory = updateHistory;
+        this.watchlistIndex = watchlistIndex;
+        this.topMoversIndex = topMoversIndex;
+        this.clientOutboundChannel = clientOutboundChannel;
+
+        this.resumed = Counter.builder("finstream.websocket.subscribe.initial")
+            .description("Subscriptions served on subscribe, by kind of initial state")
+            .tag("kind", "resume")
+            .register(registry);
+        this.snapshots = Counter.builder("finstream.websocket.subscribe.initial")
+            .description("Subscriptions served on subscribe, by kind of initial state")
+            .tag("kind", "snapshot")
+            .register(registry);
+
+        // Registered here rather than in WebSocketConfig, whose channels this bean depends on
+        clientInboundChannel.addInterceptor(this);
+        brokerChannel.addInterceptor(this);
+    }
+
+    @Override
+    public void afterMessageHandled(Message<?> message, MessageChannel channel, MessageHandler handler, Exception ex) {
+        if (ex != null || !(handler instanceof SimpleBrokerMessageHandler)) {
+            return;
+        }
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(message);
+        if (accessor.getMessageType() != SimpMessageType.SUBSCRIBE) {
+            return;
+        }
+
+        // A user destination is registered under its resolved form, which carries the subscribed one
+        String destination = accessor.getFirstNativeHeader(SimpMessageHeaderAccessor.ORIGINAL_DESTINATION);
+        if (destination == null) {
+            destination = accessor.getDestination();
+            if (destination == null || destination.startsWith(Destinations.USER_PREFIX)) {
+                return;
+            }
+        }
+        sendInitialState(accessor, destination);
+    }
+
+    private void sendInitialState(SimpMessageHeaderAccessor accessor, String destination) {
+        Principal user = accessor.getUser();
+
+        if (Destinations.TOPIC_STOCK_MOVERS.equals(destination)) {
+            clientOutboundChannel.send(StompMessages.jsonToSubscriber(topMoversIndex.current().payload(),
+                accessor.getSessionId(), accessor.getSubscriptionId(), destination, null, null));
+            return;
+        }
+
+        boolean deltas = Destinations.TOPIC_STOCK_DELTAS.equals(destination);
+        boolean watchlist = Destinations.USER_WATCHLIST_PRICES.equals(destination);
+        String symbol = SubscriptionRegistry.symbolOf(destination);
+        if (!deltas && !watchlist && symbol == null && !Destinations.TOPIC_STOCK_PRICES.equals(destination)) {
+            return;
+        }
+        if (watchlist && user == null) {
+            return;
+        }
+
+        Collection<CachedPrice> current;
+        if (watchlist) {
+            current = lastValueCache.get(watchlistIndex.symbolsOf(user.getName()));
+        }
+        else if (symbol != null) {
+            current = lastValueCache.get(List.of(symbol));
+        }
+        else {
+            current = requestedPrices(accessor.getFirstNativeHeader(Destinations.HEADER_SYMBOLS));
+        }
+        Target target = new Target(accessor.getSessionId(), accessor.getSubscriptionId(), destination, deltas);
+
+        Map<String, Long> resumeFrom = lastValueCache.resumeVectorOf(accessor.getFirstNativeHeader(Destinations.HEADER_RESUME_FROM));
+        int sent = resumeFrom != null ? resume(target, current, resumeFrom) : snapshot(target, current);
+
+        log.debug("Initial state sent on subscribe: sessionId={}, subscriptionId={}, resumedSymbols={}, messages={}",
+            accessor.getSessionId(), accessor.getSubscriptionId(), resumeFrom != null ? resumeFrom.size() : -1, sent);
+    }
+
+    private int snapshot(Target target, Collection<CachedPrice> current) {
+        snapshots.increment();
+        for (CachedPrice cached : current) {
+            sendLatest(target, cached);
+        }
+        return current.size();
+    }
+
+    private int resume(Target target, Collection<CachedPrice> current, Map<String, Long> resumeFrom) {
+        resumed.increment();
+        int sent = 0;
+        for (CachedPrice cached : current) {
+            Long received = resumeFrom.get(cached.symbol());
+            if (received == null) {
+                sendLatest(target, cached);
+                sent++;
+                continue;
+            }
+            if (cached.sequence() <= received) {
+                continue;
+            }
+
+            List<Update> missed = updateHistory.since(cached.symbol(), received);
+            if (missed == null || missed.isEmpty()) {
+                // Gap too large (or history not yet written for this update): fall back to the latest value
+                sendLatest(target, cached);
+                sent++;
+                continue;
+            }
+            for (Update update : missed) {
+                byte[] payload = target.deltas() ? update.delta() : update.price().payload();
+                send(target, payload, update.price());
+                sent++;
+            }
+        }
+        return sent;
+    }
+
+    private void sendLatest(Target target, CachedPrice cached) {
+        // Delta subscribers get keyframes, which become their per-session baseline
+        send(target, target.deltas() ? deltaEncoder.keyframe(cached) : cached.payload(), cached);
+    }
+
+    private void send(Target target, byte[] payload, CachedPrice price) {
+        clientOutboundChannel.send(StompMessages.jsonToSubscriber(
+            payload, target.sessionId(), target.subscriptionId(), target.destination(),
+            target.deltas() ? null : price.symbol(), lastValueCache.position(price)));
+    }
+
+    private Collection<CachedPrice> requestedPrices(String symbols) {
+        if (symbols == null || symbols.isBlank()) {
+            return lastValueCache.getAll();
+        }
+        return lastValueCache.get(Arrays.stream(symbols.split(","))
+            .map(String::trim)
+            .filter(s -> !s.isEmpty())
+            .toList());
+    }
+
+    private record Target(String sessionId, String subscriptionId, String destination, boolean deltas) {}
+}
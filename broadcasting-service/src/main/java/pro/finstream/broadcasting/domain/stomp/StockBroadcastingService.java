@@ -1,15 +1,24 @@
 package pro.finstream.broadcasting.domain.stomp;
 
 import java.time.Instant;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicLong;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.messaging.MessagingException;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
+import pro.finstream.broadcasting.domain.binary.BinaryPriceWebSocketHandler;
+import pro.finstream.broadcasting.domain.movers.TopMoversIndex;
+import pro.finstream.broadcasting.domain.sse.PriceEventStream;
+import pro.finstream.broadcasting.domain.stockprice.CachedPrice;
+import pro.finstream.broadcasting.domain.stockprice.LastValueCache;
 import pro.finstream.broadcasting.domain.stockprice.StockPrice;
+import pro.finstream.broadcasting.domain.watchlist.WatchlistEvent;
+import pro.finstream.broadcasting.domain.watchlist.WatchlistIndex;
 
 /**
  * Stock Broadcasting Service for Real-time STOMP WebSocket Updates
@@ -21,14 +30,20 @@ import pro.finstream.broadcasting.domain.stockprice.StockPrice;
  * - Real-time stock price broadcasting to all subscribers
  * - Connection statistics and performance monitoring
  * - User session tracking for audit compliance
- * - Future: User-specific watchlist filtering
+ * - User-specific watchlist delivery from the server-side WatchlistIndex
  * 
  * Message Flow:
  * Kafka Consumer → StockBroadcastingService → STOMP WebSocket → Angular Frontend
  * 
  * STOMP Destinations:
  * - /topic/stocks/prices - Public broadcast for all stock prices
- * - /user/topic/watchlist - User-specific updates (future integration)
+ * - /topic/stocks/prices/{symbol} - Updates of a single symbol
+ * - /topic/stocks/deltas - Same updates, delta-encoded against the previous tick
+ * - /topic/stocks/movers - Top gainers and losers, whenever their membership or order changes
+ * - /stock-updates-bin - Binary frames for finstream.prices.v1 clients (not STOMP)
+ * - /stream/prices - Server-Sent Events for read-only clients (not STOMP)
+ * - /user/topic/watchlist - Watchlist changes and alerts of the user
+ * - /user/topic/watchlist/prices - Updates of the symbols on the user's watchlist
  * 
  * @author FinStream Platform
  */
@@ -37,11 +52,16 @@ public class StockBroadcastingService {
 
     private static final Logger log = LoggerFactory.getLogger(StockBroadcastingService.class);
     
-    // STOMP WebSocket destinations
-    private static final String TOPIC_STOCK_PRICES = "/topic/stocks/prices";
-    private static final String TOPIC_USER_WATCHLIST = "/topic/watchlist";
-    
     private final SimpMessagingTemplate messagingTemplate;
+    private final PriceDeltaEncoder deltaEncoder;
+    private final BinaryPriceWebSocketHandler binaryHandler;
+    private final PriceEventStream priceEventStream;
+    private final SubscriptionRegistry subscriptionRegistry;
+    private final LastValueCache lastValueCache;
+    private final UpdateHistory updateHistory;
+    private final WatchlistIndex watchlistIndex;
+    private final TopMoversIndex topMoversIndex;
+    private final boolean moversEnabled;
     
     // Performance and monitoring metrics
     private final AtomicLong totalMessagesSent = new AtomicLong(0);
@@ -49,20 +69,90 @@ public class StockBroadcastingService {
     private final Map<String, AtomicLong> symbolUpdateCounts = new ConcurrentHashMap<>();
     private final Map<String, Instant> lastUpdateTimes = new ConcurrentHashMap<>();
     
-    public StockBroadcastingService(SimpMessagingTemplate messagingTemplate) {
+    public StockBroadcastingService(
+        SimpMessagingTemplate messagingTemplate,
+        PriceDeltaEncoder deltaEncoder,
+        BinaryPriceWebSocketHandler binaryHandler,
+        PriceEventStream priceEventStream,
+        SubscriptionRegistry subscriptionRegistry,
+        LastValueCache lastValueCache,
+        UpdateHistory updateHistory,
+        WatchlistIndex watchlistIndex,
+        TopMoversIndex topMoversIndex,
+        @Value("${finstream.kafka.filter-unsubscribed:false}") boolean filterUnsubscribed
+    ) {
         this.messagingTemplate = messagingTemplate;
+        this.deltaEncoder = deltaEncoder;
+        this.binaryHandler = binaryHandler;
+        this.priceEventStream = priceEventStream;
+        this.subscriptionRegistry = subscriptionRegistry;
+        this.lastValueCache = lastValueCache;
+        this.updateHistory = updateHistory;
+        this.watchlistIndex = watchlistIndex;
+        this.topMoversIndex = topMoversIndex;
+        // The ranking needs every tick, which the filter would drop for unsubscribed symbols
+        this.moversEnabled = !filterUnsubscribed;
+        if (filterUnsubscribed) {
+            log.warn("finstream.kafka.filter-unsubscribed is on: /topic/stocks/movers is not updated");
+        }
         log.info("StockBroadcastingService initialized - ready for real-time stock price broadcasting");
     }
 
+    /**
+     * Broadcast a batch of stock price updates
+     * 
+     * STOMP clients receive one message per price; binary sub-protocol clients receive
+     * the whole batch in as few frames as possible.
+     * 
+     * Never throws: the prices are already in the LastValueCache, and a failed batch would be
+     * redelivered and sent to the clients a second time.
+     * 
+     * Must be called on the thread that put the prices into the LastValueCache, which then
+     * counts them as broadcast (see LastValueCache#getBroadcastSequence).
+     * 
+     * @param cachedPrices Prices of one Kafka poll, in partition order
+     */
+    public void broadcastStockPrices(List<CachedPrice> cachedPrices) {
+        try {
+            for (CachedPrice cachedPrice : cachedPrices) {
+                broadcastStockPrice(cachedPrice);
+            }
+            binaryHandler.broadcast(cachedPrices);
+        }
+        catch (RuntimeException e) {
+            log.error("Failed to broadcast binary price frames: prices={}: {}", cachedPrices.size(), e.getMessage(), e);
+        }
+        finally {
+            lastValueCache.markBroadcast();
+        }
+    }
+    
     /**
      * Broadcast stock price update to all connected WebSocket clients
      * 
-     * Called by StockPriceConsumerService when new stock price received from Kafka.
+     * Called by StockPriceConsumerService once the price is in the LastValueCache.
      * Sends STOMP MESSAGE frame to all clients subscribed to /topic/stocks/prices
+     * and /topic/stocks/prices/{symbol}, reusing the JSON encoded by the cache
+     * instead of converting the price again, and the compact delta of the same
+     * update to /topic/stocks/deltas.
+     * 
+     * Destinations without subscribers on this node are skipped (see SubscriptionRegistry).
+     * The delta is encoded regardless, so the per-symbol delta state stays current, and the
+     * update goes into the UpdateHistory for clients resuming with resume-from.
+     * 
+     * Server-Sent Events streams of the symbol get the same payload (see PriceEventStream).
+     * 
+     * Every tick updates the TopMoversIndex; when the top gainers or losers change, the new
+     * list goes to /topic/stocks/movers. Not with finstream.kafka.filter-unsubscribed, which
+     * leaves the movers at their initial, empty version.
      * 
-     * @param stockPrice Real-time stock price from Kafka consumer
+     * Users watching the symbol (see WatchlistIndex) and connected to this node also
+     * receive it on their own /user/topic/watchlist/prices destination.
+     * 
+     * @param cachedPrice Real-time stock price from Kafka consumer, as cached
      */
-    public void broadcastStockPrice(StockPrice stockPrice) {
+    public void broadcastStockPrice(CachedPrice cachedPrice) {
+        StockPrice stockPrice = cachedPrice != null ? cachedPrice.price() : null;
         try {
             if (stockPrice == null) {
                 log.warn("Attempted to broadcast null stock price - skipping");
@@ -76,42 +166,98 @@ public class StockBroadcastingService {
             }
             
             // Broadcast to all subscribers
-            messagingTemplate.convertAndSend(TOPIC_STOCK_PRICES, stockPrice);
+            String symbol = stockPrice.symbol();
+            String seq = lastValueCache.position(cachedPrice);
+            byte[] delta = deltaEncoder.encode(cachedPrice);
+            updateHistory.append(cachedPrice, delta);
+            
+            if (subscriptionRegistry.hasSubscribers(Destinations.TOPIC_STOCK_PRICES)) {
+                messagingTemplate.send(Destinations.TOPIC_STOCK_PRICES, StompMessages.jsonPrice(cachedPrice.payload(), symbol, seq));
+            }
+            if (subscriptionRegistry.hasSymbolSubscribers(symbol)) {
+                messagingTemplate.send(Destinations.TOPIC_STOCK_PRICES_SYMBOL + symbol, StompMessages.jsonPrice(cachedPrice.payload(), symbol, seq));
+            }
+            if (subscriptionRegistry.hasSubscribers(Destinations.TOPIC_STOCK_DELTAS)) {
+                messagingTemplate.send(Destinations.TOPIC_STOCK_DELTAS, StompMessages.json(delta, seq));
+            }
+            if (subscriptionRegistry.hasSubscribers(Destinations.USER_WATCHLIST_PRICES)) {
+                sendToWatchers(cachedPrice, seq);
+            }
+            priceEventStream.broadcast(cachedPrice);
+            
+            TopMoversIndex.Snapshot movers = moversEnabled ? topMoversIndex.update(stockPrice) : null;
+            if (movers != null && subscriptionRegistry.hasSubscribers(Destinations.TOPIC_STOCK_MOVERS)) {
+                messagingTemplate.send(Destinations.TOPIC_STOCK_MOVERS, StompMessages.json(movers.payload(), null));
+            }
             
             // Update performance metrics
             updateMetrics(stockPrice);
             
             log.debug("Stock price broadcasted: symbol={}, price={}, subscribers={}", 
-                    stockPrice.symbol(), stockPrice.price(), getActiveSubscriberCount());
+                    stockPrice.symbol(), stockPrice.price(), getActiveSubscriberCount(stockPrice.symbol()));
                     
         }
-        catch (MessagingException e) {
+        catch (RuntimeException e) {
             log.error("Failed to broadcast stock price for symbol {}: {}", 
                     stockPrice != null ? stockPrice.symbol() : "unknown", e.getMessage(), e);
         }
     }
     
-    /*
+    /**
+     * Deliver a price update to the users watching its symbol
+     * 
+     * The inverted index yields the watching users directly, so the cost is proportional
+     * to the watchers of the symbol, not to the connected sessions. Users without a session
+     * on this node are skipped; the user destination resolves the rest to their sessions.
+     */
+    private void sendToWatchers(CachedPrice cachedPrice, String seq) {
+        String symbol = cachedPrice.symbol();
+        for (String userId : watchlistIndex.usersWatching(symbol)) {
+            if (subscriptionRegistry.getSessionCount(userId) == 0) {
+                continue;
+            }
+            messagingTemplate.send(userDestination(userId, Destinations.TOPIC_USER_WATCHLIST_PRICES),
+                StompMessages.jsonPrice(cachedPrice.payload(), symbol, seq));
+            totalMessagesSent.incrementAndGet();
+        }
+    }
+    
+    /**
      * Broadcast user-specific watchlist update
      * 
-     * Future integration with Watchlist Service (Jakarta EE Payara).
-     * Will consume watchlist events from Kafka and send targeted updates.
+     * Called by WatchlistEventConsumer for each watchlist change consumed from Kafka,
+     * after it has been applied to the WatchlistIndex. The event goes to the user's
+     * /user/topic/watchlist destination; when a symbol is added, its current price is
+     * sent to /user/topic/watchlist/prices right away instead of waiting for the next tick.
      * 
-     * @param userId User identifier from JWT token
-     * @param event Watchlist event (ADD, REMOVE, UPDATE)
+     * @param event Watchlist event (ADD, REMOVE, UPDATE, ALERT_TRIGGERED)
      */
-    public void broadcastWatchlistUpdate(String userId, Object event) {
+    public void broadcastWatchlistUpdate(WatchlistEvent event) {
+        String userId = event != null ? event.userId() : null;
         try {
             if (userId == null || userId.isBlank()) {
                 log.warn("Attempted to broadcast watchlist update without userId - skipping");
                 return;
             }
+            if (subscriptionRegistry.getSessionCount(userId) == 0) {
+                return;
+            }
             
             // Send to specific user's subscription
-            messagingTemplate.convertAndSendToUser(userId, TOPIC_USER_WATCHLIST, event);
-            
+            messagingTemplate.convertAndSendToUser(userId, Destinations.TOPIC_USER_WATCHLIST, event);
             totalMessagesSent.incrementAndGet();
-            log.debug("Watchlist update broadcasted to user: userId={}, event={}", userId, event);
+            
+            if (event.action() == WatchlistEvent.WatchlistAction.ADD && event.symbol() != null) {
+                CachedPrice current = lastValueCache.get(event.symbol());
+                if (current != null) {
+                    messagingTemplate.send(userDestination(userId, Destinations.TOPIC_USER_WATCHLIST_PRICES),
+                        StompMessages.jsonPrice(current.payload(), current.symbol(), lastValueCache.position(current)));
+                    totalMessagesSent.incrementAndGet();
+                }
+            }
+            
+            log.debug("Watchlist update broadcasted to user: userId={}, action={}, symbol={}", 
+                    userId, event.action(), event.symbol());
             
         }
         catch (MessagingException e) {
@@ -119,6 +265,14 @@ public class StockBroadcastingService {
         }
     }
     
+    /**
+     * User destination the way SimpMessagingTemplate.convertAndSendToUser builds it,
+     * for messages that are already serialized.
+     */
+    private static String userDestination(String userId, String destination) {
+        return Destinations.USER_PREFIX + "/" + userId.replace("/", "%2F") + destination;
+    }
+    
     /**
      * Send system notification to all connected clients
      * 
@@ -131,7 +285,7 @@ public class StockBroadcastingService {
      */
     public void broadcastSystemNotification(SystemNotification notification) {
         try {
-            messagingTemplate.convertAndSend("/topic/system/notifications", notification);
+            messagingTemplate.convertAndSend(Destinations.TOPIC_SYSTEM_NOTIFICATIONS, notification);
             totalMessagesSent.incrementAndGet();
             
             log.info("System notification broadcasted: type={}, message={}", 
@@ -167,17 +321,46 @@ public class StockBroadcastingService {
     }
     
     /**
-     * Get current active subscriber count
+     * Whether anybody on this node receives updates of the symbol
+     * 
+     * True if the symbol's own destination, an aggregate topic, a binary session, an SSE
+     * stream or a connected user watching the symbol would receive the next tick. Used to
+     * drop records by key before their payload is parsed (finstream.kafka.filter-unsubscribed),
+     * which is why the movers and the REST prices, needing every symbol, are off with it.
+     */
+    public boolean hasSubscribers(String symbol) {
+        return subscriptionRegistry.hasSymbolSubscribers(symbol)
+            || subscriptionRegistry.hasSubscribers(Destinations.TOPIC_STOCK_PRICES)
+            || subscriptionRegistry.hasSubscribers(Destinations.TOPIC_STOCK_DELTAS)
+            || binaryHandler.getSessionCount() > 0
+            || priceEventStream.hasSubscribers(symbol)
+            || hasConnectedWatchers(symbol);
+    }
+    
+    private boolean hasConnectedWatchers(String symbol) {
+        if (!subscriptionRegistry.hasSubscribers(Destinations.USER_WATCHLIST_PRICES)) {
+            return false;
+        }
+        for (String userId : watchlistIndex.usersWatching(symbol)) {
+            if (subscriptionRegistry.getSessionCount(userId) > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Get current active subscriber count of a symbol on this node
      * 
-     * Note: SimpMessagingTemplate doesn't provide direct subscriber count.
-     * In production, integrate with Spring Session or Redis for accurate metrics.
+     * Subscribers of the symbol's own destination plus those of the aggregate
+     * price and delta topics, which receive every symbol.
      * 
-     * @return Estimated active subscriber count
+     * @return Active STOMP subscriptions receiving updates of the symbol
      */
-    private int getActiveSubscriberCount() {
-        // TODO: Integrate with session management for accurate count
-        // For now, return placeholder for logging purposes
-        return -1; // Unknown - requires session integration
+    public long getActiveSubscriberCount(String symbol) {
+        return subscriptionRegistry.getSymbolSubscriberCount(symbol)
+            + subscriptionRegistry.getSubscriberCount(Destinations.TOPIC_STOCK_PRICES)
+            + subscriptionRegistry.getSubscriberCount(Destinations.TOPIC_STOCK_DELTAS);
     }
     
     /**
@@ -195,6 +378,9 @@ public class StockBroadcastingService {
             "uniqueSymbolsTracked", symbolUpdateCounts.size(),
             "symbolUpdateCounts", Map.copyOf(symbolUpdateCounts),
             "lastUpdateTimes", Map.copyOf(lastUpdateTimes),
+            "activeSessions", subscriptionRegistry.getSessionCount(),
+            "activeSubscriptions", subscriptionRegistry.getSubscriptionCount(),
+            "subscribersByDestination", subscriptionRegistry.getSubscribersByDestination(),
             "serviceUptime", Instant.now().toString()
         );
     }
@@ -0,0 +1,72 @@
+package pro.finstream.broadcasting.domain.stomp;
+
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.MimeTypeUtils;
+
+/**
+ * Builds STOMP MESSAGE frames around payloads that are already serialized.
+ *
+ * Going through these instead of {@code convertAndSend} skips the message converter, so the
+ * JSON of a price is produced once and shared by all recipients.
+ */
+final class StompMessages {
+
+    private StompMessages() {}
+
+    /**
+     * Message for the broker; destination and message type are filled in by the messaging template.
+     * The {@code seq} header carries the update's position ({@code <epoch>:<sequence>}), which
+     * clients send back as {@code resume-from} when they resubscribe; null for messages that are
+     * not price updates.
+     */
+    static Message<byte[]> json(byte[] payload, String seq) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        accessor.setNativeHeader(Destinations.HEADER_SEQ, seq);
+        accessor.setLeaveMutable(true);
+        return MessageBuilder.createMessage(payload, accessor.getMessageHeaders());
+    }
+
+    /**
+     * Like {@link #json(byte[], String)}, for a full price of the given symbol. The {@code symbol}
+     * header marks the frame as conflatable: a newer price for the same symbol may replace it
+     * while it is still queued for a slow session.
+     */
+    static Message<byte[]> jsonPrice(byte[] payload, String symbol, String seq) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        accessor.setNativeHeader(Destinations.HEADER_SYMBOL, symbol);
+        accessor.setNativeHeader(Destinations.HEADER_SEQ, seq);
+        accessor.setLeaveMutable(true);
+        return MessageBuilder.createMessage(payload, accessor.getMessageHeaders());
+    }
+
+    /**
+     * Message addressed to one subscription of one session, ready for the client outbound channel.
+     * This is the same header set the simple broker uses when it fans a message out. A non-null
+     * symbol marks the frame as conflatable, see {@link #jsonPrice(byte[], String, String)}; a null
+     * seq leaves the header out.
+     */
+    static Message<byte[]> jsonToSubscriber(
+        byte[] payload,
+        String sessionId,
+        String subscriptionId,
+        String destination,
+        String symbol,
+        String seq
+    ) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setSessionId(sessionId);
+        accessor.setSubscriptionId(subscriptionId);
+        accessor.setDestination(destination);
+        accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        if (symbol != null) {
+            accessor.setNativeHeader(Destinations.HEADER_SYMBOL, symbol);
+        }
+        accessor.setNativeHeader(Destinations.HEADER_SEQ, seq);
+        return MessageBuilder.createMessage(payload, accessor.getMessageHeaders());
+    }
+}
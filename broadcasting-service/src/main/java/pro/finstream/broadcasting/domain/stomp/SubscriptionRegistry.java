@@ -0,0 +1,186 @@
+package pro.finstream.broadcasting.domain.stomp;
+
+import java.security.Principal;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionConnectedEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+
+/**
+ * Registry of the STOMP sessions and subscriptions on this node, driven by the session events.
+ *
+ * Subscriber counts per destination and per symbol are {@link LongAdder}s: the fan-out reads
+ * them for every update and subscribe/unsubscribe writes come from many inbound threads, so
+ * striped counters keep both sides contention-free. Sessions per user are counted exactly with
+ * atomic per-key updates, since users come and go and their counts drop to zero often.
+ *
+ * A symbol's subscribers are those of its own destination ({@code /topic/stocks/prices/AAPL});
+ * subscribers of the aggregate topics receive every symbol and are counted per destination.
+ */
+@Component
+@Slf4j
+public class SubscriptionRegistry {
+
+    private final Map<String, SessionEntry> sessions = new ConcurrentHashMap<>();
+    private final Map<String, Integer> sessionsByUser = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> subscribersByDestination = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> subscribersBySymbol = new ConcurrentHashMap<>();
+    private final LongAdder subscriptions = new LongAdder();
+
+    @EventListener
+    public void onConnected(SessionConnectedEvent event) {
+        String sessionId = StompHeaderAccessor.wrap(event.getMessage()).getSessionId();
+        Principal user = event.getUser();
+        String userId = user != null ? user.getName() : null;
+
+        SessionEntry session = sessions.computeIfAbsent(sessionId, id -> new SessionEntry());
+        if (userId != null && session.userId.compareAndSet(null, userId)) {
+            sessionsByUser.merge(userId, 1, Integer::sum);
+        }
+    }
+
+    @EventListener
+    public void onSubscribe(SessionSubscribeEvent event) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
+        String destination = accessor.getDestination();
+        if (destination == null) {
+            return;
+        }
+
+        SessionEntry session = sessions.computeIfAbsent(accessor.getSessionId(), id -> new SessionEntry());
+        if (session.subscriptions.putIfAbsent(accessor.getSubscriptionId(), destination) == null) {
+            adjust(destination, 1);
+        }
+    }
+
+    @EventListener
+    public void onUnsubscribe(SessionUnsubscribeEvent event) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
+        SessionEntry session = sessions.get(accessor.getSessionId());
+        if (session == null) {
+            return;
+        }
+
+        String destination = session.subscriptions.remove(accessor.getSubscriptionId());
+        if (destination != null) {
+            adjust(destination, -1);
+        }
+    }
+
+    /**
+     * Also published for sessions that were closed without DISCONNECT frame, possibly more than
+     * once per session; only the first one removes the session.
+     */
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        SessionEntry session = sessions.remove(event.getSessionId());
+        if (session == null) {
+            return;
+        }
+
+        session.subscriptions.values().forEach(destination -> adjust(destination, -1));
+        String userId = session.userId.get();
+        if (userId != null) {
+            sessionsByUser.computeIfPresent(userId, (user, count) -> count > 1 ? count - 1 : null);
+        }
+    }
+
+    public int getSessionCount() {
+        return sessions.size();
+    }
+
+    public int getUserCount() {
+        return sessionsByUser.size();
+    }
+
+    public int getSessionCount(String userId) {
+        return sessionsByUser.getOrDefault(userId, 0);
+    }
+
+    public long getSubscriptionCount() {
+        return subscriptions.sum();
+    }
+
+    /**
+     * Subscribers of the given destination.
+     */
+    public long getSubscriberCount(String destination) {
+        LongAdder count = subscribersByDestination.get(destination);
+        return count != null ? count.sum() : 0;
+    }
+
+    /**
+     * Subscribers of the per-symbol destination of the given symbol.
+     */
+    public long getSymbolSubscriberCount(String symbol) {
+        LongAdder count = subscribersBySymbol.get(symbol);
+        return count != null ? count.sum() : 0;
+    }
+
+    public boolean hasSubscribers(String destination) {
+        return getSubscriberCount(destination) > 0;
+    }
+
+    public boolean hasSymbolSubscribers(String symbol) {
+        return getSymbolSubscriberCount(symbol) > 0;
+    }
+
+    public Map<String, Long> getSubscribersByDestination() {
+        return snapshot(subscribersByDestination);
+    }
+
+    public Map<String, Long> getSubscribersBySymbol() {
+        return snapshot(subscribersBySymbol);
+    }
+
+    /**
+     * Symbol of a per-symbol price destination, or null for any other destination.
+     */
+    public static String symbolOf(String destination) {
+        if (destination != null
+            && destination.length() > Destinations.TOPIC_STOCK_PRICES_SYMBOL.length()
+            && destination.startsWith(Destinations.TOPIC_STOCK_PRICES_SYMBOL)) {
+            return destination.substring(Destinations.TOPIC_STOCK_PRICES_SYMBOL.length());
+        }
+        return null;
+    }
+
+    private void adjust(String destination, int delta) {
+        subscriptions.add(delta);
+        subscribersByDestination.computeIfAbsent(destination, d -> new LongAdder()).add(delta);
+
+        String symbol = symbolOf(destination);
+        if (symbol != null) {
+            subscribersBySymbol.computeIfAbsent(symbol, s -> new LongAdder()).add(delta);
+        }
+    }
+
+    private static Map<String, Long> snapshot(Map<String, LongAdder> counters) {
+        Map<String, Long> result = new TreeMap<>();
+        counters.forEach((key, count) -> {
+            long sum = count.sum();
+            if (sum > 0) {
+                result.put(key, sum);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * User and subscription destinations (by subscription id) of one session. The user is set
+     * once by the connected event, which may be handled after the first subscribe.
+     */
+    private static final class SessionEntry {
+        final AtomicReference<String> userId = new AtomicReference<>();
+        final Map<String, String> subscriptions = new ConcurrentHashMap<>();
+    }
+}
@@ -0,0 +1,48 @@
+package pro.finstream.broadcasting.domain.stomp;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.stereotype.Component;
+
+/**
+ * Actuator endpoint {@code /actuator/subscriptions} with the STOMP session and subscription
+ * counts of this node and the outbound queue depth of every session with a backlog;
+ * {@code /actuator/subscriptions/{symbol}} for a single symbol.
+ */
+@Component
+@Endpoint(id = "subscriptions")
+public class SubscriptionsEndpoint {
+
+    private final SubscriptionRegistry registry;
+    private final SlowConsumerPolicy slowConsumerPolicy;
+
+    public SubscriptionsEndpoint(SubscriptionRegistry registry, SlowConsumerPolicy slowConsumerPolicy) {
+        this.registry = registry;
+        this.slowConsumerPolicy = slowConsumerPolicy;
+    }
+
+    @ReadOperation
+    public Map<String, Object> subscriptions() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("sessions", registry.getSessionCount());
+        result.put("users", registry.getUserCount());
+        result.put("subscriptions", registry.getSubscriptionCount());
+        result.put("byDestination", registry.getSubscribersByDestination());
+        result.put("bySymbol", registry.getSubscribersBySymbol());
+        result.put("queueDepths", slowConsumerPolicy.getQueueDepths());
+        return result;
+    }
+
+    @ReadOperation
+    public Map<String, Object> symbol(@Selector String symbol) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("symbol", symbol);
+        result.put("symbolSubscribers", registry.getSymbolSubscriberCount(symbol));
+        result.put("priceSubscribers", registry.getSubscriberCount(Destinations.TOPIC_STOCK_PRICES));
+        result.put("deltaSubscribers", registry.getSubscriberCount(Destinations.TOPIC_STOCK_DELTAS));
+        return result;
+    }
+}
@@ -0,0 +1,99 @@
+package pro.finstream.broadcasting.domain.stomp;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import pro.finstream.broadcasting.domain.stockprice.CachedPrice;
+
+/**
+ * Bounded per-symbol history of recent updates, used to resume reconnecting clients.
+ *
+ * Every symbol has a ring of the last {@code history-size} updates, each with the full JSON
+ * (cached price) and the delta sent for it. A symbol is written by the consumer thread owning
+ * its partition only; readers go without locks. The slot is written before the volatile count,
+ * so a reader sees every update counted, and slot contents are immutable, so a slot overwritten
+ * during a read yields a complete but newer update, which the read detects by its sequence.
+ */
+@Component
+public class UpdateHistory {
+
+    private final int capacity;
+    private final Map<String, Ring> rings = new ConcurrentHashMap<>();
+
+    public UpdateHistory(@Value("${finstream.websocket.resume.history-size:64}") int capacity) {
+        this.capacity = Math.max(1, capacity);
+    }
+
+    /**
+     * Append the update of a symbol. Must be called in update order by the symbol's owner thread.
+     */
+    public void append(CachedPrice price, byte[] delta) {
+        rings.computeIfAbsent(price.symbol(), s -> new Ring(capacity)).append(new Update(price, delta));
+    }
+
+    /**
+     * Updates of the symbol after the given sequence, oldest first; empty if nothing was missed,
+     * null if the history no longer reaches back to that sequence (snapshot required).
+     */
+    public List<Update> since(String symbol, long sequence) {
+        Ring ring = rings.get(symbol);
+        return ring != null ? ring.since(sequence) : List.of();
+    }
+
+    public record Update(CachedPrice price, byte[] delta) {}
+
+    private static final class Ring {
+
+        private final Update[] slots;
+        private volatile long count;
+        private volatile long evictedSequence = -1;
+
+        Ring(int capacity) {
+            this.slots = new Update[capacity];
+        }
+
+        void append(Update update) {
+            long next = count;
+            int slot = (int) (next % slots.length);
+            if (slots[slot] != null) {
+                evictedSequence = slots[slot].price().sequence();
+            }
+            slots[slot] = update;
+            count = next + 1;
+        }
+
+        List<Update> since(long sequence) {
+            long end = count;
+            long start = Math.max(0, end - slots.length);
+            List<Update> missed = new ArrayList<>();
+            long previous = Long.MAX_VALUE;
+
+            for (long i = end - 1; i >= start; i--) {
+                Update update = slots[(int) (i % slots.length)];
+                long updateSequence = update.price().sequence();
+                if (updateSequence >= previous) {
+                    // Overwritten by the writer meanwhile, the history is torn at this point
+                    return null;
+                }
+                if (updateSequence <= sequence) {
+                    Collections.reverse(missed);
+                    return missed;
+                }
+                missed.add(update);
+                previous = updateSequence;
+            }
+
+            // Complete if nothing after the requested sequence has been evicted; an eviction
+            // racing with this read only makes the answer more conservative
+            if (start > 0 && evictedSequence > sequence) {
+                return null;
+            }
+            Collections.reverse(missed);
+            return missed;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package pro.finstream.broadcasting.domain.watchlist;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Watchlist change published by the watchlist service on {@code finstream.watchlist.events},
+ * keyed by {@code <userId>:<symbol>} so the compacted topic retains the latest state of every
+ * watchlist entry. Same shape as {@code WatchlistEvent} in the web client.
+ */
+public record WatchlistEvent(
+    WatchlistAction action,
+    String userId,
+    String symbol,
+    Instant timestamp,
+    Map<String, Object> metadata
+) {
+
+    public enum WatchlistAction {
+        ADD,
+        REMOVE,
+        UPDATE,
+        ALERT_TRIGGERED
+    }
+}
@@ -0,0 +1,81 @@
+package pro.finstream.broadcasting.domain.watchlist;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.ConsumerSeekAware;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.stereotype.Service;
+import pro.finstream.broadcasting.domain.stomp.StockBroadcastingService;
+
+/**
+ * Builds the {@link WatchlistIndex} from the watchlist change topic.
+ *
+ * Every node needs every watchlist, whichever users connect to it, and keeps the index in memory
+ * only. So each node consumes with its own group and rereads the (compacted) topic from the
+ * beginning whenever partitions are assigned; committed offsets are never used for positioning.
+ */
+@Service
+@Slf4j
+public class WatchlistEventConsumer implements ConsumerSeekAware {
+
+    private static final Duration MAX_FORWARD_AGE = Duration.ofSeconds(30);
+
+    private final WatchlistIndex watchlistIndex;
+    private final StockBroadcastingService broadcastingService;
+
+    public WatchlistEventConsumer(WatchlistIndex watchlistIndex, StockBroadcastingService broadcastingService) {
+        this.watchlistIndex = watchlistIndex;
+        this.broadcastingService = broadcastingService;
+    }
+
+    @Override
+    public void onPartitionsAssigned(Map<TopicPartition, Long> assignments, ConsumerSeekCallback callback) {
+        callback.seekToBeginning(assignments.keySet());
+        log.info("Rebuilding watchlist index from the beginning: partitions={}", assignments.keySet());
+    }
+
+    @KafkaListener(
+        topics = "${finstream.kafka.topic.watchlist-events}",
+        groupId = "#{@clusterNode.getNodeGroupId('watchlist')}",
+        properties = {
+            "auto.offset.reset=earliest",
+            "spring.json.value.default.type=pro.finstream.broadcasting.domain.watchlist.WatchlistEvent"
+        },
+        concurrency = "1",
+        batch = "true"
+    )
+    public void consumeWatchlistEvents(List<ConsumerRecord<String, WatchlistEvent>> records, Acknowledgment acknowledgment) {
+        int changed = 0;
+        for (ConsumerRecord<String, WatchlistEvent> record : records) {
+            WatchlistEvent event = record.value();
+            if (event == null) {
+                log.warn("Skipping empty watchlist event: partition={}, offset={}, key={}",
+                    record.partition(), record.offset(), record.key());
+                continue;
+            }
+            boolean applied = watchlistIndex.apply(event);
+            if (applied) {
+                changed++;
+            }
+            if (applied || isRecent(event)) {
+                broadcastingService.broadcastWatchlistUpdate(event);
+            }
+        }
+        acknowledgment.acknowledge();
+        log.debug("Watchlist events applied: size={}, changed={}", records.size(), changed);
+    }
+
+    /**
+     * Events that did not change the index are only forwarded to the user while fresh, so a
+     * rebuild does not replay old alerts to connected clients.
+     */
+    private static boolean isRecent(WatchlistEvent event) {
+        return event.timestamp() != null && event.timestamp().isAfter(Instant.now().minus(MAX_FORWARD_AGE));
+    }
+}
@@ -0,0 +1,139 @@
+package pro.finstream.broadcasting.domain.watchlist;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-memory index of all watchlists: symbols per user and, inverted, users per symbol.
+ *
+ * Symbols are interned to dense ids, so a user's watchlist is a small {@link BitSet}. Both
+ * directions are copy-on-write: a change replaces the affected entries with new immutable
+ * ones, so the per-tick lookup {@link #usersWatching(String)} is a single map read without
+ * locking or copying. Changes arrive from one Kafka consumer thread; readers are the Kafka
+ * consumer threads broadcasting prices and the subscribe handler.
+ */
+@Component
+public class WatchlistIndex {
+
+    private final Map<String, Integer> symbolIds = new ConcurrentHashMap<>();
+    private final List<String> symbolsById = new ArrayList<>();
+    private final Map<String, BitSet> symbolsByUser = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> usersBySymbol = new ConcurrentHashMap<>();
+
+    public WatchlistIndex(MeterRegistry registry) {
+        Gauge.builder("finstream.watchlist.users", symbolsByUser, Map::size)
+            .description("Users with a non-empty watchlist")
+            .register(registry);
+        Gauge.builder("finstream.watchlist.symbols", usersBySymbol, Map::size)
+            .description("Symbols on at least one watchlist")
+            .register(registry);
+    }
+
+    /**
+     * Apply a watchlist change; returns true if the index changed.
+     *
+     * UPDATE and ALERT_TRIGGERED only exist for entries on the watchlist and count as ADD: after
+     * compaction they may be the only record left of an entry.
+     */
+    public boolean apply(WatchlistEvent event) {
+        if (event == null || event.action() == null || event.userId() == null || event.symbol() == null) {
+            return false;
+        }
+        return switch (event.action()) {
+            case ADD, UPDATE, ALERT_TRIGGERED -> add(event.userId(), event.symbol());
+            case REMOVE -> remove(event.userId(), event.symbol());
+        };
+    }
+
+    /**
+     * Users whose watchlist contains the symbol; immutable, empty if none.
+     */
+    public Set<String> usersWatching(String symbol) {
+        return usersBySymbol.getOrDefault(symbol, Set.of());
+    }
+
+    /**
+     * Symbols on the user's watchlist.
+     */
+    public List<String> symbolsOf(String userId) {
+        BitSet ids = symbolsByUser.get(userId);
+        if (ids == null) {
+            return List.of();
+        }
+        List<String> symbols = new ArrayList<>(ids.cardinality());
+        synchronized (symbolsById) {
+            ids.stream().forEach(id -> symbols.add(symbolsById.get(id)));
+        }
+        return symbols;
+    }
+
+    public boolean contains(String userId, String symbol) {
+        BitSet ids = symbolsByUser.get(userId);
+        Integer id = symbolIds.get(symbol);
+        return ids != null && id != null && ids.get(id);
+    }
+
+    private boolean add(String userId, String symbol) {
+        int id = intern(symbol);
+        boolean[] changed = {false};
+        symbolsByUser.compute(userId, (user, ids) -> {
+            if (ids != null && ids.get(id)) {
+                return ids;
+            }
+            BitSet copy = ids != null ? (BitSet) ids.clone() : new BitSet();
+            copy.set(id);
+            changed[0] = true;
+            return copy;
+        });
+        if (changed[0]) {
+            usersBySymbol.compute(symbol, (s, users) -> {
+                Set<String> copy = users != null ? new HashSet<>(users) : new HashSet<>();
+                copy.add(userId);
+                return Set.copyOf(copy);
+            });
+        }
+        return changed[0];
+    }
+
+    private boolean remove(String userId, String symbol) {
+        Integer id = symbolIds.get(symbol);
+        if (id == null) {
+            return false;
+        }
+        boolean[] changed = {false};
+        symbolsByUser.computeIfPresent(userId, (user, ids) -> {
+            if (!ids.get(id)) {
+                return ids;
+            }
+            BitSet copy = (BitSet) ids.clone();
+            copy.clear(id);
+            changed[0] = true;
+            return copy.isEmpty() ? null : copy;
+        });
+        if (changed[0]) {
+            usersBySymbol.computeIfPresent(symbol, (s, users) -> {
+                Set<String> copy = new HashSet<>(users);
+                copy.remove(userId);
+                return copy.isEmpty() ? null : Set.copyOf(copy);
+            });
+        }
+        return changed[0];
+    }
+
+    private int intern(String symbol) {
+        return symbolIds.computeIfAbsent(symbol, s -> {
+            synchronized (symbolsById) {
+                symbolsById.add(s);
+                return symbolsById.size() - 1;
+            }
+        });
+    }
+}
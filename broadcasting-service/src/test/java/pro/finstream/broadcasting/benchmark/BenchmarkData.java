@@ -0,0 +1,67 @@
+package pro.finstream.broadcasting.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import pro.finstream.broadcasting.domain.stockprice.CachedPrice;
+import pro.finstream.broadcasting.domain.stockprice.StockPrice;
+
+/**
+ * Realistic price payloads for the benchmarks, shaped like the Finnhub quotes stock-service publishes.
+ */
+public final class BenchmarkData {
+
+    public static final String[] SYMBOLS = {
+        "AAPL", "GOOGL", "MSFT", "TSLA", "NVDA", "AMZN", "META", "NFLX", "AMD", "INTC",
+        "ORCL", "CRM", "ADBE", "PYPL", "UBER", "SHOP", "SQ", "PLTR", "SNOW", "COIN"
+    };
+
+    private BenchmarkData() {}
+
+    /**
+     * Object mapper configured the way Spring Boot and the STOMP message converter configure theirs.
+     */
+    public static ObjectMapper objectMapper() {
+        return Jackson2ObjectMapperBuilder.json().build();
+    }
+
+    public static List<StockPrice> prices(int count, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        LocalDateTime processedAt = LocalDateTime.of(2025, 7, 25, 14, 30, 0, 123_456_789);
+        List<StockPrice> prices = new ArrayList<>(count);
+
+        for (int i = 0; i < count; i++) {
+            double close = 20 + random.nextDouble(980);
+            double last = close * (1 + (random.nextDouble() - 0.5) / 20);
+            prices.add(new StockPrice(
+                SYMBOLS[i % SYMBOLS.length],
+                decimal(last, 2),
+                decimal(last - close, 2),
+                decimal((last - close) / close * 100, 4),
+                decimal(Math.max(last, close) * 1.01, 2),
+                decimal(Math.min(last, close) * 0.99, 2),
+                1_753_453_800L + i * 30L,
+                "finnhub",
+                processedAt.plusSeconds(i * 30L)
+            ));
+        }
+        return prices;
+    }
+
+    public static List<CachedPrice> cached(List<StockPrice> prices, ObjectMapper objectMapper) throws Exception {
+        List<CachedPrice> cached = new ArrayList<>(prices.size());
+        for (int i = 0; i < prices.size(); i++) {
+            cached.add(new CachedPrice(prices.get(i), i + 1, objectMapper.writeValueAsBytes(prices.get(i))));
+        }
+        return cached;
+    }
+
+    private static BigDecimal decimal(double value, int scale) {
+        return BigDecimal.valueOf(value).setScale(scale, RoundingMode.HALF_UP);
+    }
+}
@@ -0,0 +1,204 @@
+package pro.finstream.broadcasting.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.broker.SimpleBrokerMessageHandler;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import pro.finstream.broadcasting.domain.binary.BinaryPriceWebSocketHandler;
+import pro.finstream.broadcasting.domain.cluster.ClusterNode;
+import pro.finstream.broadcasting.domain.movers.TopMoversIndex;
+import pro.finstream.broadcasting.domain.sse.PriceEventStream;
+import pro.finstream.broadcasting.domain.stockprice.CachedPrice;
+import pro.finstream.broadcasting.domain.stockprice.LastValueCache;
+import pro.finstream.broadcasting.domain.stockprice.LatencyMetrics;
+import pro.finstream.broadcasting.domain.stockprice.PartitionMetrics;
+import pro.finstream.broadcasting.domain.stockprice.StockPrice;
+import pro.finstream.broadcasting.domain.stockprice.StockPriceConsumerService;
+import pro.finstream.broadcasting.domain.stockprice.StockPriceDeserializer;
+import pro.finstream.broadcasting.domain.stockprice.StockPriceRecoverer;
+import pro.finstream.broadcasting.domain.stomp.Destinations;
+import pro.finstream.broadcasting.domain.stomp.PriceDeltaEncoder;
+import pro.finstream.broadcasting.domain.stomp.SlowConsumerPolicy;
+import pro.finstream.broadcasting.domain.stomp.StockBroadcastingService;
+import pro.finstream.broadcasting.domain.stomp.SubscriptionRegistry;
+import pro.finstream.broadcasting.domain.stomp.UpdateHistory;
+import pro.finstream.broadcasting.domain.watchlist.WatchlistIndex;
+
+/**
+ * The broadcaster hot path per stock price, stage by stage and end to end, against the real
+ * components wired the way Spring wires them.
+ *
+ * <ul>
+ * <li>{@code parse} - record value to StockPrice</li>
+ * <li>{@code cache} - JSON encoding into the LastValueCache</li>
+ * <li>{@code broadcast} - delta encoding, update history, dispatch through the simple broker to
+ *     {@code subscribers} sessions of /topic/stocks/prices, bookkeeping</li>
+ * <li>{@code consumeBatch} - the Kafka listener on a 20-record poll: parse, validate, cache,
+ *     broadcast, partition and latency metrics</li>
+ * </ul>
+ * Dispatch ends at the client outbound channel, i.e. before the per-session WebSocket send,
+ * which depends on the network and is covered by the fan-out load test. Results are per price;
+ * run with {@code -prof gc} (the default of the profile) to compare allocation per operation.
+ *
+ * Run with: mvn -P benchmark -Djmh.includes=BroadcastPathBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BroadcastPathBenchmark {
+
+    private static final int BATCH = 20;
+    private static final int PARTITIONS = 6;
+    private static final Acknowledgment ACKNOWLEDGMENT = () -> {};
+
+    @Param({"0", "10", "1000"})
+    private int subscribers;
+
+    private LastValueCache lastValueCache;
+    private StockBroadcastingService broadcastingService;
+    private StockPriceConsumerService consumerService;
+    private List<StockPrice> prices;
+    private List<CachedPrice> cached;
+    private List<ConsumerRecord<String, byte[]>> records;
+    private Consumer<?, ?> consumer;
+    private long delivered;
+
+    @Setup
+    public void setUp() throws Exception {
+        ObjectMapper objectMapper = BenchmarkData.objectMapper();
+        MeterRegistry registry = new SimpleMeterRegistry();
+
+        lastValueCache = new LastValueCache(objectMapper);
+        BinaryPriceWebSocketHandler binaryHandler = new BinaryPriceWebSocketHandler(lastValueCache, 64, 256);
+        SubscriptionRegistry subscriptionRegistry = new SubscriptionRegistry();
+        UpdateHistory updateHistory = new UpdateHistory(64);
+
+        // Synchronous broker channel, like the broker channel of the node; frames end in a counter
+        MessageChannel clientOutboundChannel = (message, timeout) -> {
+            delivered++;
+            return true;
+        };
+        ExecutorSubscribableChannel brokerChannel = new ExecutorSubscribableChannel();
+        SimpleBrokerMessageHandler broker = new SimpleBrokerMessageHandler(
+            new ExecutorSubscribableChannel(), clientOutboundChannel, brokerChannel, List.of(Destinations.TOPIC_PREFIX));
+        broker.start();
+        for (int i = 0; i < subscribers; i++) {
+            Message<byte[]> subscribe = subscribe("session-" + i);
+            broker.handleMessage(subscribe);
+            subscriptionRegistry.onSubscribe(new SessionSubscribeEvent(this, subscribe));
+        }
+
+        broadcastingService = new StockBroadcastingService(
+            new SimpMessagingTemplate(brokerChannel),
+            new PriceDeltaEncoder(objectMapper, 20),
+            binaryHandler,
+            new PriceEventStream(lastValueCache, registry, 0, 256, Duration.ofSeconds(15), Duration.ofSeconds(3)),
+            subscriptionRegistry,
+            lastValueCache,
+            updateHistory,
+            new WatchlistIndex(registry),
+            new TopMoversIndex(objectMapper, 10),
+            false);
+
+        ClusterNode clusterNode = new ClusterNode(registry,
+            new SlowConsumerPolicy(registry, 1_024_000, 10_000, 1000, 200, 5000), binaryHandler, "benchmark", false);
+        // Only used for failed records, which this benchmark has none of; never connects
+        StockPriceRecoverer recoverer = new StockPriceRecoverer(
+            new KafkaTemplate<>(new DefaultKafkaProducerFactory<>(Map.of())), clusterNode, registry, "retry", "dlt");
+        consumerService = new StockPriceConsumerService(broadcastingService, lastValueCache,
+            new PartitionMetrics(registry, "finstream.stock.prices", Duration.ofSeconds(10)), clusterNode, new LatencyMetrics(registry), recoverer, false);
+        consumer = (Consumer<?, ?>) Proxy.newProxyInstance(Consumer.class.getClassLoader(), new Class<?>[] {Consumer.class},
+            (proxy, method, args) -> "assignment".equals(method.getName()) ? Set.of() : null);
+
+        prices = BenchmarkData.prices(BATCH, 42);
+        cached = new ArrayList<>(BATCH);
+        records = new ArrayList<>(BATCH);
+        for (int i = 0; i < BATCH; i++) {
+            StockPrice price = prices.get(i);
+            cached.add(lastValueCache.update(price));
+            records.add(new ConsumerRecord<>("finstream.stock.prices", i % PARTITIONS, i, price.symbol(),
+                objectMapper.writeValueAsBytes(price)));
+        }
+
+        // Sanity check: every subscriber receives the update
+        delivered = 0;
+        broadcastingService.broadcastStockPrice(cached.get(0));
+        if (delivered != subscribers) {
+            throw new IllegalStateException("Expected " + subscribers + " frames, got " + delivered);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void parse(Blackhole blackhole) throws Exception {
+        for (ConsumerRecord<String, byte[]> record : records) {
+            blackhole.consume(StockPriceDeserializer.read(record.value()));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void cache(Blackhole blackhole) {
+        for (StockPrice price : prices) {
+            blackhole.consume(lastValueCache.update(price));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void broadcast() {
+        for (CachedPrice price : cached) {
+            broadcastingService.broadcastStockPrice(price);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void consumeBatch() {
+        consumerService.consumeStockPrices(records, ACKNOWLEDGMENT, consumer);
+    }
+
+    private static Message<byte[]> subscribe(String sessionId) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.SUBSCRIBE);
+        accessor.setSessionId(sessionId);
+        accessor.setSubscriptionId("sub-0");
+        accessor.setDestination(Destinations.TOPIC_STOCK_PRICES);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+}
@@ -0,0 +1,109 @@
+package pro.finstream.broadcasting.benchmark;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import pro.finstream.broadcasting.common.scheduling.HashedWheelTaskScheduler;
+
+/**
+ * Heartbeat rescheduling at {@code sessions} open SockJS sessions, per message sent.
+ *
+ * Every frame a SockJS session writes cancels its pending heartbeat and schedules the next one
+ * 25s out; one operation here is that pair for a random session, from 4 threads like the
+ * outbound channel pool. Compared are the timer wheel, the 10-thread ThreadPoolTaskScheduler the
+ * node used before and the same with remove-on-cancel, which takes cancelled tasks out of the
+ * heap right away, at another O(log n) under the same lock. Tear-down prints how many tasks each
+ * scheduler holds afterwards: without remove-on-cancel every cancelled heartbeat stays queued
+ * until it would have been due.
+ *
+ * Run with: mvn -P benchmark -Djmh.includes=HeartbeatSchedulerBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(1)
+public class HeartbeatSchedulerBenchmark {
+
+    private static final Duration HEARTBEAT_TIME = Duration.ofSeconds(25);
+    private static final Runnable HEARTBEAT = () -> {};
+
+    @Param({"wheel", "pool", "pool-remove-on-cancel"})
+    private String scheduler;
+
+    @Param({"100000"})
+    private int sessions;
+
+    private TaskScheduler taskScheduler;
+    private AtomicReferenceArray<ScheduledFuture<?>> heartbeats;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        taskScheduler = switch (scheduler) {
+            case "wheel" -> new HashedWheelTaskScheduler(Duration.ofMillis(100), 512,
+                Executors.newFixedThreadPool(2), "benchmark-wheel");
+            case "pool" -> pool(false);
+            case "pool-remove-on-cancel" -> pool(true);
+            default -> throw new IllegalArgumentException(scheduler);
+        };
+
+        heartbeats = new AtomicReferenceArray<>(sessions);
+        for (int i = 0; i < sessions; i++) {
+            heartbeats.set(i, scheduleHeartbeat());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (taskScheduler instanceof HashedWheelTaskScheduler wheel) {
+            System.out.printf("%n%s: %d tasks scheduled for %d sessions%n", scheduler, wheel.getScheduledCount(), sessions);
+            wheel.shutdown();
+        }
+        else if (taskScheduler instanceof ThreadPoolTaskScheduler pool) {
+            System.out.printf("%n%s: %d tasks queued for %d sessions%n",
+                scheduler, pool.getScheduledThreadPoolExecutor().getQueue().size(), sessions);
+            pool.shutdown();
+        }
+    }
+
+    @Benchmark
+    public void rescheduleHeartbeat() {
+        int session = ThreadLocalRandom.current().nextInt(sessions);
+        ScheduledFuture<?> previous = heartbeats.getAndSet(session, scheduleHeartbeat());
+        previous.cancel(false);
+    }
+
+    private ScheduledFuture<?> scheduleHeartbeat() {
+        return taskScheduler.schedule(HEARTBEAT, taskScheduler.getClock().instant().plus(HEARTBEAT_TIME));
+    }
+
+    private static ThreadPoolTaskScheduler pool(boolean removeOnCancel) {
+        ThreadPoolTaskScheduler pool = new ThreadPoolTaskScheduler();
+        pool.setPoolSize(10);
+        pool.setRemoveOnCancelPolicy(removeOnCancel);
+        pool.setThreadNamePrefix("benchmark-pool-");
+        pool.initialize();
+        return pool;
+    }
+}
@@ -0,0 +1,116 @@
+package pro.finstream.broadcasting.benchmark;
+
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.source.ImmutableJWKSet;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.interfaces.RSAPrivateKey;
+import java.security.interfaces.RSAPublicKey;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.oauth2.jose.jws.SignatureAlgorithm;
+import org.springframework.security.oauth2.jwt.JwsHeader;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtClaimsSet;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtEncoderParameters;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+import org.springframework.security.oauth2.jwt.NimbusJwtEncoder;
+import pro.finstream.broadcasting.config.CachingJwtDecoder;
+
+/**
+ * CONNECTs per second spent on token verification, with and without the JWT cache.
+ *
+ * Tokens are RS256 with a 2048-bit key, like the ones the SSO service issues. {@code tokens}
+ * distinct clients reconnect round-robin; the cached decoder is warmed with all of them, which is
+ * the state a few seconds into a reconnect storm (every client retrying, several tabs and
+ * sessions per user sharing a token). The very first CONNECT of each token is a miss and costs
+ * the same as {@link #uncached}.
+ *
+ * Run with: mvn -P benchmark -Djmh.includes=JwtConnectBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(1)
+public class JwtConnectBenchmark {
+
+    @Param({"1000", "10000"})
+    private int tokens;
+
+    private JwtDecoder uncachedDecoder;
+    private JwtDecoder cachedDecoder;
+    private List<String> issued;
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+    }
+
+    @Setup
+    public void setUp() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        KeyPair keyPair = generator.generateKeyPair();
+        RSAKey key = new RSAKey.Builder((RSAPublicKey) keyPair.getPublic())
+            .privateKey((RSAPrivateKey) keyPair.getPrivate())
+            .keyID("benchmark")
+            .build();
+        NimbusJwtEncoder encoder = new NimbusJwtEncoder(new ImmutableJWKSet<>(new JWKSet(key)));
+
+        Instant now = Instant.now();
+        issued = IntStream.range(0, tokens)
+            .mapToObj(i -> encoder.encode(JwtEncoderParameters.from(
+                JwsHeader.with(SignatureAlgorithm.RS256).build(),
+                JwtClaimsSet.builder()
+                    .issuer("http://localhost:8080")
+                    .subject(String.valueOf(i))
+                    .claim("username", "user" + i)
+                    .claim("roles", List.of("USER"))
+                    .issuedAt(now)
+                    .expiresAt(now.plus(Duration.ofHours(1)))
+                    .build()
+            )).getTokenValue())
+            .toList();
+
+        uncachedDecoder = NimbusJwtDecoder.withPublicKey((RSAPublicKey) keyPair.getPublic()).build();
+        cachedDecoder = new CachingJwtDecoder(uncachedDecoder, new SimpleMeterRegistry(), tokens, Duration.ofMinutes(5));
+        issued.forEach(cachedDecoder::decode);
+    }
+
+    @Benchmark
+    public Jwt uncached(Cursor cursor) {
+        return uncachedDecoder.decode(nextToken(cursor));
+    }
+
+    @Benchmark
+    public Jwt cached(Cursor cursor) {
+        return cachedDecoder.decode(nextToken(cursor));
+    }
+
+    private String nextToken(Cursor cursor) {
+        String token = issued.get(cursor.next);
+        cursor.next = (cursor.next + 1) % issued.size();
+        return token;
+    }
+}
@@ -0,0 +1,89 @@
+package pro.finstream.broadcasting.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompEncoder;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.util.MimeTypeUtils;
+import pro.finstream.broadcasting.domain.binary.BinaryPriceCodec;
+import pro.finstream.broadcasting.domain.stockprice.CachedPrice;
+import pro.finstream.broadcasting.domain.stockprice.StockPrice;
+
+/**
+ * JSON-over-STOMP versus the binary sub-protocol: cost and size of putting one price on the wire.
+ *
+ * Throughput is single-threaded, so ops/s is updates per second per core. The JSON path is what
+ * a STOMP client costs per price (serialize, then wrap into a MESSAGE frame); the binary path
+ * is one fixed-layout entry, alone or batched with 15 others. WebSocket framing is the same for
+ * both and left out. Bytes per update are printed once at setup.
+ *
+ * Run with: mvn -P benchmark -Djmh.includes=PriceEncodingBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PriceEncodingBenchmark {
+
+    private static final int BATCH = 16;
+
+    private ObjectMapper objectMapper;
+    private StompEncoder stompEncoder;
+    private StockPrice price;
+    private List<CachedPrice> single;
+    private List<CachedPrice> batch;
+
+    @Setup
+    public void setUp() throws Exception {
+        objectMapper = BenchmarkData.objectMapper();
+        stompEncoder = new StompEncoder();
+        batch = BenchmarkData.cached(BenchmarkData.prices(BATCH, 42), objectMapper);
+        single = batch.subList(0, 1);
+        price = single.get(0).price();
+
+        System.out.printf("%nbytes/update: json-stomp=%d, binary=%d, binary-batched=%d%n",
+            jsonStompFrame().length,
+            binaryFrame().length,
+            binaryFrameBatched().length / BATCH);
+    }
+
+    @Benchmark
+    public byte[] jsonStompFrame() throws Exception {
+        byte[] payload = objectMapper.writeValueAsBytes(price);
+
+        StompHeaderAccessor headers = StompHeaderAccessor.create(StompCommand.MESSAGE);
+        headers.setDestination("/topic/stocks/prices");
+        headers.setSubscriptionId("sub-0");
+        headers.setNativeHeader("message-id", "a1b2c3d4-1");
+        headers.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        headers.setContentLength(payload.length);
+
+        return stompEncoder.encode(headers.getMessageHeaders(), payload);
+    }
+
+    @Benchmark
+    public byte[] binaryFrame() {
+        return BinaryPriceCodec.encode(single);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public byte[] binaryFrameBatched() {
+        return BinaryPriceCodec.encode(batch);
+    }
+}
@@ -0,0 +1,100 @@
+package pro.finstream.broadcasting.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+import pro.finstream.broadcasting.domain.stockprice.StockPrice;
+import pro.finstream.broadcasting.domain.stockprice.StockPriceDeserializer;
+
+/**
+ * Spring's JsonDeserializer (data binding, as previously configured for the stock price topic)
+ * versus the streaming StockPriceDeserializer, per record of a 20-symbol batch.
+ *
+ * The filtered variants model a node whose clients watch 4 of the 20 symbols with
+ * {@code finstream.kafka.filter-unsubscribed} enabled: records of the other symbols are dropped
+ * by key and never parsed. Allocation is best compared with {@code -prof gc}.
+ *
+ * Run with: mvn -P benchmark -Djmh.includes=StockPriceDeserializationBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StockPriceDeserializationBenchmark {
+
+    private static final int BATCH = 20;
+    private static final int SUBSCRIBED = 4;
+
+    private JsonDeserializer<StockPrice> jsonDeserializer;
+    private StockPriceDeserializer streamingDeserializer;
+    private String[] keys;
+    private byte[][] payloads;
+
+    @Setup
+    public void setUp() throws Exception {
+        ObjectMapper objectMapper = BenchmarkData.objectMapper();
+        jsonDeserializer = new JsonDeserializer<>(StockPrice.class, objectMapper, false);
+        streamingDeserializer = new StockPriceDeserializer();
+
+        List<StockPrice> prices = BenchmarkData.prices(BATCH, 42);
+        keys = new String[BATCH];
+        payloads = new byte[BATCH][];
+        for (int i = 0; i < BATCH; i++) {
+            keys[i] = prices.get(i).symbol();
+            payloads[i] = objectMapper.writeValueAsBytes(prices.get(i));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void jsonDeserializer(Blackhole blackhole) {
+        for (byte[] payload : payloads) {
+            blackhole.consume(jsonDeserializer.deserialize("finstream.stock.prices", payload));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void streamingDeserializer(Blackhole blackhole) {
+        for (byte[] payload : payloads) {
+            blackhole.consume(streamingDeserializer.deserialize("finstream.stock.prices", payload));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void streamingDeserializerFiltered(Blackhole blackhole) {
+        for (int i = 0; i < BATCH; i++) {
+            if (subscribed(keys[i])) {
+                blackhole.consume(streamingDeserializer.deserialize("finstream.stock.prices", payloads[i]));
+            }
+        }
+    }
+
+    /**
+     * Stand-in for the subscription lookup: the first symbols of BenchmarkData.SYMBOLS.
+     */
+    private static boolean subscribed(String symbol) {
+        for (int i = 0; i < SUBSCRIBED; i++) {
+            if (BenchmarkData.SYMBOLS[i].equals(symbol)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
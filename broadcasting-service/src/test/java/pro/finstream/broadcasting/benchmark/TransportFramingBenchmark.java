@@ -0,0 +1,83 @@
+package pro.finstream.broadcasting.benchmark;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompEncoder;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.sockjs.frame.Jackson2SockJsMessageCodec;
+import org.springframework.web.socket.sockjs.frame.SockJsFrame;
+import org.springframework.web.socket.sockjs.frame.SockJsMessageCodec;
+import pro.finstream.broadcasting.domain.stomp.Destinations;
+
+/**
+ * Per-message cost and size of a price update on the raw WebSocket STOMP endpoint versus the
+ * SockJS endpoint (WebSocket transport).
+ *
+ * Both start from the cached JSON payload and encode the STOMP MESSAGE frame for one session, as
+ * the STOMP sub-protocol handler does. The raw endpoint sends those bytes as they are. SockJS
+ * turns them into a string, JSON-escapes it into an {@code a["..."]} array frame (every quote of
+ * the payload and the NUL terminator become escape sequences) and the container encodes the
+ * result back to UTF-8. WebSocket framing (2-4 bytes) is the same for both and left out. Bytes
+ * per message are printed once at setup.
+ *
+ * Run with: mvn -P benchmark -Djmh.includes=TransportFramingBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransportFramingBenchmark {
+
+    private StompEncoder stompEncoder;
+    private SockJsMessageCodec sockJsCodec;
+    private byte[] payload;
+
+    @Setup
+    public void setUp() throws Exception {
+        stompEncoder = new StompEncoder();
+        sockJsCodec = new Jackson2SockJsMessageCodec();
+        payload = BenchmarkData.cached(BenchmarkData.prices(1, 42), BenchmarkData.objectMapper()).get(0).payload();
+
+        System.out.printf("%nbytes/message: payload=%d, websocket=%d, sockjs=%d%n",
+            payload.length, webSocket().length, sockJs().length);
+    }
+
+    @Benchmark
+    public byte[] webSocket() {
+        return new TextMessage(stompFrame()).asBytes();
+    }
+
+    @Benchmark
+    public byte[] sockJs() {
+        String frame = new String(stompFrame(), StandardCharsets.UTF_8);
+        return new TextMessage(SockJsFrame.messageFrame(sockJsCodec, frame).getContent()).asBytes();
+    }
+
+    private byte[] stompFrame() {
+        StompHeaderAccessor headers = StompHeaderAccessor.create(StompCommand.MESSAGE);
+        headers.setDestination("/topic/stocks/prices");
+        headers.setSubscriptionId("sub-0");
+        headers.setNativeHeader("message-id", "a1b2c3d4-1");
+        headers.setNativeHeader(Destinations.HEADER_SYMBOL, "AAPL");
+        headers.setNativeHeader(Destinations.HEADER_SEQ, "1f2e3d4c:1042");
+        headers.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        headers.setContentLength(payload.length);
+
+        return stompEncoder.encode(headers.getMessageHeaders(), payload);
+    }
+}
@@ -0,0 +1,75 @@
+package pro.finstream.broadcasting.common.scheduling;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class HashedWheelTaskSchedulerTest {
+
+    // 8 buckets of 10ms: deadlines past 80ms take more than one round
+    private final HashedWheelTaskScheduler scheduler = new HashedWheelTaskScheduler(
+        Duration.ofMillis(10), 8, Executors.newFixedThreadPool(2), "test-wheel");
+
+    @AfterEach
+    void shutdown() {
+        scheduler.shutdown();
+    }
+
+    @Test
+    void runsOneShotTasksNotBeforeTheirDeadline() throws Exception {
+        Instant deadline = Instant.now().plusMillis(250);
+        List<Instant> ranAt = new ArrayList<>();
+
+        ScheduledFuture<?> future = scheduler.schedule(() -> ranAt.add(Instant.now()), deadline);
+        future.get(2, TimeUnit.SECONDS);
+
+        assertThat(future.isDone()).isTrue();
+        assertThat(ranAt).singleElement().satisfies(at -> assertThat(at).isAfterOrEqualTo(deadline));
+        assertThat(scheduler.getScheduledCount()).isZero();
+    }
+
+    @Test
+    void cancelledTasksNeverRun() throws Exception {
+        AtomicInteger runs = new AtomicInteger();
+        List<ScheduledFuture<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            futures.add(scheduler.schedule(runs::incrementAndGet, Instant.now().plusMillis(200 + i % 100)));
+        }
+        for (int i = 0; i < futures.size(); i += 2) {
+            assertThat(futures.get(i).cancel(false)).isTrue();
+        }
+
+        futures.get(futures.size() - 1).get(2, TimeUnit.SECONDS);
+        Thread.sleep(50);
+
+        assertThat(runs).hasValue(5_000);
+        assertThat(futures.get(0).isCancelled()).isTrue();
+        assertThat(scheduler.getScheduledCount()).isZero();
+    }
+
+    @Test
+    void periodicTasksKeepRunningAfterFailuresUntilCancelled() throws Exception {
+        AtomicInteger runs = new AtomicInteger();
+        ScheduledFuture<?> future = scheduler.scheduleWithFixedDelay(() -> {
+            runs.incrementAndGet();
+            throw new IllegalStateException("failing task");
+        }, Duration.ofMillis(20));
+
+        Thread.sleep(200);
+        future.cancel(false);
+        int afterCancel = runs.get();
+        Thread.sleep(100);
+
+        assertThat(afterCancel).isGreaterThan(3);
+        assertThat(runs.get()).isLessThanOrEqualTo(afterCancel + 1);
+    }
+}
@@ -0,0 +1,56 @@
+package pro.finstream.broadcasting.common.web;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+class RequestMonitorTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final RequestMonitor monitor = new RequestMonitor(registry);
+
+    @Test
+    void recordsByMatchedPatternNotByUri() throws Exception {
+        monitor.doFilter(request("GET", "/api/prices/AAPL", "/api/prices/{symbol}"), new MockHttpServletResponse(), new MockFilterChain());
+        monitor.doFilter(request("GET", "/api/prices/MSFT", "/api/prices/{symbol}"), new MockHttpServletResponse(), new MockFilterChain());
+
+        Timer timer = registry.get(RequestMonitor.METRIC)
+            .tags("method", "GET", "route", "/api/prices/{symbol}", "status", "200")
+            .timer();
+        assertThat(timer.count()).isEqualTo(2);
+        assertThat(registry.find(RequestMonitor.METRIC).timers()).hasSize(1);
+    }
+
+    @Test
+    void boundsUnmatchedRoutesAndUnknownMethods() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        response.setStatus(404);
+        monitor.doFilter(request("PROPFIND", "/random/" + System.nanoTime(), null), response, new MockFilterChain());
+
+        assertThat(registry.get(RequestMonitor.METRIC)
+            .tags("method", "OTHER", "route", RequestMonitor.UNMATCHED, "status", "404")
+            .timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void skipsStaticResources() throws Exception {
+        monitor.doFilter(request("GET", "/_/app.js", null), new MockHttpServletResponse(), new MockFilterChain());
+        monitor.doFilter(request("GET", "/favicon.ico", null), new MockHttpServletResponse(), new MockFilterChain());
+
+        assertThat(registry.find(RequestMonitor.METRIC).timers()).isEmpty();
+    }
+
+    private static MockHttpServletRequest request(String method, String uri, String pattern) {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, uri);
+        if (pattern != null) {
+            request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, pattern);
+        }
+        return request;
+    }
+}
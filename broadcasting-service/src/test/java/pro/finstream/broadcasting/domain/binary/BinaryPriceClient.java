@@ -0,0 +1,86 @@
+package pro.finstream.broadcasting.domain.binary;
+
+import java.io.ByteArrayOutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.WebSocket;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.Consumer;
+import pro.finstream.broadcasting.domain.binary.BinaryPriceCodec.DecodedPrice;
+
+/**
+ * Reference client for the {@value BinaryPriceCodec#SUB_PROTOCOL} sub-protocol, using only the JDK.
+ *
+ * Usage: {@code BinaryPriceClient [ws://localhost:8082/stock-updates-bin]} with the access token
+ * in the {@code FINSTREAM_TOKEN} environment variable. Prints every price received.
+ */
+public class BinaryPriceClient implements WebSocket.Listener {
+
+    private final Consumer<List<DecodedPrice>> onPrices;
+    private final CountDownLatch closed = new CountDownLatch(1);
+    private final ByteArrayOutputStream partial = new ByteArrayOutputStream();
+
+    public BinaryPriceClient(Consumer<List<DecodedPrice>> onPrices) {
+        this.onPrices = onPrices;
+    }
+
+    /**
+     * Open a binary price connection, authenticating the handshake with the given JWT.
+     */
+    public CompletableFuture<WebSocket> connect(URI uri, String token) {
+        return HttpClient.newHttpClient()
+            .newWebSocketBuilder()
+            .subprotocols(BinaryPriceCodec.SUB_PROTOCOL)
+            .header("Authorization", "Bearer " + token)
+            .buildAsync(uri, this);
+    }
+
+    public void awaitClose() throws InterruptedException {
+        closed.await();
+    }
+
+    @Override
+    public CompletionStage<?> onBinary(WebSocket webSocket, ByteBuffer data, boolean last) {
+        if (last && partial.size() == 0) {
+            onPrices.accept(BinaryPriceCodec.decode(data));
+        }
+        else {
+            byte[] chunk = new byte[data.remaining()];
+            data.get(chunk);
+            partial.writeBytes(chunk);
+            if (last) {
+                onPrices.accept(BinaryPriceCodec.decode(ByteBuffer.wrap(partial.toByteArray())));
+                partial.reset();
+            }
+        }
+        webSocket.request(1);
+        return null;
+    }
+
+    @Override
+    public CompletionStage<?> onClose(WebSocket webSocket, int statusCode, String reason) {
+        System.out.printf("Connection closed: %d %s%n", statusCode, reason);
+        closed.countDown();
+        return null;
+    }
+
+    @Override
+    public void onError(WebSocket webSocket, Throwable error) {
+        error.printStackTrace();
+        closed.countDown();
+    }
+
+    public static void main(String... args) throws Exception {
+        URI uri = URI.create(args.length > 0 ? args[0] : "ws://localhost:8082/stock-updates-bin");
+        String token = System.getenv("FINSTREAM_TOKEN");
+
+        BinaryPriceClient client = new BinaryPriceClient(prices -> prices.forEach(p ->
+            System.out.printf("#%d %s %s (%s)%n", p.sequence(), p.price().symbol(), p.price().price(), p.price().changePercent())));
+        client.connect(uri, token).join();
+        client.awaitClose();
+    }
+}
@@ -0,0 +1,42 @@
+package pro.finstream.broadcasting.domain.binary;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import pro.finstream.broadcasting.domain.binary.BinaryPriceCodec.DecodedPrice;
+import pro.finstream.broadcasting.domain.stockprice.CachedPrice;
+import pro.finstream.broadcasting.domain.stockprice.StockPrice;
+
+class BinaryPriceCodecTest {
+
+    @Test
+    void roundTripsBatchOfPrices() {
+        StockPrice aapl = new StockPrice("AAPL", new BigDecimal("213.88"), new BigDecimal("-1.44"), new BigDecimal("-0.6779"),
+            new BigDecimal("215.24"), new BigDecimal("211.68"), 1_753_453_830L, "finnhub", LocalDateTime.of(2025, 7, 25, 14, 30, 30, 123_000_000));
+        StockPrice msft = new StockPrice("MSFT", new BigDecimal("510.05"), null, null, null, null, null, "finnhub", null);
+
+        byte[] frame = BinaryPriceCodec.encode(List.of(new CachedPrice(aapl, 7, new byte[0]), new CachedPrice(msft, 8, new byte[0])));
+        List<DecodedPrice> decoded = BinaryPriceCodec.decode(ByteBuffer.wrap(frame));
+
+        assertThat(frame).hasSize(BinaryPriceCodec.HEADER_SIZE + 2 * BinaryPriceCodec.ENTRY_FIXED_SIZE + 8);
+        assertThat(decoded).extracting(DecodedPrice::sequence).containsExactly(7L, 8L);
+
+        StockPrice first = decoded.get(0).price();
+        assertThat(first.symbol()).isEqualTo("AAPL");
+        assertThat(first.price()).isEqualByComparingTo("213.88");
+        assertThat(first.change()).isEqualByComparingTo("-1.44");
+        assertThat(first.changePercent()).isEqualByComparingTo("-0.6779");
+        assertThat(first.timestamp()).isEqualTo(1_753_453_830L);
+        assertThat(first.processedAt()).isEqualTo(aapl.processedAt());
+
+        StockPrice second = decoded.get(1).price();
+        assertThat(second.symbol()).isEqualTo("MSFT");
+        assertThat(second.change()).isNull();
+        assertThat(second.timestamp()).isNull();
+        assertThat(second.processedAt()).isNull();
+    }
+}
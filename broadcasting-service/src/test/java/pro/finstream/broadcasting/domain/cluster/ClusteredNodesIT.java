@@ -0,0 +1,117 @@
+package pro.finstream.broadcasting.domain.cluster;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.ContainerTestUtils;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+import pro.finstream.broadcasting.App;
+import pro.finstream.broadcasting.domain.stockprice.CachedPrice;
+import pro.finstream.broadcasting.domain.stockprice.LastValueCache;
+import pro.finstream.broadcasting.domain.stockprice.StockPrice;
+
+/**
+ * Two in-process broadcaster nodes in clustered mode against one embedded broker: each node
+ * must receive every symbol, not just the symbols of "its" partitions.
+ */
+@EmbeddedKafka(partitions = ClusteredNodesIT.PARTITIONS, topics = ClusteredNodesIT.TOPIC)
+class ClusteredNodesIT {
+
+    static final String TOPIC = "finstream.stock.prices";
+    static final int PARTITIONS = 6;
+
+    private static final List<String> SYMBOLS = List.of("AAPL", "MSFT", "GOOGL", "AMZN", "NVDA", "META", "TSLA", "JPM");
+    private static final long TIMEOUT_MS = 30_000;
+
+    private final List<ConfigurableApplicationContext> nodes = new ArrayList<>();
+
+    @AfterEach
+    void stopNodes() {
+        nodes.forEach(ConfigurableApplicationContext::close);
+    }
+
+    @Test
+    void everyNodeReceivesTheFullFeed(EmbeddedKafkaBroker broker) throws Exception {
+        ConfigurableApplicationContext nodeA = startNode(broker, "node-a");
+        ConfigurableApplicationContext nodeB = startNode(broker, "node-b");
+
+        assertThat(nodeA.getBean(ClusterNode.class).getConsumerGroupId()).isEqualTo("finstream-broadcaster-node-a");
+        assertThat(nodeB.getBean(ClusterNode.class).getConsumerGroupId()).isEqualTo("finstream-broadcaster-node-b");
+
+        KafkaTemplate<String, StockPrice> producer = producer(broker);
+        LastValueCache cacheA = nodeA.getBean(LastValueCache.class);
+        LastValueCache cacheB = nodeB.getBean(LastValueCache.class);
+
+        // Per-node groups start at the latest offset, so keep publishing until both nodes caught up
+        long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+        while ((!hasAllSymbols(cacheA) || !hasAllSymbols(cacheB)) && System.currentTimeMillis() < deadline) {
+            for (String symbol : SYMBOLS) {
+                producer.send(TOPIC, symbol, price(symbol));
+            }
+            producer.flush();
+            Thread.sleep(200);
+        }
+
+        assertThat(symbols(cacheA)).containsExactlyInAnyOrderElementsOf(SYMBOLS);
+        assertThat(symbols(cacheB)).containsExactlyInAnyOrderElementsOf(SYMBOLS);
+    }
+
+    private ConfigurableApplicationContext startNode(EmbeddedKafkaBroker broker, String nodeId) throws Exception {
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(App.class)
+            .properties(
+                "server.port=0",
+                "spring.kafka.bootstrap-servers=" + broker.getBrokersAsString(),
+                "finstream.kafka.topic.partitions=" + PARTITIONS,
+                "finstream.cluster.enabled=true",
+                "finstream.cluster.node-id=" + nodeId
+            )
+            .run();
+        nodes.add(context);
+
+        // With its own group, each node must end up owning all partitions
+        for (MessageListenerContainer container : context.getBean(KafkaListenerEndpointRegistry.class).getListenerContainers()) {
+            ContainerTestUtils.waitForAssignment(container, PARTITIONS);
+        }
+        return context;
+    }
+
+    private static KafkaTemplate<String, StockPrice> producer(EmbeddedKafkaBroker broker) {
+        Map<String, Object> props = KafkaTestUtils.producerProps(broker);
+        props.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
+        props.put(JsonSerializer.ADD_TYPE_INFO_HEADERS, false);
+        return new KafkaTemplate<>(new DefaultKafkaProducerFactory<>(props));
+    }
+
+    private static StockPrice price(String symbol) {
+        return new StockPrice(symbol, new BigDecimal("100.00"), BigDecimal.ZERO, BigDecimal.ZERO,
+            new BigDecimal("101.00"), new BigDecimal("99.00"), System.currentTimeMillis(), "test", LocalDateTime.now());
+    }
+
+    private static boolean hasAllSymbols(LastValueCache cache) {
+        return symbols(cache).containsAll(SYMBOLS);
+    }
+
+    private static Set<String> symbols(LastValueCache cache) {
+        return cache.getAll().stream().map(CachedPrice::symbol).collect(Collectors.toSet());
+    }
+}
@@ -0,0 +1,32 @@
+package pro.finstream.broadcasting.domain.market;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Instant;
+import org.junit.jupiter.api.Test;
+import pro.finstream.broadcasting.domain.market.MarketStatusEvent.MarketState;
+import pro.finstream.broadcasting.domain.stomp.StockBroadcastingService.SystemNotification;
+
+class MarketStatusConsumerTest {
+
+    @Test
+    void closeNotificationNamesTheNextOpenInExchangeTime() {
+        SystemNotification notification = MarketStatusConsumer.notification(new MarketStatusEvent(
+            "XNYS", MarketState.CLOSED, "OUTSIDE_HOURS", "America/New_York",
+            Instant.parse("2026-10-16T20:00:05Z"), Instant.parse("2026-10-19T13:30:00Z")));
+
+        assertThat(notification.type()).isEqualTo(MarketStatusConsumer.NOTIFICATION_TYPE);
+        assertThat(notification.severity()).isEqualTo("info");
+        assertThat(notification.message()).isEqualTo("Market XNYS closed, reopens Mon 09:30 EDT");
+    }
+
+    @Test
+    void earlyCloseIsAWarning() {
+        SystemNotification notification = MarketStatusConsumer.notification(new MarketStatusEvent(
+            "XNYS", MarketState.OPEN, "EARLY_CLOSE", "America/New_York",
+            Instant.parse("2026-11-27T14:30:02Z"), Instant.parse("2026-11-27T18:00:00Z")));
+
+        assertThat(notification.severity()).isEqualTo("warning");
+        assertThat(notification.message()).isEqualTo("Market XNYS opened, closes early Fri 13:00 EST");
+    }
+}
@@ -0,0 +1,67 @@
+package pro.finstream.broadcasting.domain.movers;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.math.BigDecimal;
+import org.junit.jupiter.api.Test;
+import pro.finstream.broadcasting.domain.movers.TopMovers.Mover;
+import pro.finstream.broadcasting.domain.movers.TopMoversIndex.Snapshot;
+import pro.finstream.broadcasting.domain.stockprice.StockPrice;
+
+class TopMoversIndexTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final TopMoversIndex index = new TopMoversIndex(objectMapper, 2);
+
+    @Test
+    void ranksGainersAndLosersByChangePercent() throws Exception {
+        index.update(price("AAPL", "1.5"));
+        index.update(price("MSFT", "-0.5"));
+        index.update(price("NVDA", "3.2"));
+        index.update(price("IBM", "0.1"));
+        index.update(price("TSLA", "-2.0"));
+        index.update(price("GOOG", "0"));
+
+        TopMovers movers = read(index.current());
+        assertThat(movers.gainers()).extracting(Mover::symbol).containsExactly("NVDA", "AAPL");
+        assertThat(movers.losers()).extracting(Mover::symbol).containsExactly("TSLA", "MSFT");
+    }
+
+    @Test
+    void publishesOnlyWhenMembershipOrOrderChanges() throws Exception {
+        assertThat(index.update(price("AAPL", "1.5"))).isNotNull();
+        assertThat(index.update(price("NVDA", "3.2"))).isNotNull();
+
+        // Outside the top 2 and listed symbols keeping their order
+        assertThat(index.update(price("IBM", "0.1"))).isNull();
+        assertThat(index.update(price("AAPL", "1.7"))).isNull();
+        assertThat(index.update(price("IBM", "0.2"))).isNull();
+
+        // Reordering and replacement
+        Snapshot reordered = index.update(price("AAPL", "4.0"));
+        assertThat(read(reordered).gainers()).extracting(Mover::symbol).containsExactly("AAPL", "NVDA");
+        Snapshot replaced = index.update(price("NVDA", "-1.0"));
+        assertThat(read(replaced).gainers()).extracting(Mover::symbol).containsExactly("AAPL", "IBM");
+        assertThat(read(replaced).losers()).extracting(Mover::symbol).containsExactly("NVDA");
+        assertThat(replaced.version()).isEqualTo(reordered.version() + 1);
+    }
+
+    @Test
+    void dropsSymbolsWithoutChangePercent() throws Exception {
+        index.update(price("AAPL", "1.5"));
+        Snapshot snapshot = index.update(price("AAPL", null));
+
+        assertThat(read(snapshot).gainers()).isEmpty();
+        assertThat(index.update(price("AAPL", null))).isNull();
+    }
+
+    private TopMovers read(Snapshot snapshot) throws Exception {
+        return objectMapper.readValue(snapshot.payload(), TopMovers.class);
+    }
+
+    private static StockPrice price(String symbol, String changePercent) {
+        BigDecimal percent = changePercent != null ? new BigDecimal(changePercent) : null;
+        return new StockPrice(symbol, BigDecimal.TEN, percent, percent, null, null, null, "test", null);
+    }
+}
@@ -0,0 +1,68 @@
+package pro.finstream.broadcasting.domain.sse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import pro.finstream.broadcasting.domain.sse.PriceEventStream.Event;
+import pro.finstream.broadcasting.domain.stockprice.CachedPrice;
+import pro.finstream.broadcasting.domain.stockprice.LastValueCache;
+import pro.finstream.broadcasting.domain.stockprice.StockPrice;
+
+class PriceEventStreamTest {
+
+    private final LastValueCache lastValueCache = new LastValueCache(new ObjectMapper());
+    private final PriceEventStream stream = new PriceEventStream(lastValueCache,
+        new SimpleMeterRegistry(), 10, 16, Duration.ofSeconds(15), Duration.ofSeconds(3));
+
+    @Test
+    void framesPayloadAsEventWithOptionalId() {
+        byte[] payload = "{\"symbol\":\"AAPL\"}".getBytes(StandardCharsets.UTF_8);
+
+        assertThat(new String(PriceEventStream.frame("abc:42", payload), StandardCharsets.UTF_8))
+            .isEqualTo("id:abc:42\ndata:{\"symbol\":\"AAPL\"}\n\n");
+        assertThat(new String(PriceEventStream.frame(null, payload), StandardCharsets.UTF_8))
+            .isEqualTo("data:{\"symbol\":\"AAPL\"}\n\n");
+        assertThat(new String(PriceEventStream.checkpoint("abc:42"), StandardCharsets.UTF_8)).isEqualTo("id:abc:42\n\n");
+    }
+
+    @Test
+    void startsWithCurrentPricesOfRequestedSymbols() {
+        update("AAPL", 1);
+        update("MSFT", 2);
+        update("AAPL", 3);
+
+        assertThat(stream.initialEvents(List.of("AAPL", "GOOG"), null))
+            .extracting(Event::symbol, Event::sequence)
+            .containsExactly(tuple("AAPL", 3L));
+        assertThat(stream.initialEvents(List.of(), "other-epoch:1")).extracting(Event::sequence).containsExactlyInAnyOrder(2L, 3L);
+    }
+
+    @Test
+    void resumesWithLatestPriceOfSymbolsChangedSince() {
+        update("AAPL", 1);
+        update("MSFT", 2);
+        String position = lastValueCache.broadcastPosition();
+        update("AAPL", 3);
+        update("IBM", 4);
+        update("IBM", 5);
+
+        assertThat(stream.initialEvents(List.of(), position))
+            .extracting(Event::symbol, Event::sequence)
+            .containsExactlyInAnyOrder(tuple("AAPL", 3L), tuple("IBM", 5L));
+        assertThat(stream.initialEvents(List.of("MSFT"), position)).isEmpty();
+    }
+
+    private CachedPrice update(String symbol, int price) {
+        CachedPrice cached = lastValueCache.update(
+            new StockPrice(symbol, BigDecimal.valueOf(price), null, null, null, null, null, "test", null));
+        lastValueCache.markBroadcast();
+        return cached;
+    }
+}
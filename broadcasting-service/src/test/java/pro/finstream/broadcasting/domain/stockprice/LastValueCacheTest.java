@@ -0,0 +1,61 @@
+package pro.finstream.broadcasting.domain.stockprice;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.math.BigDecimal;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class LastValueCacheTest {
+
+    private final LastValueCache lastValueCache = new LastValueCache(new ObjectMapper());
+
+    @Test
+    void parsesResumeVectorOfOwnEpoch() {
+        update("AAPL");
+        update("MSFT");
+        update("AAPL");
+        String epoch = lastValueCache.getEpoch();
+
+        assertThat(lastValueCache.resumeVectorOf(epoch + ":AAPL=3,MSFT=2")).isEqualTo(Map.of("AAPL", 3L, "MSFT", 2L));
+        assertThat(lastValueCache.resumeVectorOf(epoch + ":MSFT=2")).isEqualTo(Map.of("MSFT", 2L));
+        assertThat(lastValueCache.resumeVectorOf(epoch + ":")).isEmpty();
+    }
+
+    @Test
+    void rejectsForeignOrMalformedResumeVector() {
+        update("AAPL");
+        String epoch = lastValueCache.getEpoch();
+
+        assertThat(lastValueCache.resumeVectorOf(null)).isNull();
+        assertThat(lastValueCache.resumeVectorOf("other:AAPL=1")).isNull();
+        // A single sequence is no resume point
+        assertThat(lastValueCache.resumeVectorOf(epoch + ":1")).isNull();
+        assertThat(lastValueCache.resumeVectorOf(epoch + ":AAPL=x")).isNull();
+        assertThat(lastValueCache.resumeVectorOf(epoch + ":AAPL=2")).isNull();
+    }
+
+    @Test
+    void broadcastSequenceStaysBelowUpdatesNotYetBroadcast() throws Exception {
+        update("AAPL");
+        lastValueCache.markBroadcast();
+        assertThat(lastValueCache.getBroadcastSequence()).isEqualTo(1);
+
+        // Another consumer thread takes sequence 2 and has not broadcast it yet
+        Thread other = new Thread(() -> update("MSFT"));
+        other.start();
+        other.join();
+        update("AAPL");
+        assertThat(lastValueCache.getSequence()).isEqualTo(3);
+        assertThat(lastValueCache.getBroadcastSequence()).isEqualTo(1);
+
+        lastValueCache.markBroadcast();
+        assertThat(lastValueCache.getBroadcastSequence()).isEqualTo(1);
+        assertThat(lastValueCache.broadcastPosition()).isEqualTo(lastValueCache.getEpoch() + ":1");
+    }
+
+    private void update(String symbol) {
+        lastValueCache.update(new StockPrice(symbol, BigDecimal.TEN, null, null, null, null, null, "test", null));
+    }
+}
@@ -0,0 +1,75 @@
+package pro.finstream.broadcasting.domain.stockprice;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import org.junit.jupiter.api.Test;
+import pro.finstream.broadcasting.domain.stockprice.LatestPricesView.Snapshot;
+
+class LatestPricesViewTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final LastValueCache lastValueCache = new LastValueCache(objectMapper);
+    private final LatestPricesView view = new LatestPricesView(lastValueCache);
+
+    @Test
+    void assemblesCachedPayloadsOrderedBySymbol() throws Exception {
+        assertThat(new String(view.all().json())).isEqualTo("[]");
+
+        update("MSFT", 420);
+        update("AAPL", 210);
+        update("IBM", 250);
+
+        Snapshot all = view.all();
+        JsonNode json = objectMapper.readTree(all.json());
+        assertThat(json).extracting(p -> p.get("symbol").asText()).containsExactly("AAPL", "IBM", "MSFT");
+        assertThat(all.version()).isEqualTo(3);
+        assertThat(all.count()).isEqualTo(3);
+
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(all.gzip()))) {
+            assertThat(gzip.readAllBytes()).isEqualTo(all.json());
+        }
+    }
+
+    @Test
+    void reusesSnapshotUntilNextUpdate() {
+        update("AAPL", 210);
+        Snapshot first = view.all();
+
+        assertThat(view.all()).isSameAs(first);
+
+        update("AAPL", 211);
+        assertThat(view.all()).isNotSameAs(first).extracting(Snapshot::version).isEqualTo(2L);
+    }
+
+    @Test
+    void versionsFilteredViewByItsOwnPrices() throws Exception {
+        update("AAPL", 210);
+        update("MSFT", 420);
+        update("IBM", 250);
+
+        List<String> symbols = List.of("MSFT", "AAPL", "GOOG");
+        List<CachedPrice> prices = view.pricesOf(symbols);
+        Snapshot snapshot = view.of(prices);
+        assertThat(objectMapper.readTree(snapshot.json())).extracting(p -> p.get("symbol").asText()).containsExactly("AAPL", "MSFT");
+        assertThat(snapshot.version()).isEqualTo(3).isEqualTo(view.versionOf(prices));
+        assertThat(snapshot.gzip()).isNull();
+
+        // Unchanged by other symbols, changed by any of its own
+        update("IBM", 251);
+        assertThat(view.versionOf(view.pricesOf(symbols))).isEqualTo(3);
+        update("AAPL", 211);
+        assertThat(view.versionOf(view.pricesOf(symbols))).isEqualTo(7);
+
+        assertThat(view.etag(3)).isEqualTo("W/\"" + lastValueCache.getEpoch() + "-3\"");
+    }
+
+    private void update(String symbol, int price) {
+        lastValueCache.update(new StockPrice(symbol, BigDecimal.valueOf(price), null, null, null, null, null, "test", null));
+    }
+}
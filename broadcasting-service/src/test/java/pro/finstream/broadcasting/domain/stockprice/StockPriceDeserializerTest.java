@@ -0,0 +1,57 @@
+package pro.finstream.broadcasting.domain.stockprice;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import org.apache.kafka.common.errors.SerializationException;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+class StockPriceDeserializerTest {
+
+    private final StockPriceDeserializer deserializer = new StockPriceDeserializer();
+
+    @Test
+    void readsWhatJacksonWrites() throws Exception {
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        StockPrice price = new StockPrice("AAPL", new BigDecimal("212.48"), new BigDecimal("-1.30"),
+            new BigDecimal("-0.6081"), new BigDecimal("215.00"), new BigDecimal("210.12"), 1_753_453_800L,
+            "finnhub", LocalDateTime.of(2025, 7, 25, 14, 30, 0, 123_456_789));
+
+        assertThat(deserializer.deserialize("t", objectMapper.writeValueAsBytes(price))).isEqualTo(price);
+    }
+
+    @Test
+    void readsInstantsOfTheStockServiceAsUtc() {
+        assertThat(read("{\"symbol\":\"MSFT\",\"price\":1,\"processedAt\":\"2025-07-25T14:30:00.5Z\"}").processedAt())
+            .isEqualTo(LocalDateTime.of(2025, 7, 25, 14, 30, 0, 500_000_000));
+        assertThat(read("{\"symbol\":\"MSFT\",\"price\":1,\"processedAt\":\"2025-07-25T16:30:00+02:00\"}").processedAt())
+            .isEqualTo(LocalDateTime.of(2025, 7, 25, 14, 30));
+        assertThat(read("{\"symbol\":\"MSFT\",\"price\":1,\"processedAt\":1753453800.250000000}").processedAt())
+            .isEqualTo(LocalDateTime.of(2025, 7, 25, 14, 30, 0, 250_000_000));
+    }
+
+    @Test
+    void skipsUnknownFieldsAndKeepsNulls() {
+        StockPrice price = read("{\"extra\":{\"a\":[1,2]},\"symbol\":\"TSLA\",\"price\":null,\"source\":null}");
+
+        assertThat(price.symbol()).isEqualTo("TSLA");
+        assertThat(price.price()).isNull();
+        assertThat(price.source()).isNull();
+    }
+
+    @Test
+    void rejectsMalformedInput() {
+        assertThatThrownBy(() -> read("[1,2]")).isInstanceOf(SerializationException.class);
+        assertThatThrownBy(() -> read("{\"symbol\":\"AAPL\",\"price\":\"abc\"}")).isInstanceOf(SerializationException.class);
+        assertThatThrownBy(() -> read("{\"symbol\":\"AAPL\"")).isInstanceOf(SerializationException.class);
+    }
+
+    private StockPrice read(String json) {
+        return deserializer.deserialize("t", json.getBytes(StandardCharsets.UTF_8));
+    }
+}
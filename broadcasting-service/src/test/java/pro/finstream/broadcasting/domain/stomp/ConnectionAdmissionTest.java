@@ -0,0 +1,65 @@
+package pro.finstream.broadcasting.domain.stomp;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import pro.finstream.broadcasting.common.error.BaseException;
+import pro.finstream.broadcasting.common.error.ErrorCode;
+
+class ConnectionAdmissionTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    void enforcesMaxConnectionsPerUserAndReleasesOnDisconnect() {
+        ConnectionAdmission admission = new ConnectionAdmission(registry, 2, 1000, 1000);
+        admission.admitUser("s1", "alice");
+        admission.admitUser("s2", "alice");
+
+        assertThatThrownBy(() -> admission.admitUser("s3", "alice"))
+            .isInstanceOf(BaseException.class)
+            .extracting(e -> ((BaseException) e).getCode())
+            .isEqualTo(ErrorCode.E_CONNECTION_LIMIT_EXCEEDED);
+
+        admission.onDisconnect(disconnect("s1"));
+        admission.onDisconnect(disconnect("s1"));
+        assertThat(admission.getConnectionCount("alice")).isEqualTo(1);
+
+        admission.admitUser("s3", "alice");
+        admission.onDisconnect(disconnect("s2"));
+        admission.onDisconnect(disconnect("s3"));
+        assertThat(admission.getConnectionCount("alice")).isZero();
+
+        admission.admitUser("s4", "alice");
+        assertThat(admission.getConnectionCount("alice")).isEqualTo(1);
+        assertThat(registry.get("finstream.websocket.connect.rejected").tag("reason", "user-limit").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void rejectsConnectsBeyondBurst() {
+        ConnectionAdmission admission = new ConnectionAdmission(registry, 3, 1, 5);
+        for (int i = 0; i < 5; i++) {
+            admission.acquireConnectPermit("s" + i);
+        }
+
+        assertThatThrownBy(() -> admission.acquireConnectPermit("s5"))
+            .isInstanceOf(BaseException.class)
+            .extracting(e -> ((BaseException) e).getCode())
+            .isEqualTo(ErrorCode.E_RATE_LIMIT_EXCEEDED);
+        assertThat(registry.get("finstream.websocket.connect.rejected").tag("reason", "rate").counter().count()).isEqualTo(1);
+    }
+
+    private static SessionDisconnectEvent disconnect(String sessionId) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.DISCONNECT);
+        accessor.setSessionId(sessionId);
+        return new SessionDisconnectEvent(new Object(), MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders()),
+            sessionId, CloseStatus.NORMAL);
+    }
+}
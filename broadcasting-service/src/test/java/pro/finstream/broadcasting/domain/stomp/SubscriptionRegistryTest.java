@@ -0,0 +1,64 @@
+package pro.finstream.broadcasting.domain.stomp;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.security.Principal;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.messaging.SessionConnectedEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+
+class SubscriptionRegistryTest {
+
+    private final SubscriptionRegistry registry = new SubscriptionRegistry();
+    private final Principal alice = () -> "alice";
+
+    @Test
+    void countsSubscribersPerDestinationSymbolAndUser() {
+        registry.onConnected(new SessionConnectedEvent(this, frame(StompCommand.CONNECTED, "s1", null, null), alice));
+        registry.onConnected(new SessionConnectedEvent(this, frame(StompCommand.CONNECTED, "s2", null, null), alice));
+        registry.onSubscribe(new SessionSubscribeEvent(this, frame(StompCommand.SUBSCRIBE, "s1", "sub-0", "/topic/stocks/prices/AAPL")));
+        registry.onSubscribe(new SessionSubscribeEvent(this, frame(StompCommand.SUBSCRIBE, "s2", "sub-0", "/topic/stocks/prices/AAPL")));
+        registry.onSubscribe(new SessionSubscribeEvent(this, frame(StompCommand.SUBSCRIBE, "s2", "sub-1", Destinations.TOPIC_STOCK_PRICES)));
+
+        assertThat(registry.getSessionCount("alice")).isEqualTo(2);
+        assertThat(registry.getSymbolSubscriberCount("AAPL")).isEqualTo(2);
+        assertThat(registry.getSymbolSubscriberCount("MSFT")).isZero();
+        assertThat(registry.hasSubscribers(Destinations.TOPIC_STOCK_PRICES)).isTrue();
+        assertThat(registry.hasSubscribers(Destinations.TOPIC_STOCK_DELTAS)).isFalse();
+
+        registry.onUnsubscribe(new SessionUnsubscribeEvent(this, frame(StompCommand.UNSUBSCRIBE, "s1", "sub-0", null)));
+        assertThat(registry.getSymbolSubscriberCount("AAPL")).isEqualTo(1);
+
+        // Disconnect is published twice for sessions closed without DISCONNECT frame
+        SessionDisconnectEvent disconnect = new SessionDisconnectEvent(this, frame(StompCommand.DISCONNECT, "s2", null, null), "s2", CloseStatus.NORMAL);
+        registry.onDisconnect(disconnect);
+        registry.onDisconnect(disconnect);
+
+        assertThat(registry.getSymbolSubscriberCount("AAPL")).isZero();
+        assertThat(registry.getSubscriptionCount()).isZero();
+        assertThat(registry.getSessionCount("alice")).isEqualTo(1);
+        assertThat(registry.getSessionCount()).isEqualTo(1);
+    }
+
+    @Test
+    void extractsSymbolOfPerSymbolDestinations() {
+        assertThat(SubscriptionRegistry.symbolOf("/topic/stocks/prices/NVDA")).isEqualTo("NVDA");
+        assertThat(SubscriptionRegistry.symbolOf(Destinations.TOPIC_STOCK_PRICES)).isNull();
+        assertThat(SubscriptionRegistry.symbolOf("/topic/stocks/prices/")).isNull();
+    }
+
+    private static Message<byte[]> frame(StompCommand command, String sessionId, String subscriptionId, String destination) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(command);
+        accessor.setSessionId(sessionId);
+        accessor.setSubscriptionId(subscriptionId);
+        accessor.setDestination(destination);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+}
@@ -0,0 +1,43 @@
+package pro.finstream.broadcasting.domain.stomp;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import org.junit.jupiter.api.Test;
+import pro.finstream.broadcasting.domain.stockprice.CachedPrice;
+import pro.finstream.broadcasting.domain.stockprice.StockPrice;
+import pro.finstream.broadcasting.domain.stomp.UpdateHistory.Update;
+
+class UpdateHistoryTest {
+
+    private final UpdateHistory history = new UpdateHistory(4);
+
+    @Test
+    void returnsMissedUpdatesOldestFirst() {
+        for (long sequence = 1; sequence <= 3; sequence++) {
+            history.append(cached("AAPL", sequence), new byte[0]);
+        }
+
+        assertThat(history.since("AAPL", 1)).extracting(u -> u.price().sequence()).containsExactly(2L, 3L);
+        assertThat(history.since("AAPL", 3)).isEmpty();
+        assertThat(history.since("AAPL", 0)).hasSize(3);
+        assertThat(history.since("MSFT", 1)).isEmpty();
+    }
+
+    @Test
+    void reportsGapOnceHistoryNoLongerReachesBack() {
+        for (long sequence = 10; sequence <= 60; sequence += 10) {
+            history.append(cached("AAPL", sequence), new byte[0]);
+        }
+
+        // Retained: 30, 40, 50, 60
+        assertThat(history.since("AAPL", 30)).extracting(u -> u.price().sequence()).containsExactly(40L, 50L, 60L);
+        assertThat(history.since("AAPL", 25)).extracting(Update::price).hasSize(4);
+        assertThat(history.since("AAPL", 15)).isNull();
+    }
+
+    private static CachedPrice cached(String symbol, long sequence) {
+        StockPrice price = new StockPrice(symbol, BigDecimal.valueOf(sequence), null, null, null, null, null, "test", null);
+        return new CachedPrice(price, sequence, new byte[0]);
+    }
+}
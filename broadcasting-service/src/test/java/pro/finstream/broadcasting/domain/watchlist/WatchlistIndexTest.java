@@ -0,0 +1,48 @@
+package pro.finstream.broadcasting.domain.watchlist;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Instant;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import pro.finstream.broadcasting.domain.watchlist.WatchlistEvent.WatchlistAction;
+
+class WatchlistIndexTest {
+
+    private final WatchlistIndex index = new WatchlistIndex(new SimpleMeterRegistry());
+
+    @Test
+    void indexesUsersBySymbol() {
+        assertThat(index.apply(event(WatchlistAction.ADD, "alice", "AAPL"))).isTrue();
+        assertThat(index.apply(event(WatchlistAction.ADD, "bob", "AAPL"))).isTrue();
+        assertThat(index.apply(event(WatchlistAction.ADD, "alice", "MSFT"))).isTrue();
+        assertThat(index.apply(event(WatchlistAction.ADD, "alice", "AAPL"))).isFalse();
+
+        assertThat(index.usersWatching("AAPL")).containsExactlyInAnyOrder("alice", "bob");
+        assertThat(index.usersWatching("TSLA")).isEmpty();
+        assertThat(index.symbolsOf("alice")).containsExactlyInAnyOrder("AAPL", "MSFT");
+        assertThat(index.contains("bob", "MSFT")).isFalse();
+    }
+
+    @Test
+    void removesEntriesAndEmptySets() {
+        index.apply(event(WatchlistAction.ADD, "alice", "AAPL"));
+
+        assertThat(index.apply(event(WatchlistAction.REMOVE, "alice", "AAPL"))).isTrue();
+        assertThat(index.apply(event(WatchlistAction.REMOVE, "alice", "AAPL"))).isFalse();
+        assertThat(index.usersWatching("AAPL")).isEmpty();
+        assertThat(index.symbolsOf("alice")).isEmpty();
+    }
+
+    @Test
+    void treatsAlertOfUnknownEntryAsAdd() {
+        // After compaction the alert may be all that is left of the entry
+        assertThat(index.apply(event(WatchlistAction.ALERT_TRIGGERED, "alice", "NVDA"))).isTrue();
+        assertThat(index.usersWatching("NVDA")).containsExactly("alice");
+    }
+
+    private static WatchlistEvent event(WatchlistAction action, String userId, String symbol) {
+        return new WatchlistEvent(action, userId, symbol, Instant.now(), Map.of());
+    }
+}
@@ -0,0 +1,258 @@
+package pro.finstream.broadcasting.loadtest;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+import org.springframework.kafka.test.EmbeddedKafkaKraftBroker;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.web.socket.WebSocketHttpHeaders;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+import org.springframework.web.socket.sockjs.client.SockJsClient;
+import org.springframework.web.socket.sockjs.client.WebSocketTransport;
+import pro.finstream.broadcasting.App;
+import pro.finstream.broadcasting.benchmark.BenchmarkData;
+import pro.finstream.broadcasting.domain.stockprice.StockPrice;
+import pro.finstream.broadcasting.domain.stomp.Destinations;
+
+/**
+ * Fan-out load test of one broadcaster node.
+ *
+ * Starts an embedded Kafka broker and the broadcaster, publishes ticks to
+ * {@code finstream.stock.prices} at a fixed rate and opens simulated STOMP clients over SockJS
+ * (WebSocket transport) or raw WebSocket ({@code -Dloadtest.transport=websocket}), each
+ * authenticated as its own user with a token the broadcaster verifies against the test's JWK
+ * set. Once all clients are connected and the warm-up is over, it reports delivered messages
+ * per second, latency percentiles from tick published to message received, heap usage and
+ * dropped sessions; see {@link LoadReport}.
+ *
+ * Everything runs in one JVM, so clients compete with the node for CPU and heap: the numbers
+ * are a lower bound for the node alone and are meant for comparing changes, not for capacity
+ * planning in absolute terms. Heap figures include the clients.
+ *
+ * Run with: mvn -P loadtest [-Dloadtest.clients=5000 -Dloadtest.subscription=symbol ...],
+ * parameters see {@link Settings}.
+ */
+public class FanOutLoadTest {
+
+    private static final String TOPIC = "finstream.stock.prices";
+    private static final int PARTITIONS = 6;
+
+    public static void main(String[] args) throws Exception {
+        Settings settings = Settings.fromSystemProperties();
+        EmbeddedKafkaKraftBroker broker = new EmbeddedKafkaKraftBroker(1, PARTITIONS, TOPIC);
+        broker.afterPropertiesSet();
+
+        LoadReport report = new LoadReport();
+        ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(2);
+        List<SimulatedClient> clients = new ArrayList<>(settings.clients());
+
+        try (TokenIssuer tokenIssuer = new TokenIssuer();
+             ConfigurableApplicationContext node = startNode(broker, tokenIssuer, settings)) {
+
+            int port = ((WebServerApplicationContext) node).getWebServer().getPort();
+            List<String> symbols = symbols(settings.symbols());
+
+            scheduler.scheduleAtFixedRate(new TickPublisher(producer(broker), symbols, settings.tickRate(), report),
+                0, TickPublisher.PERIOD_MS, TimeUnit.MILLISECONDS);
+
+            WebSocketStompClient stompClient = settings.transport() == Settings.Transport.WEBSOCKET
+                ? new WebSocketStompClient(new StandardWebSocketClient())
+                : new WebSocketStompClient(new SockJsClient(List.of(new WebSocketTransport(new StandardWebSocketClient()))));
+            String url = settings.transport() == Settings.Transport.WEBSOCKET
+                ? "ws://localhost:" + port + "/stock-updates-ws"
+                : "http://localhost:" + port + "/stock-updates";
+            connectClients(stompClient, url, settings, symbols, tokenIssuer, report, clients);
+
+            run(report, "warmup", settings.warmup().toSeconds());
+            report.startMeasuring();
+            run(report, "measure", settings.duration().toSeconds());
+            report.printSummary(settings);
+
+            scheduler.shutdownNow();
+            clients.forEach(SimulatedClient::close);
+            stompClient.stop();
+        }
+        finally {
+            scheduler.shutdownNow();
+            broker.destroy();
+        }
+        System.exit(0);
+    }
+
+    private static ConfigurableApplicationContext startNode(EmbeddedKafkaKraftBroker broker, TokenIssuer tokenIssuer, Settings settings) {
+        return new SpringApplicationBuilder(App.class)
+            .properties(
+                "server.port=0",
+                "spring.kafka.bootstrap-servers=" + broker.getBrokersAsString(),
+                "spring.security.oauth2.resourceserver.jwt.jwk-set-uri=" + tokenIssuer.getJwkSetUri(),
+                "finstream.kafka.topic.partitions=" + PARTITIONS,
+                "finstream.websocket.admission.connect-rate=" + settings.connectRate() * 2,
+                "finstream.websocket.admission.connect-burst=" + settings.connectRate() * 2,
+                "logging.level.pro.finstream=WARN"
+            )
+            .run();
+    }
+
+    /**
+     * Open the clients at the configured connect rate and wait until all are connected or failed.
+     */
+    private static void connectClients(
+        WebSocketStompClient stompClient,
+        String url,
+        Settings settings,
+        List<String> symbols,
+        TokenIssuer tokenIssuer,
+        LoadReport report,
+        List<SimulatedClient> clients
+    ) throws InterruptedException {
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / Math.max(1, settings.connectRate());
+        long next = System.nanoTime();
+        List<CompletableFuture<?>> pending = new ArrayList<>(settings.clients());
+
+        for (int i = 0; i < settings.clients(); i++) {
+            SimulatedClient client = new SimulatedClient(destinations(settings, symbols, i), report);
+            clients.add(client);
+
+            StompHeaders connectHeaders = new StompHeaders();
+            connectHeaders.add("Authorization", "Bearer " + tokenIssuer.issue("loadtest-" + i));
+            pending.add(stompClient.connectAsync(url, new WebSocketHttpHeaders(), connectHeaders, client)
+                .exceptionally(e -> {
+                    report.connectFailed();
+                    return null;
+                }));
+
+            next += intervalNanos;
+            long wait = next - System.nanoTime();
+            if (wait > 0) {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            }
+            if ((i + 1) % Math.max(1, settings.connectRate()) == 0) {
+                report.printInterval("ramp-up");
+            }
+        }
+        CompletableFuture.allOf(pending.toArray(CompletableFuture[]::new)).join();
+    }
+
+    private static List<String> destinations(Settings settings, List<String> symbols, int client) {
+        Settings.Subscription subscription = settings.subscription() == Settings.Subscription.MIXED
+            ? Settings.Subscription.values()[client % 3]
+            : settings.subscription();
+
+        return switch (subscription) {
+            case PRICES, MIXED -> List.of(Destinations.TOPIC_STOCK_PRICES);
+            case DELTAS -> List.of(Destinations.TOPIC_STOCK_DELTAS);
+            case SYMBOL -> {
+                List<String> destinations = new ArrayList<>(settings.symbolsPerClient());
+                for (int i = 0; i < Math.min(settings.symbolsPerClient(), symbols.size()); i++) {
+                    destinations.add(Destinations.TOPIC_STOCK_PRICES_SYMBOL + symbols.get((client + i) % symbols.size()));
+                }
+                yield destinations;
+            }
+        };
+    }
+
+    private static void run(LoadReport report, String phase, long seconds) throws InterruptedException {
+        for (long i = 0; i < seconds; i++) {
+            TimeUnit.SECONDS.sleep(1);
+            report.printInterval(phase);
+        }
+    }
+
+    private static List<String> symbols(int count) {
+        List<String> symbols = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            symbols.add(i < BenchmarkData.SYMBOLS.length ? BenchmarkData.SYMBOLS[i] : "SYM" + i);
+        }
+        return symbols;
+    }
+
+    private static KafkaTemplate<String, StockPrice> producer(EmbeddedKafkaKraftBroker broker) {
+        Map<String, Object> props = new HashMap<>();
+        props.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, broker.getBrokersAsString());
+        props.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
+        props.put(ProducerConfig.LINGER_MS_CONFIG, 1);
+        props.put(JsonSerializer.ADD_TYPE_INFO_HEADERS, false);
+        return new KafkaTemplate<>(new DefaultKafkaProducerFactory<>(props));
+    }
+
+    /**
+     * Publishes {@code tickRate} ticks per second as a random walk over the symbols, in steps of
+     * {@link #PERIOD_MS}. The timestamp field carries the send time for the latency measurement.
+     */
+    private static final class TickPublisher implements Runnable {
+
+        static final long PERIOD_MS = 10;
+
+        private final KafkaTemplate<String, StockPrice> producer;
+        private final List<String> symbols;
+        private final double ticksPerPeriod;
+        private final LoadReport report;
+        private final SplittableRandom random = new SplittableRandom(42);
+        private final double[] prices;
+        private double due;
+        private int next;
+
+        TickPublisher(KafkaTemplate<String, StockPrice> producer, List<String> symbols, int tickRate, LoadReport report) {
+            this.producer = producer;
+            this.symbols = symbols;
+            this.ticksPerPeriod = tickRate * PERIOD_MS / 1000.0;
+            this.report = report;
+            this.prices = new double[symbols.size()];
+            for (int i = 0; i < prices.length; i++) {
+                prices[i] = 20 + random.nextDouble(980);
+            }
+        }
+
+        @Override
+        public void run() {
+            due += ticksPerPeriod;
+            int count = (int) due;
+            due -= count;
+
+            for (int i = 0; i < count; i++) {
+                int index = next++ % symbols.size();
+                double close = prices[index];
+                double last = close * (1 + (random.nextDouble() - 0.5) / 100);
+                prices[index] = last;
+
+                String symbol = symbols.get(index);
+                producer.send(TOPIC, symbol, new StockPrice(
+                    symbol,
+                    decimal(last, 2),
+                    decimal(last - close, 2),
+                    decimal((last - close) / close * 100, 4),
+                    decimal(Math.max(last, close), 2),
+                    decimal(Math.min(last, close), 2),
+                    System.currentTimeMillis(),
+                    "loadtest",
+                    LocalDateTime.now(ZoneOffset.UTC)
+                ));
+            }
+            report.published(count);
+        }
+
+        private static BigDecimal decimal(double value, int scale) {
+            return BigDecimal.valueOf(value).setScale(scale, RoundingMode.HALF_UP);
+        }
+    }
+}
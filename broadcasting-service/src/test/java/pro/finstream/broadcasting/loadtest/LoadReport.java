@@ -0,0 +1,148 @@
+package pro.finstream.broadcasting.loadtest;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters of one load test run, updated by the client threads and printed once per second.
+ *
+ * Latency is measured from the tick being handed to the Kafka producer until the client
+ * receives the message, on the same clock since producer, broadcaster and clients share the JVM.
+ * Counters start over when the warm-up ends.
+ */
+class LoadReport {
+
+    private static final double[] PERCENTILES = {0.5, 0.9, 0.99, 0.999};
+
+    private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder published = new LongAdder();
+    private final AtomicInteger connected = new AtomicInteger();
+    private final AtomicInteger failedConnects = new AtomicInteger();
+    private final AtomicInteger dropped = new AtomicInteger();
+    private final AtomicLong peakHeap = new AtomicLong();
+
+    private volatile Timer latency = newTimer();
+    private volatile long measuringSince = System.nanoTime();
+    private long lastDelivered;
+    private long lastPublished;
+    private long lastReportAt = System.nanoTime();
+
+    void delivered(long sentAtMillis) {
+        delivered.increment();
+        if (sentAtMillis > 0) {
+            latency.record(Math.max(0, System.currentTimeMillis() - sentAtMillis), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    void published(int count) {
+        published.add(count);
+    }
+
+    void connected() {
+        connected.incrementAndGet();
+    }
+
+    void connectFailed() {
+        failedConnects.incrementAndGet();
+    }
+
+    /**
+     * A session closed by the server or lost while the test was running.
+     */
+    void dropped() {
+        connected.decrementAndGet();
+        dropped.incrementAndGet();
+    }
+
+    int getConnected() {
+        return connected.get();
+    }
+
+    /**
+     * End of warm-up: start counting and measuring latency from zero.
+     */
+    synchronized void startMeasuring() {
+        delivered.reset();
+        published.reset();
+        latency = newTimer();
+        peakHeap.set(0);
+        lastDelivered = 0;
+        lastPublished = 0;
+        lastReportAt = System.nanoTime();
+        measuringSince = lastReportAt;
+    }
+
+    synchronized void printInterval(String phase) {
+        long now = System.nanoTime();
+        double seconds = (now - lastReportAt) / 1e9;
+        long deliveredTotal = delivered.sum();
+        long publishedTotal = published.sum();
+        long heap = heapUsed();
+
+        System.out.printf("[%s] clients=%d delivered/s=%.0f ticks/s=%.0f p50=%.1fms p99=%.1fms heap=%dMB dropped=%d failed=%d%n",
+            phase, connected.get(),
+            (deliveredTotal - lastDelivered) / seconds,
+            (publishedTotal - lastPublished) / seconds,
+            percentile(0.5), percentile(0.99),
+            heap >> 20, dropped.get(), failedConnects.get());
+
+        lastDelivered = deliveredTotal;
+        lastPublished = publishedTotal;
+        lastReportAt = now;
+    }
+
+    synchronized void printSummary(Settings settings) {
+        double seconds = (System.nanoTime() - measuringSince) / 1e9;
+        memory.gc();
+
+        System.out.println();
+        System.out.println("=== Fan-out load test ===");
+        System.out.printf("clients=%d transport=%s subscription=%s symbols=%d tick-rate=%d/s duration=%s%n",
+            settings.clients(), settings.transport(), settings.subscription(), settings.symbols(), settings.tickRate(), settings.duration());
+        System.out.printf("delivered: %d messages, %.0f msg/s%n", delivered.sum(), delivered.sum() / seconds);
+        System.out.printf("published: %d ticks, %.0f ticks/s%n", published.sum(), published.sum() / seconds);
+        System.out.printf("latency (tick sent to client received): count=%d mean=%.2fms max=%.1fms%n",
+            latency.count(), latency.mean(TimeUnit.MILLISECONDS), latency.max(TimeUnit.MILLISECONDS));
+        for (double p : PERCENTILES) {
+            System.out.printf("  p%s=%.1fms%n", Double.toString(p * 100).replaceAll("\\.0$", ""), percentile(p));
+        }
+        System.out.printf("heap: peak=%dMB after-gc=%dMB max=%dMB%n",
+            peakHeap.get() >> 20, memory.getHeapMemoryUsage().getUsed() >> 20, memory.getHeapMemoryUsage().getMax() >> 20);
+        System.out.printf("sessions: connected=%d dropped=%d failed-connects=%d%n",
+            connected.get(), dropped.get(), failedConnects.get());
+    }
+
+    private long heapUsed() {
+        long used = memory.getHeapMemoryUsage().getUsed();
+        peakHeap.accumulateAndGet(used, Math::max);
+        return used;
+    }
+
+    private double percentile(double percentile) {
+        for (ValueAtPercentile value : latency.takeSnapshot().percentileValues()) {
+            if (value.percentile() == percentile) {
+                return value.value(TimeUnit.MILLISECONDS);
+            }
+        }
+        return Double.NaN;
+    }
+
+    private static Timer newTimer() {
+        // Own registry per phase; one long-lived statistics window covering the whole run
+        return Timer.builder("loadtest.latency")
+            .publishPercentiles(PERCENTILES)
+            .percentilePrecision(2)
+            .distributionStatisticExpiry(Duration.ofDays(1))
+            .distributionStatisticBufferLength(1)
+            .register(new SimpleMeterRegistry());
+    }
+}
@@ -0,0 +1,61 @@
+package pro.finstream.broadcasting.loadtest;
+
+import java.time.Duration;
+
+/**
+ * Load test parameters, from {@code loadtest.*} system properties (see the loadtest profile).
+ *
+ * @param clients          simulated STOMP clients, one user each
+ * @param transport        endpoint the clients connect to
+ * @param subscription     what every client subscribes to
+ * @param symbols          distinct symbols ticking
+ * @param symbolsPerClient per-symbol destinations of a client in {@code symbol} mode
+ * @param tickRate         ticks per second published to Kafka, over all symbols
+ * @param connectRate      client connects per second during ramp-up
+ * @param warmup           run time before measuring starts
+ * @param duration         measured run time
+ */
+record Settings(
+    int clients,
+    Transport transport,
+    Subscription subscription,
+    int symbols,
+    int symbolsPerClient,
+    int tickRate,
+    int connectRate,
+    Duration warmup,
+    Duration duration
+) {
+
+    enum Transport {
+        /** /stock-updates-ws, STOMP over raw WebSocket */
+        WEBSOCKET,
+        /** /stock-updates, STOMP over SockJS with the WebSocket transport */
+        SOCKJS
+    }
+
+    enum Subscription {
+        /** /topic/stocks/prices */
+        PRICES,
+        /** symbolsPerClient of the /topic/stocks/prices/{symbol} destinations */
+        SYMBOL,
+        /** /topic/stocks/deltas */
+        DELTAS,
+        /** clients alternate between the three above */
+        MIXED
+    }
+
+    static Settings fromSystemProperties() {
+        return new Settings(
+            Integer.getInteger("loadtest.clients", 1000),
+            Transport.valueOf(System.getProperty("loadtest.transport", "sockjs").toUpperCase()),
+            Subscription.valueOf(System.getProperty("loadtest.subscription", "mixed").toUpperCase()),
+            Integer.getInteger("loadtest.symbols", 50),
+            Integer.getInteger("loadtest.symbols-per-client", 5),
+            Integer.getInteger("loadtest.tick-rate", 500),
+            Integer.getInteger("loadtest.connect-rate", 200),
+            Duration.ofSeconds(Integer.getInteger("loadtest.warmup-seconds", 10)),
+            Duration.ofSeconds(Integer.getInteger("loadtest.duration-seconds", 60))
+        );
+    }
+}
@@ -0,0 +1,107 @@
+package pro.finstream.broadcasting.loadtest;
+
+import java.lang.reflect.Type;
+import java.util.List;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import pro.finstream.broadcasting.domain.stomp.Destinations;
+
+/**
+ * One simulated STOMP client: subscribes once connected and counts what it receives.
+ *
+ * Latency is taken from the {@code timestamp} field of price messages, which the load test sets
+ * to the send time in epoch millis. Delta messages carry it as a difference and are only counted.
+ */
+class SimulatedClient extends StompSessionHandlerAdapter {
+
+    private static final byte[] TIMESTAMP_FIELD = "\"timestamp\":".getBytes();
+
+    private final List<String> destinations;
+    private final LoadReport report;
+    private volatile boolean connected;
+    private volatile boolean closing;
+    private volatile StompSession session;
+
+    SimulatedClient(List<String> destinations, LoadReport report) {
+        this.destinations = destinations;
+        this.report = report;
+    }
+
+    @Override
+    public void afterConnected(StompSession session, StompHeaders connectedHeaders) {
+        this.session = session;
+        connected = true;
+        report.connected();
+
+        for (String destination : destinations) {
+            boolean prices = !Destinations.TOPIC_STOCK_DELTAS.equals(destination);
+            session.subscribe(destination, new StompFrameHandler() {
+                @Override
+                public Type getPayloadType(StompHeaders headers) {
+                    return byte[].class;
+                }
+
+                @Override
+                public void handleFrame(StompHeaders headers, Object payload) {
+                    report.delivered(prices ? timestamp((byte[]) payload) : 0);
+                }
+            });
+        }
+    }
+
+    @Override
+    public void handleException(StompSession session, StompCommand command, StompHeaders headers, byte[] payload, Throwable exception) {
+        System.err.println("Client error: " + exception.getMessage());
+    }
+
+    @Override
+    public void handleTransportError(StompSession session, Throwable exception) {
+        if (connected && !closing) {
+            connected = false;
+            report.dropped();
+        }
+    }
+
+    void close() {
+        closing = true;
+        StompSession current = session;
+        if (current != null && current.isConnected()) {
+            current.disconnect();
+        }
+    }
+
+    /**
+     * Value of the top-level timestamp field, without parsing the whole message; 0 if absent.
+     */
+    static long timestamp(byte[] payload) {
+        int start = indexOf(payload, TIMESTAMP_FIELD);
+        if (start < 0) {
+            return 0;
+        }
+        long value = 0;
+        for (int i = start + TIMESTAMP_FIELD.length; i < payload.length; i++) {
+            byte b = payload[i];
+            if (b < '0' || b > '9') {
+                break;
+            }
+            value = value * 10 + (b - '0');
+        }
+        return value;
+    }
+
+    private static int indexOf(byte[] data, byte[] pattern) {
+        outer:
+        for (int i = 0, last = data.length - pattern.length; i <= last; i++) {
+            for (int j = 0; j < pattern.length; j++) {
+                if (data[i + j] != pattern[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,79 @@
+package pro.finstream.broadcasting.loadtest;
+
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.source.ImmutableJWKSet;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.NoSuchAlgorithmException;
+import java.security.interfaces.RSAPrivateKey;
+import java.security.interfaces.RSAPublicKey;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import org.springframework.security.oauth2.jose.jws.SignatureAlgorithm;
+import org.springframework.security.oauth2.jwt.JwsHeader;
+import org.springframework.security.oauth2.jwt.JwtClaimsSet;
+import org.springframework.security.oauth2.jwt.JwtEncoderParameters;
+import org.springframework.security.oauth2.jwt.NimbusJwtEncoder;
+
+/**
+ * Stands in for the SSO service: issues RS256 tokens like it does and serves the public key
+ * as JWK set, so the broadcaster under test verifies tokens the way it does in production.
+ */
+class TokenIssuer implements AutoCloseable {
+
+    private final NimbusJwtEncoder encoder;
+    private final HttpServer server;
+
+    TokenIssuer() throws IOException, NoSuchAlgorithmException {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        KeyPair keyPair = generator.generateKeyPair();
+        RSAKey key = new RSAKey.Builder((RSAPublicKey) keyPair.getPublic())
+            .privateKey((RSAPrivateKey) keyPair.getPrivate())
+            .keyID("loadtest")
+            .build();
+        encoder = new NimbusJwtEncoder(new ImmutableJWKSet<>(new JWKSet(key)));
+
+        byte[] jwks = new JWKSet(key.toPublicJWK()).toString().getBytes(StandardCharsets.UTF_8);
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/oauth2/jwks", exchange -> {
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, jwks.length);
+            try (OutputStream body = exchange.getResponseBody()) {
+                body.write(jwks);
+            }
+        });
+        server.start();
+    }
+
+    String getJwkSetUri() {
+        return "http://localhost:" + server.getAddress().getPort() + "/oauth2/jwks";
+    }
+
+    String issue(String userId) {
+        Instant now = Instant.now();
+        return encoder.encode(JwtEncoderParameters.from(
+            JwsHeader.with(SignatureAlgorithm.RS256).build(),
+            JwtClaimsSet.builder()
+                .issuer("http://localhost:8080")
+                .subject(userId)
+                .claim("username", userId)
+                .claim("roles", List.of("USER"))
+                .issuedAt(now)
+                .expiresAt(now.plus(Duration.ofHours(1)))
+                .build()
+        )).getTokenValue();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+}
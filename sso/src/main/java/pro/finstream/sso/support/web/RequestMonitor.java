@@ -1,54 +1,123 @@
 package pro.finstream.sso.support.web;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.servlet.*;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
-import java.text.DecimalFormat;
-import java.text.NumberFormat;
-import java.util.Locale;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.core.Ordered;
 import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerMapping;
+import pro.finstream.sso.domain.Endpoints;
 
+/**
+ * Records the latency of every request into a timer per method, route and status
+ * ({@code finstream.http.requests}), with p50/p99/p999 and a percentile histogram, see
+ * /actuator/metrics/finstream.http.requests.
+ *
+ * The route is the matched handler pattern, never the raw URI, so the number of timers stays
+ * bounded. The authorization server endpoints are answered by security filters before any handler
+ * mapping runs, so their fixed paths count as routes of their own; everything else no handler
+ * matched shares the route UNMATCHED and non-standard methods the method OTHER. Timers are
+ * created once per combination and looked up afterwards, the ignore rule is compiled once.
+ */
 @Component
 @Order(Ordered.HIGHEST_PRECEDENCE)
 public class RequestMonitor implements Filter {
     private static final Logger log = LoggerFactory.getLogger(RequestMonitor.class);
-    private static final DecimalFormat df = (DecimalFormat) NumberFormat.getNumberInstance(Locale.US);
-    private static final String[] ignoredPatterns = {"^/_/.*$", "^/favicon.ico$"};
 
-    static {
-        df.applyPattern("0.00");
+    static final String METRIC = "finstream.http.requests";
+    static final String UNMATCHED = "UNMATCHED";
+
+    private static final Pattern IGNORED = Pattern.compile("^/(?:_/.*|favicon\\.ico)$");
+    private static final Set<String> FILTER_ROUTES = Set.of(
+        Endpoints.URL_LOGIN,
+        Endpoints.URL_LOGOUT,
+        Endpoints.URL_USERINFO,
+        Endpoints.URL_OAUTH2_JWKS,
+        "/oauth2/authorize",
+        "/oauth2/token",
+        "/oauth2/introspect",
+        "/oauth2/revoke",
+        "/connect/register",
+        "/.well-known/openid-configuration",
+        "/.well-known/oauth-authorization-server"
+    );
+
+    private final MeterRegistry registry;
+    private final ConcurrentMap<Route, Timer> timers = new ConcurrentHashMap<>();
+
+    public RequestMonitor(MeterRegistry registry) {
+        this.registry = registry;
     }
 
     @Override
     public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
         throws IOException, ServletException {
-        if (log.isInfoEnabled() && request instanceof HttpServletRequest httpRequest && !isIgnored(httpRequest)) {
-            long start = System.nanoTime();
-
+        if (!(request instanceof HttpServletRequest httpRequest) || isIgnored(httpRequest)) {
             chain.doFilter(request, response);
-
-            log.info("Time: {} ms; Memory: {} MiB; {} {} -> {}",
-                df.format((System.nanoTime() - start) / 1_000_000.0),
-                (Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory())/(1024*1024),
-                httpRequest.getMethod(),
-                httpRequest.getRequestURI(),
-                ((HttpServletResponse) response).getStatus());
+            return;
         }
-        else {
+
+        long start = System.nanoTime();
+        int status = 500;
+        try {
             chain.doFilter(request, response);
+            status = ((HttpServletResponse) response).getStatus();
+        }
+        finally {
+            long duration = System.nanoTime() - start;
+            Route route = new Route(method(httpRequest), route(httpRequest), status);
+            timers.computeIfAbsent(route, this::timer).record(duration, TimeUnit.NANOSECONDS);
+
+            if (log.isDebugEnabled()) {
+                log.debug("{} {} -> {} in {} µs", route.method(), httpRequest.getRequestURI(), status, duration / 1000);
+            }
         }
     }
 
-    private boolean isIgnored(HttpServletRequest request) {
+    private static boolean isIgnored(HttpServletRequest request) {
+        return IGNORED.matcher(request.getRequestURI()).matches();
+    }
+
+    private static String method(HttpServletRequest request) {
+        String method = request.getMethod();
+        return switch (method) {
+            case "GET", "HEAD", "POST", "PUT", "PATCH", "DELETE", "OPTIONS" -> method;
+            default -> "OTHER";
+        };
+    }
+
+    private static String route(HttpServletRequest request) {
+        if (request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE) instanceof String pattern) {
+            return pattern;
+        }
         String uri = request.getRequestURI();
-        for(String pattern : ignoredPatterns)
-            if (uri.matches(pattern))
-                return true;
-        return false;
+        return FILTER_ROUTES.contains(uri) ? uri : UNMATCHED;
+    }
+
+    private Timer timer(Route route) {
+        return Timer.builder(METRIC)
+            .description("Request latency by route, from the first filter until the response is handed back")
+            .tag("method", route.method())
+            .tag("route", route.pattern())
+            .tag("status", Integer.toString(route.status()))
+            .publishPercentiles(0.5, 0.99, 0.999)
+            .publishPercentileHistogram()
+            .minimumExpectedValue(Duration.ofMillis(1))
+            .maximumExpectedValue(Duration.ofSeconds(30))
+            .register(registry);
     }
+
+    private record Route(String method, String pattern, int status) {}
 }
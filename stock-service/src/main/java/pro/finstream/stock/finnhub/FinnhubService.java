@@ -3,13 +3,18 @@ package pro.finstream.stock.finnhub;
 import io.quarkus.scheduler.Scheduled;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.List;
 import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.eclipse.microprofile.rest.client.inject.RestClient;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import pro.finstream.stock.market.MarketState;
+import pro.finstream.stock.market.MarketStatus;
+import pro.finstream.stock.market.TradingCalendar;
 import pro.finstream.stock.messaging.KafkaProducerService;
+import pro.finstream.stock.messaging.LatencyMetrics;
 import pro.finstream.stock.messaging.StockPriceEvent;
 
 @ApplicationScoped
@@ -22,19 +27,75 @@ public class FinnhubService {
     @Inject
     KafkaProducerService kafkaProducer;
 
+    @Inject
+    LatencyMetrics latencyMetrics;
+
+    @Inject
+    TradingCalendar tradingCalendar;
+
     @ConfigProperty(name = "finnhub.api-key")
     String apiKey;
     
     @ConfigProperty(name = "finnhub.symbols", defaultValue = "AAPL,GOOGL,MSFT")
     List<String> symbols;
     
-    @Scheduled(every = "30s")  // Poll every 30 seconds
+    @ConfigProperty(name = "finnhub.poll-interval.open", defaultValue = "30s")
+    Duration openInterval;
+
+    /** Interval outside trading hours, 0 to only take the closing quote */
+    @ConfigProperty(name = "finnhub.poll-interval.closed", defaultValue = "0s")
+    Duration closedInterval;
+
+    private volatile Instant nextPoll = Instant.MIN;
+    private volatile boolean closingQuoteTaken;
+
+    /**
+     * Polls at the open interval during trading hours and at the closed interval outside. Once
+     * the market has closed (or on startup outside trading hours) the quotes are fetched one more
+     * time, so the closing prices are published even when polling is suspended until the open.
+     */
+    @Scheduled(every = "${finnhub.poll-tick:5s}", concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    void pollIfDue() {
+        Instant now = Instant.now();
+        if (now.isBefore(nextPoll)) {
+            return;
+        }
+
+        MarketStatus status = tradingCalendar.statusAt(now);
+        boolean open = status.state() == MarketState.OPEN;
+        Duration interval = open ? openInterval : closedInterval;
+        Instant transition = status.nextTransition();
+        Instant next = interval.isZero() ? transition : now.plus(interval);
+        if (next == null) {
+            // No session configured ahead, look again later
+            next = now.plus(openInterval);
+        }
+        else if (transition != null && transition.isBefore(next)) {
+            // The interval changes at the transition
+            next = transition;
+        }
+        nextPoll = next;
+
+        if (open) {
+            closingQuoteTaken = false;
+        }
+        else if (!closingQuoteTaken) {
+            closingQuoteTaken = true;
+        }
+        else if (interval.isZero()) {
+            return;
+        }
+        fetchStockPrices();
+    }
+
     public void fetchStockPrices() {
         log.info("Fetching stock prices for {} symbols", symbols.size());
         
         for (String symbol : symbols) {
             try {
+                long start = System.nanoTime();
                 var quote = finnhubClient.getQuote(symbol, apiKey);
+                latencyMetrics.recordFetch(start);
                 log.info("Raw API response for {}: {}", symbol, quote);
                 processQuote(symbol, quote);
             }
@@ -49,10 +110,13 @@ public class FinnhubService {
             symbol, quote.currentPrice(), quote.change(), quote.percentChange(),
             quote.highPrice(), quote.lowPrice());
         
+        var fetchedAt = Instant.now();
+        latencyMetrics.recordProviderAge(quote.timestamp(), fetchedAt.toEpochMilli());
+        
         var event = new StockPriceEvent(symbol, quote.currentPrice(), quote.change(), quote.percentChange(),
-            quote.highPrice(), quote.lowPrice(), quote.timestamp(), "finnhub", Instant.now());
+            quote.highPrice(), quote.lowPrice(), quote.timestamp(), "finnhub", fetchedAt);
         
-        kafkaProducer.publishStockPrice(event);
+        kafkaProducer.publishStockPrice(event, fetchedAt.toEpochMilli());
         log.info("Published stock price event for {} to Kafka", symbol);
     }
 }
@@ -0,0 +1,6 @@
+package pro.finstream.stock.market;
+
+public enum MarketState {
+    OPEN,
+    CLOSED
+}
@@ -0,0 +1,28 @@
+package pro.finstream.stock.market;
+
+import java.time.Instant;
+
+/**
+ * Market status at some instant, see {@link TradingCalendar#statusAt(Instant)}.
+ *
+ * @param nextTransition close of the current session if open, otherwise the next open; null if
+ *                       no session is configured within the lookahead
+ */
+public record MarketStatus(
+    String exchange,
+    MarketState state,
+    Reason reason,
+    Instant nextTransition
+) {
+
+    public enum Reason {
+        /** Regular session */
+        REGULAR,
+        /** Session that closes early */
+        EARLY_CLOSE,
+        /** Trading day, before the open or after the close */
+        OUTSIDE_HOURS,
+        WEEKEND,
+        HOLIDAY
+    }
+}
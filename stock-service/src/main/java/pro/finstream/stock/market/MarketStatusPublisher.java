@@ -0,0 +1,50 @@
+package pro.finstream.stock.market;
+
+import io.quarkus.scheduler.Scheduled;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import java.time.Instant;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import pro.finstream.stock.messaging.KafkaProducerService;
+import pro.finstream.stock.messaging.MarketStatusEvent;
+
+/**
+ * Publishes the market status on every open/close transition, and once on startup so the
+ * compacted topic always holds the current status of the exchange.
+ *
+ * Transitions are detected by checking the calendar every {@code market.status-check}, so they
+ * are published at most that late. A status that could not be published is retried on the
+ * next check.
+ */
+@ApplicationScoped
+public class MarketStatusPublisher {
+    private static Logger log = LoggerFactory.getLogger(MarketStatusPublisher.class);
+
+    @Inject
+    TradingCalendar tradingCalendar;
+
+    @Inject
+    KafkaProducerService kafkaProducer;
+
+    private volatile MarketState published;
+
+    @Scheduled(every = "${market.status-check:10s}", concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    void publishTransitions() {
+        Instant now = Instant.now();
+        MarketStatus status = tradingCalendar.statusAt(now);
+        if (status.state() == published) {
+            return;
+        }
+
+        log.info("Market {} is {} ({}), next transition at {}",
+            status.exchange(), status.state(), status.reason(), status.nextTransition());
+        published = status.state();
+        kafkaProducer.publishMarketStatus(MarketStatusEvent.of(status, tradingCalendar.getZone().getId(), now))
+            .exceptionally(failure -> {
+                // Publish again on the next check
+                published = null;
+                return null;
+            });
+    }
+}
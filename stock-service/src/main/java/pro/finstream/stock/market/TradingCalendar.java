@@ -0,0 +1,130 @@
+package pro.finstream.stock.market;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+/**
+ * Trading sessions of the exchange the quotes come from.
+ *
+ * A session runs from {@code market.open} to {@code market.close} in the exchange's time zone on
+ * weekdays, except on {@code market.holidays}; on {@code market.early-closes} it ends at the given
+ * time instead. Holidays and early closes are published by the exchange a year or more ahead and
+ * have to be maintained in the configuration.
+ */
+@ApplicationScoped
+public class TradingCalendar {
+
+    /** Days a session is looked ahead for the next open, longer than any run of holidays */
+    private static final int LOOKAHEAD_DAYS = 14;
+
+    @ConfigProperty(name = "market.exchange", defaultValue = "XNYS")
+    String exchange;
+
+    @ConfigProperty(name = "market.time-zone", defaultValue = "America/New_York")
+    ZoneId zone;
+
+    @ConfigProperty(name = "market.open", defaultValue = "09:30")
+    LocalTime open;
+
+    @ConfigProperty(name = "market.close", defaultValue = "16:00")
+    LocalTime close;
+
+    @ConfigProperty(name = "market.holidays")
+    Optional<List<LocalDate>> holidayList;
+
+    @ConfigProperty(name = "market.early-closes")
+    Optional<List<LocalDateTime>> earlyCloseList;
+
+    private Set<LocalDate> holidays;
+    private Map<LocalDate, LocalTime> earlyCloses;
+
+    @PostConstruct
+    void init() {
+        holidays = Set.copyOf(holidayList.orElse(List.of()));
+        Map<LocalDate, LocalTime> closes = new HashMap<>();
+        earlyCloseList.orElse(List.of()).forEach(c -> closes.put(c.toLocalDate(), c.toLocalTime()));
+        earlyCloses = Map.copyOf(closes);
+    }
+
+    public String getExchange() {
+        return exchange;
+    }
+
+    public ZoneId getZone() {
+        return zone;
+    }
+
+    /**
+     * The session on the given exchange-local date, empty on weekends and holidays.
+     */
+    public Optional<Session> session(LocalDate date) {
+        if (isWeekend(date) || holidays.contains(date)) {
+            return Optional.empty();
+        }
+        LocalTime earlyClose = earlyCloses.get(date);
+        LocalTime closeAt = earlyClose != null ? earlyClose : close;
+        return Optional.of(new Session(date.atTime(open).atZone(zone), date.atTime(closeAt).atZone(zone), earlyClose != null));
+    }
+
+    public boolean isOpen(Instant instant) {
+        return statusAt(instant).state() == MarketState.OPEN;
+    }
+
+    /**
+     * Whether the market is open at the given instant, why, and when that changes next.
+     */
+    public MarketStatus statusAt(Instant instant) {
+        LocalDate today = instant.atZone(zone).toLocalDate();
+        Optional<Session> session = session(today);
+
+        if (session.isPresent() && session.get().contains(instant)) {
+            Session current = session.get();
+            return new MarketStatus(exchange, MarketState.OPEN,
+                current.earlyClose() ? MarketStatus.Reason.EARLY_CLOSE : MarketStatus.Reason.REGULAR,
+                current.close().toInstant());
+        }
+
+        MarketStatus.Reason reason = isWeekend(today) ? MarketStatus.Reason.WEEKEND
+            : holidays.contains(today) ? MarketStatus.Reason.HOLIDAY
+            : MarketStatus.Reason.OUTSIDE_HOURS;
+        return new MarketStatus(exchange, MarketState.CLOSED, reason, nextOpen(instant, today));
+    }
+
+    private Instant nextOpen(Instant instant, LocalDate today) {
+        for (int i = 0; i <= LOOKAHEAD_DAYS; i++) {
+            Optional<Session> session = session(today.plusDays(i));
+            if (session.isPresent() && session.get().open().toInstant().isAfter(instant)) {
+                return session.get().open().toInstant();
+            }
+        }
+        return null;
+    }
+
+    private static boolean isWeekend(LocalDate date) {
+        DayOfWeek day = date.getDayOfWeek();
+        return day == DayOfWeek.SATURDAY || day == DayOfWeek.SUNDAY;
+    }
+
+    /**
+     * One trading session, open inclusive and close exclusive.
+     */
+    public record Session(ZonedDateTime open, ZonedDateTime close, boolean earlyClose) {
+
+        public boolean contains(Instant instant) {
+            return !instant.isBefore(open.toInstant()) && instant.isBefore(close.toInstant());
+        }
+    }
+}
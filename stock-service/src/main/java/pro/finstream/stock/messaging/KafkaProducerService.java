@@ -1,9 +1,16 @@
 package pro.finstream.stock.messaging;
 
-import io.smallrye.reactive.messaging.kafka.Record;
+import io.smallrye.reactive.messaging.kafka.api.OutgoingKafkaRecordMetadata;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import org.apache.kafka.common.header.internals.RecordHeaders;
 import org.eclipse.microprofile.reactive.messaging.Channel;
 import org.eclipse.microprofile.reactive.messaging.Emitter;
+import org.eclipse.microprofile.reactive.messaging.Message;
+import org.eclipse.microprofile.reactive.messaging.Metadata;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -13,23 +20,76 @@ public class KafkaProducerService {
     private static Logger log = LoggerFactory.getLogger(KafkaProducerService.class);
     
     @Channel("stock-prices")
-    Emitter<Record<String, StockPriceEvent>> stockPricesEmitter;
+    Emitter<StockPriceEvent> stockPricesEmitter;
     
-    public void publishStockPrice(StockPriceEvent event) {
+    @Channel("market-status")
+    Emitter<MarketStatusEvent> marketStatusEmitter;
+    
+    @Inject
+    LatencyMetrics latencyMetrics;
+    
+    /**
+     * Publishes the event keyed by symbol, with the fetched and published hop timestamps as
+     * record headers (see {@link TraceHeaders}).
+     */
+    public void publishStockPrice(StockPriceEvent event, long fetchedAt) {
         try {
             log.info("Attempting to publish stock price event for {}", event.symbol());
-            stockPricesEmitter.send(Record.of(event.symbol(), event))
-                .whenComplete((success, failure) -> {
-                    if (failure != null) {
-                        log.error("Failed to publish event for " + event.symbol(), failure);
-                    }
-                    else {
-                        log.info("Successfully published event for {}", event.symbol());
-                    }
-                });
+            long publishedAt = System.currentTimeMillis();
+            
+            var headers = new RecordHeaders()
+                .add(TraceHeaders.FETCHED_AT, epochMillis(fetchedAt))
+                .add(TraceHeaders.PUBLISHED_AT, epochMillis(publishedAt));
+            var metadata = OutgoingKafkaRecordMetadata.<String>builder()
+                .withKey(event.symbol())
+                .withHeaders(headers)
+                .build();
+            
+            stockPricesEmitter.send(Message.of(event, Metadata.of(metadata),
+                () -> {
+                    latencyMetrics.recordPublish(publishedAt);
+                    log.info("Successfully published event for {}", event.symbol());
+                    return CompletableFuture.completedFuture(null);
+                },
+                failure -> {
+                    log.error("Failed to publish event for " + event.symbol(), failure);
+                    return CompletableFuture.completedFuture(null);
+                }));
         }
         catch (Exception e) {
             log.error("Exception while publishing event for " + event.symbol(), e);
         }
     }
+    
+    /**
+     * Publishes the market status keyed by exchange; completes once the broker acknowledged it.
+     */
+    public CompletionStage<Void> publishMarketStatus(MarketStatusEvent event) {
+        var result = new CompletableFuture<Void>();
+        var metadata = OutgoingKafkaRecordMetadata.<String>builder()
+            .withKey(event.exchange())
+            .build();
+        
+        try {
+            marketStatusEmitter.send(Message.of(event, Metadata.of(metadata),
+                () -> {
+                    result.complete(null);
+                    return CompletableFuture.completedFuture(null);
+                },
+                failure -> {
+                    log.error("Failed to publish market status of " + event.exchange(), failure);
+                    result.completeExceptionally(failure);
+                    return CompletableFuture.completedFuture(null);
+                }));
+        }
+        catch (Exception e) {
+            log.error("Exception while publishing market status of " + event.exchange(), e);
+            result.completeExceptionally(e);
+        }
+        return result;
+    }
+    
+    private static byte[] epochMillis(long millis) {
+        return Long.toString(millis).getBytes(StandardCharsets.US_ASCII);
+    }
 }
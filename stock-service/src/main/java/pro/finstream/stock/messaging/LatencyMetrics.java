@@ -0,0 +1,60 @@
+package pro.finstream.stock.messaging;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.enterprise.context.ApplicationScoped;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency timers of the stock service hops: provider to fetch, Finnhub request and Kafka publish.
+ *
+ * All timers publish p50/p95/p99 and a histogram, tagged by hop, under the same names the
+ * broadcaster uses, so the hops of both services line up in one dashboard.
+ */
+@ApplicationScoped
+public class LatencyMetrics {
+
+    private final Timer provider;
+    private final Timer fetch;
+    private final Timer publish;
+
+    public LatencyMetrics(MeterRegistry registry) {
+        this.provider = hop(registry, "provider", Duration.ofMinutes(10));
+        this.fetch = hop(registry, "fetch", Duration.ofSeconds(10));
+        this.publish = hop(registry, "publish", Duration.ofSeconds(10));
+    }
+
+    /**
+     * Age of the quote when it was fetched, from the provider timestamp (epoch seconds).
+     */
+    public void recordProviderAge(Long providerTimestamp, long fetchedAt) {
+        if (providerTimestamp != null && providerTimestamp > 0) {
+            provider.record(Math.max(0, fetchedAt - providerTimestamp * 1000), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Duration of the Finnhub quote request.
+     */
+    public void recordFetch(long startNanos) {
+        fetch.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Time from handing the event to the producer until the broker acknowledged it.
+     */
+    public void recordPublish(long publishedAt) {
+        publish.record(Math.max(0, System.currentTimeMillis() - publishedAt), TimeUnit.MILLISECONDS);
+    }
+
+    private static Timer hop(MeterRegistry registry, String hop, Duration max) {
+        return Timer.builder("finstream.latency.hop")
+            .description("Latency of one hop of a stock price from provider to WebSocket client")
+            .tag("hop", hop)
+            .publishPercentiles(0.5, 0.95, 0.99)
+            .publishPercentileHistogram()
+            .maximumExpectedValue(max)
+            .register(registry);
+    }
+}
@@ -0,0 +1,27 @@
+package pro.finstream.stock.messaging;
+
+import java.time.Instant;
+import pro.finstream.stock.market.MarketState;
+import pro.finstream.stock.market.MarketStatus;
+
+/**
+ * Market open/close transition, published on {@code finstream.market.status} keyed by exchange.
+ *
+ * @param timeZone       time zone of the exchange, for displaying the times
+ * @param timestamp      when the transition was detected
+ * @param nextTransition next close if open, next open if closed; null if unknown
+ */
+public record MarketStatusEvent(
+    String exchange,
+    MarketState state,
+    MarketStatus.Reason reason,
+    String timeZone,
+    Instant timestamp,
+    Instant nextTransition
+) {
+
+    public static MarketStatusEvent of(MarketStatus status, String timeZone, Instant timestamp) {
+        return new MarketStatusEvent(status.exchange(), status.state(), status.reason(), timeZone,
+            timestamp, status.nextTransition());
+    }
+}
@@ -0,0 +1,16 @@
+package pro.finstream.stock.messaging;
+
+/**
+ * Kafka record headers carrying the hop timestamps of a stock price event.
+ *
+ * Values are epoch milliseconds as ASCII decimal strings, so they stay readable in Kafka UI and
+ * independent of the payload schema. The broadcaster reads them to measure the later hops.
+ */
+public interface TraceHeaders {
+
+    /** Finnhub quote received by the stock service */
+    String FETCHED_AT = "finstream.fetched-at";
+
+    /** Event handed to the Kafka producer */
+    String PUBLISHED_AT = "finstream.published-at";
+}
@@ -305,3 +305,29 @@ export interface MarketStatus {
  * Market status states
  */
 export type MarketState = 'OPEN' | 'CLOSED' | 'PRE_MARKET' | 'AFTER_HOURS' | 'HOLIDAY';
+
+/**
+ * Top movers from /topic/stocks/movers
+ * 
+ * Published by the broadcasting service whenever the listed symbols or their order change.
+ */
+export interface TopMovers {
+  /** Increases with every published change of a server node */
+  version: number;
+  
+  /** Highest change percent first */
+  gainers: Mover[];
+  
+  /** Lowest change percent first */
+  losers: Mover[];
+}
+
+/**
+ * Stock price of a mover when the list was published
+ */
+export interface Mover {
+  symbol: string;
+  price: number;
+  change: number;
+  changePercent: number;
+}
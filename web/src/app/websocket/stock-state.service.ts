@@ -9,7 +9,9 @@ import {
   ConnectionStats,
   SystemNotification,
   MarketStatus,
-  StockServiceError
+  StockServiceError,
+  TopMovers,
+  Mover
 } from './stock-price.types';
 
 /**
@@ -52,6 +54,7 @@ export class StockStateService {
   private readonly _selectedSymbols = signal<Set<string>>(new Set(['AAPL', 'GOOGL', 'MSFT', 'TSLA', 'NVDA']));
   private readonly _systemNotifications = signal<SystemNotification[]>([]);
   private readonly _marketStatus = signal<MarketStatus | null>(null);
+  private readonly _topMovers = signal<TopMovers | null>(null);
   private readonly _errors = signal<StockServiceError[]>([]);
   
   // Performance and monitoring
@@ -78,16 +81,13 @@ export class StockStateService {
     )
   );
   
+  // Ranked by the server (/topic/stocks/movers); only the listed symbols are looked up here
   public readonly gainers = computed(() => 
-    this.enhancedStocksArray()
-      .filter(stock => stock.change > 0)
-      .sort((a, b) => b.changePercent - a.changePercent)
+    this.moversOf(this._topMovers()?.gainers)
   );
   
   public readonly losers = computed(() => 
-    this.enhancedStocksArray()
-      .filter(stock => stock.change < 0)  
-      .sort((a, b) => a.changePercent - b.changePercent)
+    this.moversOf(this._topMovers()?.losers)
   );
   
   public readonly totalStocksTracked = computed(() => this.enhancedStocks().size);
@@ -205,6 +205,29 @@ export class StockStateService {
     console.info(`Market status updated: ${status.market} - ${status.status}`);
   }
   
+  /**
+   * Update top movers
+   * 
+   * Used by WebSocket service for /topic/stocks/movers. Lists older than the current
+   * one (a snapshot overtaken by a newer broadcast) are ignored.
+   */
+  public updateTopMovers(movers: TopMovers): void {
+    const current = this._topMovers();
+    if (current && movers.version < current.version) {
+      return;
+    }
+    this._topMovers.set(movers);
+  }
+  
+  /**
+   * Forget the top movers, e.g. before subscribing on a new connection
+   * 
+   * Versions are counted per server node, so a reconnect may start lower.
+   */
+  public resetTopMovers(): void {
+    this._topMovers.set(null);
+  }
+  
   /**
    * Add or remove symbol from selected tracking list
    */
@@ -242,6 +265,18 @@ export class StockStateService {
     this._systemNotifications.set([]);
   }
   
+  /**
+   * Enhanced stocks of the listed movers, in list order
+   */
+  private moversOf(movers?: Mover[]): EnhancedStockPrice[] {
+    if (!movers) return [];
+    
+    const stocks = this.enhancedStocks();
+    return movers
+      .map(mover => stocks.get(mover.symbol))
+      .filter((stock): stock is EnhancedStockPrice => stock !== undefined);
+  }
+  
   /**
    * Create enhanced stock price with UI metadata
    */
@@ -1,6 +1,6 @@
 import { Injectable, computed, signal, inject } from '@angular/core';
 import { StockStateService } from './stock-state.service';
-import { StockPrice, SystemNotification, ConnectionStatus } from './stock-price.types';
+import { StockPrice, SystemNotification, ConnectionStatus, TopMovers } from './stock-price.types';
 import SockJS from 'sockjs-client';
 import { Client, Frame, Message } from '@stomp/stompjs';
 import { OAuthService } from 'angular-oauth2-oidc';
@@ -38,11 +38,21 @@ export class WebSocketService {
   // STOMP client for WebSocket communication
   private stompClient: Client | null = null;
   
-  // Connection configuration
+  // Connection configuration: raw WebSocket first, SockJS only as fallback
+  private readonly WS_NATIVE_URL = 'ws://localhost:8082/stock-updates-ws';
   private readonly WS_URL = 'http://localhost:8082/stock-updates';
   private readonly RECONNECT_DELAY = 5000; // 5 seconds
   private readonly MAX_RECONNECT_ATTEMPTS = 10;
   
+  // Switched on when the raw WebSocket endpoint cannot be reached (proxy, firewall)
+  private useSockJs = typeof WebSocket === 'undefined';
+  private nativeConnected = false;
+  
+  // Sequence of the last price applied per symbol, from the 'seq' header (<epoch>:<sequence>).
+  // Snapshot frames sent on subscribe may arrive after a newer live update of the same symbol.
+  private epoch: string | null = null;
+  private readonly lastSequences = new Map<string, number>();
+  
   // Reactive connection state using Angular Signals
   private readonly _connectionStatus = signal<ConnectionStatus>('disconnected');
   private readonly _error = signal<string | null>(null);
@@ -94,12 +104,9 @@ export class WebSocketService {
     this._error.set(null);
     
     try {
-      // Create SockJS socket for corporate firewall compatibility
-      const socket = new SockJS(this.WS_URL);
-      
-      // Configure STOMP client
+      // Configure STOMP client; a new socket per (re)connect
       this.stompClient = new Client({
-        webSocketFactory: () => socket,
+        webSocketFactory: () => this.createSocket(),
         connectHeaders: {
           'Authorization': `Bearer ${token}`,
           'X-Requested-With': 'XMLHttpRequest'
@@ -135,7 +142,7 @@ export class WebSocketService {
       // Activate connection
       this.stompClient.activate();
       
-      console.log('WebSocket connection initiated to:', this.WS_URL);
+      console.log('WebSocket connection initiated to:', this.useSockJs ? this.WS_URL : this.WS_NATIVE_URL);
       
     } catch (error) {
       this.handleConnectionError('Failed to initialize WebSocket connection', error);
@@ -158,21 +165,38 @@ export class WebSocketService {
     console.log('WebSocket disconnected');
   }
   
+  /**
+   * Raw WebSocket unless it failed before ever connecting, then SockJS for corporate firewall
+   * compatibility. SockJS adds a JSON-escaped wrapper to every frame, so it is only the fallback.
+   */
+  private createSocket() {
+    return this.useSockJs ? new SockJS(this.WS_URL) : new WebSocket(this.WS_NATIVE_URL);
+  }
+  
   /**
    * Handle successful WebSocket connection
    * 
    * Subscribes to stock price updates and system notifications.
    */
   private onWebSocketConnected(frame: Frame): void {
+    if (!this.useSockJs) {
+      this.nativeConnected = true;
+    }
     this._connectionStatus.set('connected');
     this._reconnectAttempts.set(0);
     this._error.set(null);
     
     console.log('WebSocket connected successfully:', frame);
     
-    // Subscribe to real-time stock price updates
+    // Subscribe to real-time stock price updates; after a reconnect only the missed ones are sent
     this.stompClient?.subscribe('/topic/stocks/prices', (message: Message) => {
       this.handleStockPriceUpdate(message);
+    }, this.resumeHeaders());
+    
+    // Subscribe to top movers, ranked by the server
+    this.stockStateService.resetTopMovers();
+    this.stompClient?.subscribe('/topic/stocks/movers', (message: Message) => {
+      this.handleTopMovers(message);
     });
     
     // Subscribe to system notifications
@@ -180,13 +204,17 @@ export class WebSocketService {
       this.handleSystemNotification(message);
     });
     
-    console.log('WebSocket subscriptions active: stock prices, system notifications');
+    console.log('WebSocket subscriptions active: stock prices, top movers, system notifications');
   }
   
   /**
    * Handle WebSocket connection errors
    */
   private onWebSocketError(frame: Frame | null, error?: Event): void {
+    if (!frame && !this.useSockJs && !this.nativeConnected) {
+      this.useSockJs = true;
+      console.warn('Raw WebSocket unavailable - falling back to SockJS');
+    }
     const errorMsg = frame?.headers?.['message'] || 'WebSocket connection error';
     this.handleConnectionError(errorMsg, error);
   }
@@ -234,6 +262,11 @@ export class WebSocketService {
         return;
       }
       
+      if (!this.isNewer(stockPrice.symbol, message.headers['seq'])) {
+        console.debug(`WebSocket stock price skipped, already applied a newer one: ${stockPrice.symbol}`);
+        return;
+      }
+      
       // Delegate to centralized state service
       this.stockStateService.updateStockPrice(stockPrice);
       
@@ -251,6 +284,44 @@ export class WebSocketService {
     }
   }
   
+  /**
+   * Resume point for resubscribing: the last sequence applied per symbol, <epoch>:AAPL=123,MSFT=118
+   * 
+   * The server then sends only the updates missed since, or the full snapshot if it does not
+   * know the epoch. Empty on the first connect.
+   */
+  private resumeHeaders(): { [key: string]: string } {
+    if (this.epoch === null || this.lastSequences.size === 0) {
+      return {};
+    }
+    const vector = Array.from(this.lastSequences, ([symbol, sequence]) => `${symbol}=${sequence}`).join(',');
+    return { 'resume-from': `${this.epoch}:${vector}` };
+  }
+  
+  /**
+   * Whether a price is newer than the last one applied for its symbol, and if so record it
+   * 
+   * Sequences are comparable within one epoch only; a new epoch (server restarted, or another
+   * node after a reconnect) starts over. Frames without a sequence are always applied.
+   */
+  private isNewer(symbol: string, seq: string | undefined): boolean {
+    const separator = seq ? seq.lastIndexOf(':') : -1;
+    if (!seq || separator < 0) {
+      return true;
+    }
+    const epoch = seq.substring(0, separator);
+    const sequence = Number(seq.substring(separator + 1));
+    if (epoch !== this.epoch) {
+      this.epoch = epoch;
+      this.lastSequences.clear();
+    }
+    if (sequence <= (this.lastSequences.get(symbol) ?? -1)) {
+      return false;
+    }
+    this.lastSequences.set(symbol, sequence);
+    return true;
+  }
+  
   /**
    * Handle system notifications from WebSocket
    * 
@@ -276,6 +347,27 @@ export class WebSocketService {
     }
   }
   
+  /**
+   * Handle top movers from WebSocket
+   * 
+   * Delegates to StockStateService, which resolves the listed symbols.
+   */
+  private handleTopMovers(message: Message): void {
+    try {
+      const movers: TopMovers = JSON.parse(message.body);
+      
+      if (!movers || !Array.isArray(movers.gainers) || !Array.isArray(movers.losers)) {
+        console.warn('Invalid top movers message received:', message.body);
+        return;
+      }
+      
+      this.stockStateService.updateTopMovers(movers);
+      
+    } catch (error) {
+      console.error('Failed to process WebSocket top movers:', error);
+    }
+  }
+  
   /**
    * Handle connection errors with detailed logging
    */
@@ -293,7 +385,7 @@ export class WebSocketService {
       timestamp: new Date(),
       context: { 
         reconnectAttempts: this.reconnectAttempts(),
-        wsUrl: this.WS_URL
+        wsUrl: this.useSockJs ? this.WS_URL : this.WS_NATIVE_URL
       }
     });
     